@@ -1,25 +1,17 @@
 package com.seccertificate.certificateservice.config;
 
+import com.seccertificate.certificateservice.service.GenerationScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 @Configuration
-@EnableAsync
+@EnableConfigurationProperties(GenerationProperties.class)
 public class AsyncConfig {
     
-    @Bean(name = "certificateGenerationExecutor")
-    public Executor certificateGenerationExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(50);
-        executor.setQueueCapacity(500);
-        executor.setThreadNamePrefix("cert-gen-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.initialize();
-        return executor;
+    @Bean(destroyMethod = "shutdown")
+    public GenerationScheduler generationScheduler(GenerationProperties properties, MeterRegistry meterRegistry) {
+        return new GenerationScheduler(properties, meterRegistry);
     }
-}
\ No newline at end of file
+}
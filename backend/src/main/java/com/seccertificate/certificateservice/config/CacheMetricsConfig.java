@@ -0,0 +1,70 @@
+package com.seccertificate.certificateservice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes second-level cache statistics per region:
+ * {@code hibernate.l2.hit.ratio}, {@code hibernate.l2.hits}, {@code hibernate.l2.misses} and {@code hibernate.l2.puts}.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    private static final List<String> REGIONS = List.of("template", "templateVersion", "customer");
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : REGIONS) {
+                Gauge.builder("hibernate.l2.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                    .tag("region", region)
+                    .description("Second-level cache hits / (hits + misses) since startup")
+                    .register(registry);
+                counter(registry, "hibernate.l2.hits", statistics, region, CacheRegionStatistics::getHitCount);
+                counter(registry, "hibernate.l2.misses", statistics, region, CacheRegionStatistics::getMissCount);
+                counter(registry, "hibernate.l2.puts", statistics, region, CacheRegionStatistics::getPutCount);
+            }
+        };
+    }
+
+    private static void counter(MeterRegistry registry, String name, Statistics statistics, String region,
+                                ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder(name, statistics, stats -> {
+                CacheRegionStatistics regionStatistics = regionStatistics(stats, region);
+                return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+            })
+            .tag("region", region)
+            .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = regionStatistics(statistics, region);
+        if (regionStatistics == null) {
+            return 0;
+        }
+        long hits = regionStatistics.getHitCount();
+        long lookups = hits + regionStatistics.getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private static CacheRegionStatistics regionStatistics(Statistics statistics, String region) {
+        // Null when the second-level cache is disabled; unknown regions are rejected
+        try {
+            return statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
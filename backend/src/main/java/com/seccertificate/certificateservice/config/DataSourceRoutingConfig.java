@@ -0,0 +1,74 @@
+package com.seccertificate.certificateservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with primary/replica routing when
+ * {@code app.datasource.routing.enabled} is set. Read-only transactions
+ * ({@code @Transactional(readOnly = true)}) go to replicas, everything else to the primary.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             ReplicaRoutingProperties routingProperties,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        // Same pool settings the auto-configured data source would have received
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        List<ReplicaRoutingProperties.Replica> replicaSettings = routingProperties.getReplicas();
+        for (int i = 0; i < replicaSettings.size(); i++) {
+            replicas.add(createReplica(i, replicaSettings.get(i), dataSourceProperties));
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas,
+            routingProperties.getMaxReplicaLagMs(), readYourWritesTracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariDataSource createReplica(int index,
+                                                  ReplicaRoutingProperties.Replica settings,
+                                                  DataSourceProperties dataSourceProperties) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica-" + index);
+        replica.setJdbcUrl(settings.getUrl());
+        replica.setUsername(settings.getUsername() != null ? settings.getUsername() : dataSourceProperties.getUsername());
+        replica.setPassword(settings.getPassword() != null ? settings.getPassword() : dataSourceProperties.getPassword());
+        replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        replica.setMaximumPoolSize(settings.getMaximumPoolSize());
+        replica.setMinimumIdle(settings.getMinimumIdle());
+        replica.setConnectionTimeout(settings.getConnectionTimeout());
+        // Do not block startup on a replica that is down; the lag check keeps it out of rotation
+        replica.setInitializationFailTimeout(-1);
+        replica.setReadOnly(true);
+        return replica;
+    }
+}
@@ -0,0 +1,62 @@
+package com.seccertificate.certificateservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Certificate generation scheduling under {@code app.generation}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.generation")
+public class GenerationProperties {
+
+    /** Worker threads rendering certificates. */
+    private int workers = 10;
+
+    /** Workers bulk work may never occupy, so interactive requests always find one free. */
+    private int reservedInteractive = 2;
+
+    /** Interactive tasks dispatched in a row while bulk work waits, before one bulk task goes first. */
+    private int interactiveBurst = 4;
+
+    /** Tasks one customer may have running at once, across both lanes. */
+    private int maxRunningPerCustomer = 4;
+
+    /** Tasks one customer may have queued; further submissions are rejected. */
+    private int maxQueuedPerCustomer = 100;
+
+    /** Longest shutdown waits for queued work to finish before it is abandoned. */
+    private long shutdownTimeoutMs = 300_000;
+
+    private Admission admission = new Admission();
+
+    /** Share of the workers per customer ID relative to others; customers not listed have weight 1. */
+    private Map<Long, Integer> weights = new HashMap<>();
+
+    public int weight(Long customerId) {
+        return Math.max(1, weights.getOrDefault(customerId, 1));
+    }
+
+    /**
+     * Work is refused up front when the workers, at their measured throughput, could not start it
+     * within {@code maxQueueSeconds}.
+     */
+    @Data
+    public static class Admission {
+
+        /** Longest expected queue wait accepted, in seconds. */
+        private int maxQueueSeconds = 60;
+
+        /** Part of that queue one customer may fill. */
+        private double maxCustomerShare = 0.5;
+
+        /** Certificates per second assumed until enough have completed to measure it. */
+        private double minThroughput = 5;
+
+        /** Time constant of the throughput average. */
+        private long throughputWindowMs = 30_000;
+    }
+}
@@ -0,0 +1,71 @@
+package com.seccertificate.certificateservice.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Applies PostgreSQL-specific schema objects that JPA annotations cannot express
+ * (extensions, GIN/trigram and BRIN indexes). Runs after Hibernate has created the tables;
+ * every statement is idempotent so it is safe on each startup. Ordered after
+ * {@link com.seccertificate.certificateservice.service.PartitionMaintenanceService}
+ * so indexes are created on the partitioned parents.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final List<String> STATEMENTS = List.of(
+        // Trigram indexes backing fuzzy recipient search
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        "CREATE INDEX IF NOT EXISTS idx_cert_recipient_name_trgm " +
+            "ON certificates USING gin (recipient_name gin_trgm_ops)",
+        "CREATE INDEX IF NOT EXISTS idx_cert_recipient_email_trgm " +
+            "ON certificates USING gin (recipient_email gin_trgm_ops)",
+        // audit_logs is append-only, so "timestamp" follows the physical row order: a BRIN index
+        // (a few kilobytes per partition) replaces the B-tree that grew with every row
+        "CREATE INDEX IF NOT EXISTS idx_audit_timestamp_brin " +
+            "ON audit_logs USING brin (\"timestamp\") WITH (pages_per_range = 32)",
+        "DROP INDEX IF EXISTS idx_audit_timestamp"
+    );
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!isPostgres()) {
+            log.info("Skipping PostgreSQL schema objects: database is not PostgreSQL");
+            return;
+        }
+
+        for (String sql : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (DataAccessException e) {
+                // Missing privileges (e.g. CREATE EXTENSION) must not prevent startup
+                log.warn("Failed to apply schema statement [{}]: {}", sql, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            return product != null && product.toLowerCase().contains("postgresql");
+        } catch (DataAccessException e) {
+            log.warn("Could not determine database product: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.seccertificate.certificateservice.config;
+
+import com.seccertificate.certificateservice.security.CustomUserDetails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which customers wrote recently so their reads can be kept on the primary until
+ * replicas have had time to apply the write.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long stickyWindowMillis;
+    private final Map<Long, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${app.datasource.routing.sticky-window-ms:5000}") long stickyWindowMillis) {
+        this.stickyWindowMillis = stickyWindowMillis;
+    }
+
+    /**
+     * Pins the customer's reads to the primary; inside a transaction the window starts when it commits.
+     */
+    public void markWrite(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pin(customerId);
+                }
+            });
+        } else {
+            pin(customerId);
+        }
+    }
+
+    public void markCurrentCustomerWrite() {
+        markWrite(currentCustomerId());
+    }
+
+    public boolean isSticky(Long customerId) {
+        if (customerId == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(customerId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public boolean isCurrentCustomerSticky() {
+        return isSticky(currentCustomerId());
+    }
+
+    private void pin(Long customerId) {
+        long now = System.currentTimeMillis();
+        stickyUntil.put(customerId, now + stickyWindowMillis);
+        if (stickyUntil.size() > PRUNE_THRESHOLD) {
+            stickyUntil.values().removeIf(until -> until <= now);
+        }
+    }
+
+    private static Long currentCustomerId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getId();
+        }
+        return null;
+    }
+}
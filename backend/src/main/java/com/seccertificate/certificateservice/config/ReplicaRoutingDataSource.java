@@ -0,0 +1,191 @@
+package com.seccertificate.certificateservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ *
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the read-only flag of a Spring
+ * transaction is only visible once the transaction has begun, so the physical connection has to
+ * be fetched lazily on the first statement. Replicas are health-checked for replication lag on a
+ * schedule; when none is within {@code maxReplicaLagMs}, or the current customer wrote recently,
+ * reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // Transaction resource bound while the current transaction reads from a replica
+    private static final Object REPLICA_READ = ReplicaRoutingDataSource.class.getName() + ".replicaRead";
+
+    // Replay lag in milliseconds; 0 when the replica has applied everything it received, so an
+    // idle primary does not make replicas look stale. Non-standby instances report 0.
+    private static final String LAG_SQL =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(CAST(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 AS bigint), 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxReplicaLagMillis;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<DataSource> replicaDataSources,
+                                    long maxReplicaLagMillis,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.maxReplicaLagMillis = maxReplicaLagMillis;
+        this.readYourWritesTracker = readYourWritesTracker;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Unknown keys must never silently fall back; they indicate a routing bug
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.markCurrentCustomerWrite();
+            }
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.isCurrentCustomerSticky()) {
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                markReplicaRead(replica.key);
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Whether the current transaction reads from a replica, which may not yet show the latest
+     * committed writes. Results read there should not be cached beyond the transaction.
+     */
+    public static boolean isCurrentTransactionOnReplica() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    private static void markReplicaRead(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, key);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+            }
+        });
+    }
+
+    /**
+     * Measures replication lag on every replica and takes lagging or unreachable ones out of rotation.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.routing.lag-check-interval-ms:1000}")
+    public void refreshReplicaLag() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                long lag = measureLag(replica.dataSource);
+                replica.lagMillis = lag;
+                healthy = lag <= maxReplicaLagMillis;
+            } catch (SQLException e) {
+                replica.lagMillis = -1;
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("Replica {} unreachable, routing reads to primary: {}", replica.key, e.getMessage());
+                }
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica {} {} (lag {} ms)", replica.key, healthy ? "back in rotation" : "out of rotation",
+                    replica.lagMillis);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * Last measured lag per replica in milliseconds, or -1 if it could not be reached.
+     */
+    public Map<String, Long> replicaLag() {
+        Map<String, Long> lag = new HashMap<>();
+        replicas.forEach(replica -> lag.put(replica.key, replica.lagMillis));
+        return lag;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static long measureLag(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close data source: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        // Out of rotation until the first lag check succeeds
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
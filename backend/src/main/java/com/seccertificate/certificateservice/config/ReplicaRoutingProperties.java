@@ -0,0 +1,38 @@
+package com.seccertificate.certificateservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica settings under {@code app.datasource.routing}. The primary keeps using
+ * {@code spring.datasource}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    /** Replicas further behind the primary than this are skipped until they catch up. */
+    private long maxReplicaLagMs = 2000;
+
+    private long lagCheckIntervalMs = 1000;
+
+    /** How long a customer's reads stay on the primary after one of their writes commits. */
+    private long stickyWindowMs = 5000;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 20;
+        private int minimumIdle = 5;
+        private long connectionTimeout = 3000;
+    }
+}
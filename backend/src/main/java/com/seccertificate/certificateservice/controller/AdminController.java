@@ -0,0 +1,27 @@
+package com.seccertificate.certificateservice.controller;
+
+import com.seccertificate.certificateservice.dto.ApiResponse;
+import com.seccertificate.certificateservice.service.UsageRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final UsageRollupService usageRollupService;
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildUsageRollups() {
+        if (!usageRollupService.startRebuild()) {
+            return ResponseEntity.ok(ApiResponse.success("Usage rollup rebuild already in progress", null));
+        }
+        return ResponseEntity.accepted()
+            .body(ApiResponse.success("Usage rollup rebuild started", null));
+    }
+}
@@ -0,0 +1,69 @@
+package com.seccertificate.certificateservice.controller;
+
+import com.seccertificate.certificateservice.dto.ApiResponse;
+import com.seccertificate.certificateservice.dto.AuditLogDTO;
+import com.seccertificate.certificateservice.dto.CursorPageResponse;
+import com.seccertificate.certificateservice.security.CustomUserDetails;
+import com.seccertificate.certificateservice.service.AuditLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/audit")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AuditController {
+    
+    private final AuditLogService auditLogService;
+    
+    /**
+     * The customer's audit events, newest first. Pass {@code nextCursor} back as {@code cursor}
+     * for the following page.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<CursorPageResponse<AuditLogDTO>>> getAuditLogs(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        AuditLogService.Filter filter = new AuditLogService.Filter(action, entityType, entityId, from, to);
+        CursorPageResponse<AuditLogDTO> logs = auditLogService.getAuditLogs(userDetails.getId(), filter, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(logs));
+    }
+    
+    /**
+     * Streams the matching audit events as CSV, oldest first.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Validated before the response starts, so bad parameters still get a 400
+        AuditLogService.Filter filter = new AuditLogService.Filter(action, entityType, entityId, from, to);
+        Long customerId = userDetails.getId();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv;charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment", "audit_" + filter.from() + "_" + filter.to() + ".csv");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> auditLogService.export(customerId, filter, out));
+    }
+}
@@ -4,18 +4,25 @@ import com.seccertificate.certificateservice.dto.ApiResponse;
 import com.seccertificate.certificateservice.dto.BatchGenerationResponse;
 import com.seccertificate.certificateservice.dto.CertificateBatchRequest;
 import com.seccertificate.certificateservice.dto.CertificateDTO;
+import com.seccertificate.certificateservice.dto.CursorPageResponse;
 import com.seccertificate.certificateservice.dto.GenerateCertificateRequest;
+import com.seccertificate.certificateservice.dto.UsageStatsDTO;
 import com.seccertificate.certificateservice.security.CustomUserDetails;
+import com.seccertificate.certificateservice.service.CertificateExportService;
 import com.seccertificate.certificateservice.service.CertificateService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,6 +33,7 @@ import java.util.UUID;
 public class CertificateController {
     
     private final CertificateService certificateService;
+    private final CertificateExportService certificateExportService;
     
     @PostMapping("/generate")
     public ResponseEntity<ApiResponse<CertificateDTO>> generateCertificate(
@@ -54,10 +62,10 @@ public class CertificateController {
             int count = batchRequest.getCertificates().size();
             String batchId = UUID.randomUUID().toString();
         
-            certificateService.generateBatchCertificates(userDetails.getId(), batchRequest);
-        
-            // Calculate estimated completion time (rough estimate: 1 second per certificate with 50 parallel threads)
-            int estimatedSeconds = (count / 50) + 1;
+            // Estimated before queueing, from the work ahead and the measured throughput
+            long estimatedSeconds = certificateService.estimateBatchSeconds(count);
+            // Refused with 429 and Retry-After when the queue is too long to start it soon
+            certificateService.generateBatchCertificates(userDetails.getId(), batchId, batchRequest);
         
             BatchGenerationResponse response = BatchGenerationResponse.builder()
                 .totalRequested(count)
@@ -65,12 +73,75 @@ public class CertificateController {
                 .batchId(batchId)
                 .message(String.format("Batch of %d certificates queued for generation", count))
                 .estimatedCompletionTime(String.format("%d seconds", estimatedSeconds))
+                .mergedPdfUrl(Boolean.TRUE.equals(batchRequest.getMerged())
+                    ? "/api/certificates/batches/" + batchId + "/pdf" : null)
                 .build();
         
             return ResponseEntity.accepted()
                 .body(ApiResponse.success("Batch generation started", response));
         }
     
+    /**
+     * The batch's certificates as one PDF, available once the whole batch has been generated and
+     * committed. Fonts are not deduplicated: each page keeps the font subsets of its certificate.
+     */
+    @GetMapping("/batches/{batchId}/pdf")
+    public ResponseEntity<Resource> downloadBatchPdf(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable String batchId) {
+        Resource pdf = certificateService.getMergedBatchPdf(userDetails.getId(), batchId);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", "certificates_" + batchId + ".pdf");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(pdf);
+    }
+    
+    /**
+     * Streams a ZIP of the PDFs of a batch, a template and/or a creation date range.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCertificates(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false) String batchId,
+            @RequestParam(required = false) Long templateId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Validated before the response starts, so bad parameters still get a 400
+        CertificateExportService.Filter filter = new CertificateExportService.Filter(batchId, templateId, from, to);
+        Long customerId = userDetails.getId();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", "certificates.zip");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> certificateExportService.export(customerId, filter, out));
+    }
+    
+    /**
+     * Streams the metadata of all certificates as NDJSON (default) or CSV.
+     */
+    @GetMapping("/register")
+    public ResponseEntity<StreamingResponseBody> exportRegister(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        CertificateExportService.RegisterFormat registerFormat = CertificateExportService.RegisterFormat.of(format);
+        Long customerId = userDetails.getId();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(registerFormat.contentType() + ";charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment", "certificates." + registerFormat.extension());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> certificateExportService.exportRegister(customerId, registerFormat, out));
+    }
+    
     @PostMapping("/simulate")
     public ResponseEntity<ApiResponse<String>> simulateCertificate(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -88,6 +159,26 @@ public class CertificateController {
         return ResponseEntity.ok(ApiResponse.success(certificates));
     }
     
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<CursorPageResponse<CertificateDTO>>> searchCertificates(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<CertificateDTO> results =
+            certificateService.searchCertificates(userDetails.getId(), query, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<UsageStatsDTO>> getUsageStats(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        UsageStatsDTO stats = certificateService.getUsageStats(userDetails.getId(), from, to);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+    
     @GetMapping("/{uniqueId}")
     public ResponseEntity<ApiResponse<CertificateDTO>> getCertificateByUniqueId(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -96,6 +187,14 @@ public class CertificateController {
         return ResponseEntity.ok(ApiResponse.success(certificate));
     }
     
+    @PostMapping("/{uniqueId}/revoke")
+    public ResponseEntity<ApiResponse<CertificateDTO>> revokeCertificate(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable String uniqueId) {
+        CertificateDTO certificate = certificateService.revokeCertificate(userDetails.getId(), uniqueId);
+        return ResponseEntity.ok(ApiResponse.success("Certificate revoked", certificate));
+    }
+    
     @GetMapping("/{uniqueId}/download")
     public ResponseEntity<byte[]> downloadCertificate(
             @AuthenticationPrincipal CustomUserDetails userDetails,
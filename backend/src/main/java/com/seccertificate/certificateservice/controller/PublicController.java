@@ -14,11 +14,16 @@ public class PublicController {
     
     private final CertificateService certificateService;
     
+    /**
+     * Accepts both QR formats: a unique ID with its signature, or a compact token on its own.
+     */
     @GetMapping("/verify/{uniqueId}")
     public ResponseEntity<ApiResponse<Boolean>> verifyCertificate(
             @PathVariable String uniqueId,
-            @RequestParam String signature) {
-        boolean isValid = certificateService.verifyCertificate(uniqueId, signature);
+            @RequestParam(required = false) String signature) {
+        boolean isValid = signature != null
+                ? certificateService.verifyCertificate(uniqueId, signature)
+                : certificateService.verifyToken(uniqueId);
         return ResponseEntity.ok(ApiResponse.success("Verification complete", isValid));
     }
     
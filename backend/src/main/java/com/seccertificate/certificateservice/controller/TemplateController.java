@@ -5,9 +5,10 @@ import com.seccertificate.certificateservice.dto.PageResponse;
 import com.seccertificate.certificateservice.dto.TemplateDTO;
 import com.seccertificate.certificateservice.dto.TemplateSimulationRequest;
 import com.seccertificate.certificateservice.dto.TemplateSimulationResponse;
+import com.seccertificate.certificateservice.entity.Template;
 import com.seccertificate.certificateservice.security.CustomUserDetails;
 import com.seccertificate.certificateservice.service.TemplateService;
-import com.seccertificate.certificateservice.service.PdfGenerationService;
+import com.seccertificate.certificateservice.service.TemplatePreviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -19,8 +20,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Base64;
 import java.util.List;
 
 @RestController
@@ -30,7 +33,7 @@ import java.util.List;
 public class TemplateController {
     
     private final TemplateService templateService;
-    private final PdfGenerationService pdfGenerationService;
+    private final TemplatePreviewService templatePreviewService;
     
     @PostMapping
     public ResponseEntity<ApiResponse<TemplateDTO>> createTemplate(
@@ -100,11 +103,8 @@ public class TemplateController {
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @Valid @RequestBody TemplateSimulationRequest request) throws IOException {
         
-        TemplateDTO template = templateService.getTemplateById(userDetails.getId(), request.getTemplateId());
-        byte[] pdfBytes = pdfGenerationService.generatePdfFromHtmlContent(
-            template.getTemplateContent(), 
-            request.getPlaceholderValues()
-        );
+        byte[] pdfBytes = templatePreviewService.previewPdf(
+            userDetails.getId(), request.getTemplateId(), request.getPlaceholderValues());
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
@@ -115,12 +115,53 @@ public class TemplateController {
                 .body(pdfBytes);
     }
     
+    /**
+     * First page of the simulated certificate as an image, much lighter than the PDF for live previews.
+     */
+    @PostMapping("/simulate/preview")
+    public ResponseEntity<byte[]> simulateTemplatePreview(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody TemplateSimulationRequest request,
+            @RequestParam(defaultValue = "96") int dpi,
+            @RequestParam(defaultValue = "png") String format) {
+        
+        TemplatePreviewService.Preview preview = templatePreviewService.preview(
+            userDetails.getId(), request.getTemplateId(), request.getPlaceholderValues(),
+            dpi, TemplatePreviewService.Format.parse(format));
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(preview.contentType()))
+                .body(preview.image());
+    }
+    
+    /**
+     * Creates a PDF_TEMPLATE from an uploaded PDF with form fields. Field names become the
+     * placeholders; a field named {@code qr_image} marks where the QR code is drawn.
+     */
+    @PostMapping(value = "/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<TemplateDTO>> uploadPdfTemplate(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam String name,
+            @RequestParam(required = false) String description) throws IOException {
+        TemplateDTO templateDTO = TemplateDTO.builder()
+                .name(name)
+                .description(description)
+                .type(Template.TemplateType.PDF_TEMPLATE.name())
+                .templateContent(Base64.getEncoder().encodeToString(file.getBytes()))
+                .build();
+        TemplateDTO created = templateService.createTemplate(userDetails.getId(), templateDTO);
+        return ResponseEntity.ok(ApiResponse.success("Template created successfully", created));
+    }
+    
     @GetMapping("/{id}/placeholders")
     public ResponseEntity<ApiResponse<List<String>>> getTemplatePlaceholders(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @PathVariable Long id) {
         TemplateDTO template = templateService.getTemplateById(userDetails.getId(), id);
-        List<String> placeholders = templateService.extractPlaceholders(template.getTemplateContent());
+        List<String> placeholders = Template.TemplateType.PDF_TEMPLATE.name().equals(template.getType())
+                ? template.getPlaceholders() // form field names, extracted on upload
+                : templateService.extractPlaceholders(template.getTemplateContent());
         return ResponseEntity.ok(ApiResponse.success("Placeholders extracted successfully", placeholders));
     }
 }
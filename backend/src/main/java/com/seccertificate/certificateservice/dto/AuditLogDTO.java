@@ -1,5 +1,25 @@
 package com.seccertificate.certificateservice.dto;
 
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class AuditLogDTO {
+    private Long id;
+    
+    private String action;
+    
+    private String entityType;
+    private Long entityId;
+    
+    private String details;
+    
+    private String ipAddress;
+    private String userAgent;
     
+    private LocalDateTime timestamp;
 }
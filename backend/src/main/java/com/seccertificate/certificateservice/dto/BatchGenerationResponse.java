@@ -15,4 +15,5 @@ public class BatchGenerationResponse {
     private String batchId;
     private String message;
     private String estimatedCompletionTime;
+    private String mergedPdfUrl;
 }
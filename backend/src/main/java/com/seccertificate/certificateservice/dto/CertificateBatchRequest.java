@@ -19,4 +19,9 @@ public class CertificateBatchRequest {
     @NotEmpty(message = "At least one certificate data set is required")
         @Size(max = 1000, message = "Maximum 1000 certificates per batch")
         private List<GenerateCertificateRequest> certificates;
+    
+    // Also write all certificates as pages of one PDF, downloadable per batch once it committed.
+    // Identical images and stamped layers are stored once; font subsets are not deduplicated,
+    // so each page keeps its own embedded fonts
+    private Boolean merged;
 }
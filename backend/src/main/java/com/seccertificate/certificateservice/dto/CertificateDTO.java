@@ -39,4 +39,6 @@ public class CertificateDTO {
     private LocalDateTime downloadedAt;
     
     private Integer downloadCount;
+    
+    private String batchId;
 }
\ No newline at end of file
@@ -28,6 +28,10 @@ public class TemplateDTO {
     
     private String type; // HTML, JSON, PDF_TEMPLATE
     
+    private String renderer; // ITEXT, OPENHTMLTOPDF; null uses the server default
+    
+    private Boolean stamped; // static-layer stamping for HTML templates; null keeps the current setting
+    
     private List<String> placeholders;
     
     private String status;
@@ -0,0 +1,45 @@
+package com.seccertificate.certificateservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageStatsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalGenerated;
+    private long totalDownloaded;
+    private long totalVerified;
+    private List<DailyUsage> daily;
+    private List<TemplateUsage> byTemplate;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DailyUsage {
+        private LocalDate date;
+        private long generated;
+        private long downloaded;
+        private long verified;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class TemplateUsage {
+        private Long templateId;
+        private long generated;
+        private long downloaded;
+        private long verified;
+    }
+}
@@ -9,9 +9,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "audit_logs", indexes = {
     @Index(name = "idx_audit_customer", columnList = "customer_id"),
-    @Index(name = "idx_audit_action", columnList = "action"),
-    @Index(name = "idx_audit_timestamp", columnList = "timestamp")
+    @Index(name = "idx_audit_action", columnList = "action")
 })
+// "timestamp" is indexed with BRIN by PostgresSchemaInitializer
 @Getter
 @Setter
 @NoArgsConstructor
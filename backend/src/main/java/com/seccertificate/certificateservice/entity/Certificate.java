@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_cert_customer", columnList = "customer_id"),
     @Index(name = "idx_cert_template", columnList = "template_id"),
     @Index(name = "idx_cert_unique_id", columnList = "uniqueId"),
-    @Index(name = "idx_cert_created", columnList = "createdAt")
+    @Index(name = "idx_cert_created", columnList = "createdAt"),
+    @Index(name = "idx_cert_batch", columnList = "batchId")
 })
 @Getter
 @Setter
@@ -24,7 +25,10 @@ public class Certificate {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false, length = 100)
+    // certificates is partitioned by createdAt and PostgreSQL only allows unique indexes that include
+    // the partition key, so uniqueness is enforced through the certificate_ids registry, which a
+    // trigger (created by PartitionMaintenanceService) fills in the inserting transaction.
+    @Column(nullable = false, length = 100)
     private String uniqueId; // UUID for verification
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,6 +39,11 @@ public class Certificate {
     @JoinColumn(name = "template_id", nullable = false)
     private Template template;
     
+    // Exact template version the PDF was rendered with; null for certificates issued before versioning
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "template_version_id")
+    private TemplateVersion templateVersion;
+    
     @Column(nullable = false, length = 500)
     private String filePath; // Path to PDF file
     
@@ -56,6 +65,9 @@ public class Certificate {
     @Column(length = 500)
     private String qrCodeData; // QR code for verification
     
+    @Column(length = 36)
+    private String batchId; // Set for certificates generated through a batch request
+    
     @Column(length = 20)
     @Enumerated(EnumType.STRING)
     @Builder.Default
@@ -2,6 +2,8 @@ package com.seccertificate.certificateservice.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -10,6 +12,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer") // bounds in application.conf
 @Table(name = "customers", indexes = {
     @Index(name = "idx_customer_email", columnList = "email"),
     @Index(name = "idx_customer_api_key", columnList = "apiKey")
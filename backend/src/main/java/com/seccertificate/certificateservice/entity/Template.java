@@ -2,6 +2,8 @@ package com.seccertificate.certificateservice.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -10,6 +12,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "template") // bounds in application.conf
 @Table(name = "templates", indexes = {
     @Index(name = "idx_template_customer", columnList = "customer_id"),
     @Index(name = "idx_template_name", columnList = "name")
@@ -51,6 +55,18 @@ public class Template {
     @Builder.Default
     private TemplateStatus status = TemplateStatus.ACTIVE;
     
+    @Column(length = 20)
+    @Enumerated(EnumType.STRING)
+    private Renderer renderer; // null = app.rendering.default-engine
+    
+    private Boolean stamped; // HTML only: draw values onto a static layer rendered once per version; null = off
+    
+    // Render-ready snapshot of the current content. No FK constraint: versions reference their
+    // template, and the cycle would block deleting either side.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_version_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private TemplateVersion currentVersion;
+    
     @OneToMany(mappedBy = "template", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Certificate> certificates = new ArrayList<>();
@@ -69,4 +85,8 @@ public class Template {
     public enum TemplateStatus {
         ACTIVE, INACTIVE, ARCHIVED
     }
+    
+    public enum Renderer {
+        ITEXT, OPENHTMLTOPDF
+    }
 }
@@ -0,0 +1,63 @@
+package com.seccertificate.certificateservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable, render-ready snapshot of a template, created whenever its content changes.
+ * Certificates reference the version they were rendered with so they can be reproduced exactly.
+ */
+@Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "templateVersion")
+@Table(name = "template_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_template_version_number", columnNames = {"template_id", "versionNumber"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TemplateVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "template_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // removed with the template, after its certificates
+    private Template template;
+
+    @Column(nullable = false)
+    private Integer versionNumber;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Template.TemplateType type;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content; // sanitized, normalized to XHTML for HTML templates
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String segments; // JSON: precompiled literal/placeholder/slot segments of content
+
+    @Column(columnDefinition = "TEXT")
+    private String placeholders; // JSON array of placeholder names
+
+    @Column(nullable = false, length = 64)
+    private String contentHash; // SHA-256 of the source content, to skip no-op versions
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
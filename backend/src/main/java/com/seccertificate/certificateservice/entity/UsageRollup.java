@@ -0,0 +1,55 @@
+package com.seccertificate.certificateservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Daily usage counts per customer and template, maintained incrementally by
+ * {@code UsageRollupService} so dashboard statistics never scan certificates.
+ */
+@Entity
+@Table(name = "usage_rollups")
+@IdClass(UsageRollup.RollupId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageRollup {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Id
+    @Column(name = "template_id")
+    private Long templateId;
+
+    @Id
+    @Column(name = "rollup_date")
+    private LocalDate rollupDate;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long generatedCount = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long downloadedCount = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long verifiedCount = 0L;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RollupId implements Serializable {
+        private Long customerId;
+        private Long templateId;
+        private LocalDate rollupDate;
+    }
+}
@@ -0,0 +1,18 @@
+package com.seccertificate.certificateservice.exception;
+
+/**
+ * Work refused because it could not start soon enough; answered with 429 and {@code Retry-After}.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
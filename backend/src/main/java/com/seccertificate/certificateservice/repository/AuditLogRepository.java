@@ -1,15 +1,21 @@
 package com.seccertificate.certificateservice.repository;
 
+import com.seccertificate.certificateservice.dto.AuditLogDTO;
 import com.seccertificate.certificateservice.entity.AuditLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
@@ -20,12 +26,44 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     // Find logs by action
     List<AuditLog> findByAction(String action);
     
-    // Find logs in date range
-    @Query("SELECT a FROM AuditLog a WHERE a.customerId = :customerId " +
-           "AND a.timestamp BETWEEN :startDate AND :endDate")
-    List<AuditLog> findByCustomerIdAndDateRange(@Param("customerId") Long customerId,
-                                                @Param("startDate") LocalDateTime startDate,
-                                                @Param("endDate") LocalDateTime endDate);
+    // Keyset page of logs in a date range, newest first. The bounded range on timestamp lets PostgreSQL
+    // prune monthly partitions and use the BRIN index; the (timestamp, id) cursor replaces OFFSET.
+    @Query("SELECT new com.seccertificate.certificateservice.dto.AuditLogDTO(a.id, a.action, a.entityType, " +
+           "a.entityId, a.details, a.ipAddress, a.userAgent, a.timestamp) FROM AuditLog a " +
+           "WHERE a.customerId = :customerId AND a.timestamp >= :startDate AND a.timestamp < :endDate " +
+           "AND (:action IS NULL OR a.action = :action) " +
+           "AND (:entityType IS NULL OR a.entityType = :entityType) " +
+           "AND (:entityId IS NULL OR a.entityId = :entityId) " +
+           "AND (a.timestamp < :beforeTimestamp OR (a.timestamp = :beforeTimestamp AND a.id < :beforeId)) " +
+           "ORDER BY a.timestamp DESC, a.id DESC")
+    List<AuditLogDTO> findPageByCustomerIdAndDateRange(@Param("customerId") Long customerId,
+                                                       @Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate,
+                                                       @Param("action") String action,
+                                                       @Param("entityType") String entityType,
+                                                       @Param("entityId") Long entityId,
+                                                       @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                       @Param("beforeId") Long beforeId,
+                                                       Limit limit);
+    
+    // Same filters, oldest first, read through a server-side cursor for exports
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.seccertificate.certificateservice.dto.AuditLogDTO(a.id, a.action, a.entityType, " +
+           "a.entityId, a.details, a.ipAddress, a.userAgent, a.timestamp) FROM AuditLog a " +
+           "WHERE a.customerId = :customerId AND a.timestamp >= :startDate AND a.timestamp < :endDate " +
+           "AND (:action IS NULL OR a.action = :action) " +
+           "AND (:entityType IS NULL OR a.entityType = :entityType) " +
+           "AND (:entityId IS NULL OR a.entityId = :entityId) " +
+           "ORDER BY a.timestamp, a.id")
+    Stream<AuditLogDTO> streamByCustomerIdAndDateRange(@Param("customerId") Long customerId,
+                                                       @Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate,
+                                                       @Param("action") String action,
+                                                       @Param("entityType") String entityType,
+                                                       @Param("entityId") Long entityId);
     
     // Find recent activity
     @Query("SELECT a FROM AuditLog a WHERE a.customerId = :customerId " +
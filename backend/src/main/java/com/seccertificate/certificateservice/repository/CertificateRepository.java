@@ -4,13 +4,18 @@ import com.seccertificate.certificateservice.entity.Certificate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CertificateRepository extends JpaRepository<Certificate, Long> {
@@ -42,7 +47,7 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>
     // Count certificates by template
     long countByTemplateId(Long templateId);
     
-    // Find certificates created in date range
+    // Find certificates created in date range (prunes monthly createdAt partitions)
     @Query("SELECT c FROM Certificate c WHERE c.customer.id = :customerId " +
            "AND c.createdAt BETWEEN :startDate AND :endDate")
     List<Certificate> findByCustomerIdAndDateRange(@Param("customerId") Long customerId,
@@ -53,4 +58,61 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>
     boolean existsByUniqueId(String uniqueId);
     
     boolean existsByIdAndCustomerId(Long id, Long customerId);
+    
+    // Fuzzy recipient search (pg_trgm GIN indexes), ranked by similarity with keyset pagination.
+    // The first page passes lastScore > 1 and lastId = Long.MAX_VALUE so no NULL parameters are needed.
+    @Query(value = "SELECT h.id AS id, h.score AS score FROM (" +
+                   "  SELECT c.id AS id, CAST(GREATEST(" +
+                   "      COALESCE(similarity(c.recipient_name, :query), 0), " +
+                   "      COALESCE(similarity(c.recipient_email, :query), 0)) AS double precision) AS score " +
+                   "  FROM certificates c " +
+                   "  WHERE c.customer_id = :customerId " +
+                   "    AND (c.recipient_name % :query OR c.recipient_email % :query " +
+                   "         OR c.recipient_name ILIKE :pattern OR c.recipient_email ILIKE :pattern)" +
+                   ") h " +
+                   "WHERE h.score < :lastScore OR (h.score = :lastScore AND h.id < :lastId) " +
+                   "ORDER BY h.score DESC, h.id DESC " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<SearchHit> searchByRecipient(@Param("customerId") Long customerId,
+                                      @Param("query") String query,
+                                      @Param("pattern") String pattern,
+                                      @Param("lastScore") double lastScore,
+                                      @Param("lastId") long lastId,
+                                      @Param("limit") int limit);
+    
+    // Load search hits with their template in one round trip
+    @Query("SELECT c FROM Certificate c JOIN FETCH c.template WHERE c.id IN :ids")
+    List<Certificate> findAllWithTemplateByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Compliance register: plain rows (no managed entities) read through a server-side cursor,
+    // consumed inside a read-only transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.uniqueId AS uniqueId, t.id AS templateId, t.name AS templateName, " +
+           "c.recipientName AS recipientName, c.recipientEmail AS recipientEmail, c.status AS status, " +
+           "c.createdAt AS createdAt, c.downloadedAt AS downloadedAt, c.downloadCount AS downloadCount, " +
+           "c.batchId AS batchId " +
+           "FROM Certificate c JOIN c.template t WHERE c.customer.id = :customerId ORDER BY c.createdAt, c.id")
+    Stream<RegisterRow> streamRegister(@Param("customerId") Long customerId);
+    
+    interface RegisterRow {
+        String getUniqueId();
+        Long getTemplateId();
+        String getTemplateName();
+        String getRecipientName();
+        String getRecipientEmail();
+        Certificate.CertificateStatus getStatus();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getDownloadedAt();
+        Integer getDownloadCount();
+        String getBatchId();
+    }
+    
+    interface SearchHit {
+        Long getId();
+        Double getScore();
+    }
 }
\ No newline at end of file
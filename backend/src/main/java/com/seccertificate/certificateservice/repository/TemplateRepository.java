@@ -19,10 +19,12 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
     
     Page<Template> findByCustomerId(Long customerId, Pageable pageable);
     
-    // Find template by ID and customer ID (for security)
-    @Query("SELECT t FROM Template t WHERE t.id = :templateId AND t.customer.id = :customerId")
-    Optional<Template> findByIdAndCustomerId(@Param("templateId") Long templateId, 
-                                             @Param("customerId") Long customerId);
+    // Find template by ID and customer ID (for security). Loads by primary key so the
+    // second-level cache is used; the owner check reads the cached FK without loading the customer.
+    default Optional<Template> findByIdAndCustomerId(Long templateId, Long customerId) {
+        return findById(templateId)
+                .filter(template -> template.getCustomer().getId().equals(customerId));
+    }
     
     // Find active templates
     @Query("SELECT t FROM Template t WHERE t.customer.id = :customerId AND t.status = 'ACTIVE'")
@@ -33,4 +35,7 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
     
     // Count templates by customer
     long countByCustomerId(Long customerId);
+    
+    // Templates saved before versioning, for the startup backfill
+    List<Template> findTop100ByCurrentVersionIsNullOrderById();
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.seccertificate.certificateservice.repository;
+
+import com.seccertificate.certificateservice.entity.TemplateVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TemplateVersionRepository extends JpaRepository<TemplateVersion, Long> {
+    
+    // Highest version number of a template, 0 if it has none yet
+    @Query("SELECT COALESCE(MAX(v.versionNumber), 0) FROM TemplateVersion v WHERE v.template.id = :templateId")
+    int findMaxVersionNumber(@Param("templateId") Long templateId);
+}
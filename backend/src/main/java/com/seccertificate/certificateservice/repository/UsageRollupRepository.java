@@ -0,0 +1,49 @@
+package com.seccertificate.certificateservice.repository;
+
+import com.seccertificate.certificateservice.entity.UsageRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UsageRollupRepository extends JpaRepository<UsageRollup, UsageRollup.RollupId> {
+
+    // Totals for a customer over a date range
+    @Query("SELECT COALESCE(SUM(r.generatedCount), 0) AS generated, " +
+           "COALESCE(SUM(r.downloadedCount), 0) AS downloaded, " +
+           "COALESCE(SUM(r.verifiedCount), 0) AS verified " +
+           "FROM UsageRollup r WHERE r.customerId = :customerId AND r.rollupDate BETWEEN :from AND :to")
+    UsageTotals sumByCustomerId(@Param("customerId") Long customerId,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to);
+
+    // Per-day totals for a customer, oldest first
+    @Query("SELECT r.rollupDate AS rollupDate, SUM(r.generatedCount) AS generated, " +
+           "SUM(r.downloadedCount) AS downloaded, SUM(r.verifiedCount) AS verified " +
+           "FROM UsageRollup r WHERE r.customerId = :customerId AND r.rollupDate BETWEEN :from AND :to " +
+           "GROUP BY r.rollupDate ORDER BY r.rollupDate")
+    List<UsageTotals> sumByDay(@Param("customerId") Long customerId,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    // Per-template totals for a customer
+    @Query("SELECT r.templateId AS templateId, SUM(r.generatedCount) AS generated, " +
+           "SUM(r.downloadedCount) AS downloaded, SUM(r.verifiedCount) AS verified " +
+           "FROM UsageRollup r WHERE r.customerId = :customerId AND r.rollupDate BETWEEN :from AND :to " +
+           "GROUP BY r.templateId")
+    List<UsageTotals> sumByTemplate(@Param("customerId") Long customerId,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    interface UsageTotals {
+        LocalDate getRollupDate();
+        Long getTemplateId();
+        Long getGenerated();
+        Long getDownloaded();
+        Long getVerified();
+    }
+}
@@ -1,6 +1,5 @@
 package com.seccertificate.certificateservice.security;
 
-import com.seccertificate.certificateservice.entity.Customer;
 import com.seccertificate.certificateservice.repository.CustomerRepository;
 import jakarta.servlet.FilterChain;
 import org.springframework.lang.NonNull;
@@ -22,6 +21,7 @@ import java.io.IOException;
 public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
     
     private final CustomerRepository customerRepository;
+    private final ApiKeyCache apiKeyCache;
     
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -31,10 +31,12 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
             String apiKey = getApiKeyFromRequest(request);
             
             if (StringUtils.hasText(apiKey)) {
-                Customer customer = customerRepository.findActiveCustomerByApiKey(apiKey).orElse(null);
+                CustomUserDetails userDetails = apiKeyCache.get(apiKey, key ->
+                        customerRepository.findActiveCustomerByApiKey(key)
+                                .map(CustomUserDetails::create)
+                                .orElse(null));
                 
-                if (customer != null) {
-                    CustomUserDetails userDetails = CustomUserDetails.create(customer);
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,42 @@
+package com.seccertificate.certificateservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Resolved API keys, so {@link ApiKeyAuthenticationFilter} does not query the customers table on
+ * every request. Entries are evicted by customer when the cache invalidation bus reports a change.
+ */
+@Component
+public class ApiKeyCache {
+
+    private final Cache<String, CustomUserDetails> cache;
+
+    public ApiKeyCache(@Value("${app.cache.api-keys.maximum-size:10000}") long maximumSize,
+                       @Value("${app.cache.api-keys.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the cached user for the key, loading it on a miss. Unknown keys are not cached.
+     */
+    public CustomUserDetails get(String apiKey, Function<String, CustomUserDetails> loader) {
+        return cache.get(apiKey, loader);
+    }
+
+    public void evictCustomer(Long customerId) {
+        cache.asMap().values().removeIf(user -> user.getId().equals(customerId));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
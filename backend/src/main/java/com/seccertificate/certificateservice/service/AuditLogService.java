@@ -0,0 +1,175 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.dto.AuditLogDTO;
+import com.seccertificate.certificateservice.dto.CursorPageResponse;
+import com.seccertificate.certificateservice.repository.AuditLogRepository;
+import com.seccertificate.certificateservice.util.Csv;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the audit log: keyset-paginated queries and a streamed CSV export, always scoped
+ * to one customer and a bounded time range.
+ */
+@Service
+@Slf4j
+public class AuditLogService {
+
+    static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int FLUSH_EVERY = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AuditLogService(AuditLogRepository auditLogRepository, PlatformTransactionManager transactionManager) {
+        this.auditLogRepository = auditLogRepository;
+        // PostgreSQL only honours the fetch size inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Which audit events to return. Dates are inclusive; without {@code from} the range covers the
+     * {@value #DEFAULT_RANGE_DAYS} days up to {@code to}, which defaults to today.
+     */
+    public record Filter(String action, String entityType, Long entityId, LocalDate from, LocalDate to) {
+
+        public Filter {
+            if (to == null) {
+                to = LocalDate.now();
+            }
+            if (from == null) {
+                from = to.minusDays(DEFAULT_RANGE_DAYS - 1);
+            }
+            if (from.isAfter(to)) {
+                throw new IllegalArgumentException("'from' must not be after 'to'");
+            }
+            action = blankToNull(action);
+            entityType = blankToNull(entityType);
+        }
+
+        LocalDateTime start() {
+            return from.atStartOfDay();
+        }
+
+        LocalDateTime end() {
+            return to.plusDays(1).atStartOfDay();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AuditLogDTO> getAuditLogs(Long customerId, Filter filter, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // First page starts at the (exclusive) end of the range
+        LocalDateTime beforeTimestamp = filter.end();
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            try {
+                beforeId = Long.parseLong(parts[0]);
+                beforeTimestamp = LocalDateTime.parse(parts[1]);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<AuditLogDTO> logs = auditLogRepository.findPageByCustomerIdAndDateRange(
+            customerId, filter.start(), filter.end(), filter.action(), filter.entityType(), filter.entityId(),
+            beforeTimestamp, beforeId, Limit.of(pageSize + 1));
+        boolean last = logs.size() <= pageSize;
+        if (!last) {
+            logs = logs.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (!last) {
+            AuditLogDTO lastLog = logs.get(logs.size() - 1);
+            nextCursor = encodeCursor(lastLog.getId() + ":" + lastLog.getTimestamp());
+        }
+
+        return CursorPageResponse.<AuditLogDTO>builder()
+                .content(logs)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .last(last)
+                .build();
+    }
+
+    /**
+     * Writes the matching events to {@code out} as CSV, oldest first, as they are read from the
+     * cursor.
+     *
+     * @return number of events written
+     */
+    public long export(Long customerId, Filter filter, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Long written;
+        try {
+            written = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<AuditLogDTO> logs = auditLogRepository.streamByCustomerIdAndDateRange(
+                        customerId, filter.start(), filter.end(), filter.action(), filter.entityType(), filter.entityId())) {
+                    Csv.writeRow(csv, "id", "timestamp", "action", "entityType", "entityId", "details", "ipAddress", "userAgent");
+                    for (AuditLogDTO event : (Iterable<AuditLogDTO>) logs::iterator) {
+                        Csv.writeRow(csv, event.getId(), event.getTimestamp(), event.getAction(), event.getEntityType(),
+                            event.getEntityId(), event.getDetails(), event.getIpAddress(), event.getUserAgent());
+                        if (++count % FLUSH_EVERY == 0) {
+                            csv.flush();
+                        }
+                    }
+                    csv.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Exported {} audit events for customer {}", written, customerId);
+        return written;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String encodeCursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.seccertificate.certificateservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.util.BoundedRingBuffer;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind audit log. Events are published to a bounded lock-free ring buffer and written
+ * by a background flush in JDBC batches, so request latency does not depend on audit volume.
+ *
+ * Events recorded inside a transaction are published only after it commits. When the buffer is
+ * full, or a batch insert fails, events are appended to a local spill file which is replayed on
+ * startup and whenever the writer catches up.
+ */
+@Service
+@Slf4j
+@Order(3)
+public class AuditService implements ApplicationRunner {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO audit_logs (customer_id, action, entity_type, entity_id, details, ip_address, user_agent, \"timestamp\") " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BoundedRingBuffer<AuditEvent> buffer;
+    private final AuditSpillFile spillFile;
+    private final int batchSize;
+
+    public AuditService(JdbcTemplate jdbcTemplate,
+                        ObjectMapper objectMapper,
+                        @Value("${app.audit.buffer-capacity:65536}") int bufferCapacity,
+                        @Value("${app.audit.batch-size:500}") int batchSize,
+                        @Value("${app.audit.spill-path:./audit-spill/audit-events.ndjson}") String spillPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new BoundedRingBuffer<>(bufferCapacity);
+        this.spillFile = new AuditSpillFile(Paths.get(spillPath), objectMapper);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records an audit event. {@code details} is serialized to JSON; use {@link #details} to build it.
+     */
+    public void record(Long customerId, String action, String entityType, Long entityId, Object details) {
+        String ipAddress = null;
+        String userAgent = null;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            ipAddress = request.getRemoteAddr();
+            userAgent = truncate(request.getHeader("User-Agent"), 500);
+        }
+
+        AuditEvent event = new AuditEvent(customerId, action, entityType, entityId, toJson(details),
+            ipAddress, userAgent, LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    /**
+     * Builds a details map from alternating keys and values; unlike {@code Map.of} it accepts nulls.
+     */
+    public static Map<String, Object> details(Object... keysAndValues) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            details.put(String.valueOf(keysAndValues[i]), keysAndValues[i + 1]);
+        }
+        return details;
+    }
+
+    void publish(AuditEvent event) {
+        if (!buffer.offer(event)) {
+            spill(List.of(event));
+        }
+    }
+
+    /**
+     * Drains the buffer in batches, then replays spilled events once the buffer has room again.
+     */
+    @Scheduled(fixedDelayString = "${app.audit.flush-interval-ms:200}")
+    public void flush() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                insert(batch);
+            } catch (DataAccessException e) {
+                log.warn("Audit batch insert failed, spilling {} events: {}", batch.size(), e.getMessage());
+                spill(batch);
+                return;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+
+        if (buffer.size() < buffer.capacity() / 2 && spillFile.hasPending()) {
+            replaySpill();
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        replaySpill();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        // Whatever is still buffered (e.g. the database is down) must survive the restart
+        List<AuditEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining, Integer.MAX_VALUE);
+        spill(remaining);
+    }
+
+    public int pendingEvents() {
+        return buffer.size();
+    }
+
+    private void replaySpill() {
+        try {
+            int replayed = spillFile.replay(batchSize, this::insert);
+            if (replayed > 0) {
+                log.info("Replayed {} spilled audit events", replayed);
+            }
+        } catch (IOException | DataAccessException e) {
+            log.warn("Audit spill replay incomplete, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void insert(List<AuditEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setObject(1, event.customerId());
+            ps.setString(2, event.action());
+            ps.setString(3, event.entityType());
+            ps.setObject(4, event.entityId());
+            ps.setString(5, event.details());
+            ps.setString(6, event.ipAddress());
+            ps.setString(7, event.userAgent());
+            ps.setTimestamp(8, Timestamp.valueOf(event.timestamp()));
+        });
+    }
+
+    private void spill(List<AuditEvent> events) {
+        try {
+            spillFile.append(events);
+        } catch (IOException e) {
+            // Last resort: keep the events in the application log so they can be recovered manually
+            log.error("Failed to spill {} audit events: {}", events.size(), events, e);
+        }
+    }
+
+    private String toJson(Object details) {
+        if (details == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing audit details", e);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    public record AuditEvent(Long customerId,
+                             String action,
+                             String entityType,
+                             Long entityId,
+                             String details,
+                             String ipAddress,
+                             String userAgent,
+                             LocalDateTime timestamp) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.seccertificate.certificateservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only NDJSON overflow file for audit events that could not be buffered or written.
+ * Replay renames the file first, so events spilled while a replay is running go to a fresh file.
+ * Only one replay runs at a time; a caller that finds one in progress leaves the file to it.
+ * Delivery is at-least-once: a crash mid-replay replays the same file again on the next start.
+ */
+@Slf4j
+class AuditSpillFile {
+
+    private final Path path;
+    private final Path replayPath;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock replayLock = new ReentrantLock();
+
+    AuditSpillFile(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.replayPath = path.resolveSibling(path.getFileName() + ".replay");
+        this.objectMapper = objectMapper;
+    }
+
+    synchronized void append(List<AuditService.AuditEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (AuditService.AuditEvent event : events) {
+            lines.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    boolean hasPending() {
+        return Files.exists(replayPath) || Files.exists(path);
+    }
+
+    /**
+     * Feeds spilled events to {@code writer} in chunks and deletes the file once all were accepted.
+     * If the writer throws, the remaining file is kept for the next attempt. Returns 0 without
+     * waiting when another replay is in progress.
+     */
+    int replay(int chunkSize, Consumer<List<AuditService.AuditEvent>> writer) throws IOException {
+        if (!replayLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return replayLocked(chunkSize, writer);
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    private int replayLocked(int chunkSize, Consumer<List<AuditService.AuditEvent>> writer) throws IOException {
+        synchronized (this) {
+            if (!Files.exists(replayPath)) {
+                if (!Files.exists(path)) {
+                    return 0;
+                }
+                Files.move(path, replayPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        int replayed = 0;
+        List<AuditService.AuditEvent> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(objectMapper.readValue(line, AuditService.AuditEvent.class));
+                } catch (IOException e) {
+                    // A torn last line from a crash during append; nothing more can be recovered from it
+                    log.warn("Skipping unreadable spilled audit event: {}", e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    writer.accept(chunk);
+                    replayed += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writer.accept(chunk);
+            replayed += chunk.size();
+        }
+        Files.delete(replayPath);
+        return replayed;
+    }
+}
@@ -0,0 +1,254 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.entity.Customer;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.security.ApiKeyCache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Cross-node cache invalidation over PostgreSQL {@code LISTEN/NOTIFY}.
+ *
+ * Writers call {@link #publish} inside their transaction; PostgreSQL delivers the notification
+ * to every listening node only if that transaction commits. Messages are compact
+ * {@code node|type|key} strings. Each node applies its own changes locally after commit and
+ * ignores its own notifications.
+ *
+ * Notifications sent while a listener is disconnected are lost, so every reconnect flushes
+ * all caches this bus manages.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "cache_invalidation";
+
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long KEEPALIVE_INTERVAL_MS = 10_000;
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApiKeyCache apiKeyCache;
+    private final VerificationResultCache verificationResultCache;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+    private volatile Thread listenerThread;
+    private volatile Connection listenerConnection;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                DataSourceProperties dataSourceProperties,
+                                EntityManagerFactory entityManagerFactory,
+                                ApiKeyCache apiKeyCache,
+                                VerificationResultCache verificationResultCache,
+                                @Value("${app.cache.invalidation.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.entityManagerFactory = entityManagerFactory;
+        this.apiKeyCache = apiKeyCache;
+        this.verificationResultCache = verificationResultCache;
+        this.enabled = enabled;
+    }
+
+    public enum Type {
+        TEMPLATE('T'), CUSTOMER('C'), CERTIFICATE('V');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+
+        static Type fromCode(char code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown invalidation type: " + code);
+        }
+    }
+
+    /**
+     * Announces that the entry identified by {@code key} (template ID, customer ID or certificate
+     * unique ID) changed. Inside a transaction, delivery and local eviction happen on commit.
+     */
+    public void publish(Type type, Object key) {
+        String payload = nodeId + "|" + type.code + "|" + key;
+        if (enabled) {
+            // Runs on the transaction's connection, so NOTIFY is only delivered on commit
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(type, String.valueOf(key));
+                }
+            });
+        } else {
+            apply(type, String.valueOf(key));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::listen, "cache-invalidation-listener");
+        thread.setDaemon(true);
+        listenerThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeListenerConnection();
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void handle(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || parts[1].length() != 1) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return; // already applied locally after commit
+        }
+        try {
+            apply(Type.fromCode(parts[1].charAt(0)), parts[2]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring cache invalidation {}: {}", payload, e.getMessage());
+        }
+    }
+
+    void flushAll() {
+        entityManagerFactory.getCache().evict(Template.class);
+        entityManagerFactory.getCache().evict(Customer.class);
+        apiKeyCache.clear();
+        verificationResultCache.clear();
+    }
+
+    private void apply(Type type, String key) {
+        switch (type) {
+            case TEMPLATE -> entityManagerFactory.getCache().evict(Template.class, Long.valueOf(key));
+            case CUSTOMER -> {
+                Long customerId = Long.valueOf(key);
+                entityManagerFactory.getCache().evict(Customer.class, customerId);
+                apiKeyCache.evictCustomer(customerId);
+            }
+            case CERTIFICATE -> verificationResultCache.evict(key);
+        }
+    }
+
+    private void listen() {
+        boolean flushOnConnect = false;
+        long backoff = 100;
+        while (running) {
+            try (Connection connection = openListenerConnection()) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (flushOnConnect) {
+                    log.info("Cache invalidation listener reconnected, flushing caches");
+                    flushAll();
+                }
+                flushOnConnect = true;
+                backoff = 100;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                long lastActivity = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                        lastActivity = System.currentTimeMillis();
+                    } else if (System.currentTimeMillis() - lastActivity > KEEPALIVE_INTERVAL_MS) {
+                        // Surfaces half-open connections that would otherwise wait silently forever
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        lastActivity = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                flushOnConnect = true;
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            } finally {
+                listenerConnection = null;
+            }
+        }
+    }
+
+    private Connection openListenerConnection() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("ApplicationName", "cache-invalidation-" + nodeId);
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void closeListenerConnection() {
+        Connection connection = listenerConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing cache invalidation listener connection", e);
+            }
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+}
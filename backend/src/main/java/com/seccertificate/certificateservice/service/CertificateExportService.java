@@ -0,0 +1,331 @@
+package com.seccertificate.certificateservice.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.repository.CertificateRepository;
+import com.seccertificate.certificateservice.util.Csv;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams certificate PDFs as one ZIP archive, and the certificate register as NDJSON or CSV. Rows
+ * come through a database cursor and are written straight into the response, so memory does not
+ * depend on the size of the export.
+ */
+@Service
+@Slf4j
+public class CertificateExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_EVERY = 1000;
+
+    private static final String[] REGISTER_COLUMNS = {
+        "uniqueId", "templateId", "templateName", "recipientName", "recipientEmail",
+        "status", "createdAt", "downloadedAt", "downloadCount", "batchId"
+    };
+
+    private static final String DOWNLOADED_SQL =
+        "UPDATE certificates SET download_count = COALESCE(download_count, 0) + 1, " +
+        "downloaded_at = GREATEST(downloaded_at, ?), " +
+        "status = CASE WHEN status = 'REVOKED' THEN status ELSE 'DOWNLOADED' END " +
+        "WHERE ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CertificateRepository certificateRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AuditService auditService;
+    private final UsageRollupService usageRollupService;
+
+    public CertificateExportService(JdbcTemplate jdbcTemplate, CertificateRepository certificateRepository,
+                                    ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                    AuditService auditService, UsageRollupService usageRollupService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.certificateRepository = certificateRepository;
+        this.objectMapper = objectMapper;
+        // PostgreSQL only honours the fetch size inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.auditService = auditService;
+        this.usageRollupService = usageRollupService;
+    }
+
+    /**
+     * Which of a customer's certificates to export; at least one criterion is required. Dates are
+     * inclusive.
+     */
+    public record Filter(String batchId, Long templateId, LocalDate from, LocalDate to) {
+
+        public Filter {
+            if (batchId == null && templateId == null && from == null && to == null) {
+                throw new IllegalArgumentException("Specify a batchId, templateId or date range to export");
+            }
+            if (batchId != null) {
+                batchId = UUID.fromString(batchId).toString();
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("'from' must not be after 'to'");
+            }
+        }
+    }
+
+    /**
+     * Writes the matching certificates to {@code out} as a ZIP of uncompressed entries (PDFs are
+     * compressed already), then counts the certificates written as downloaded with one UPDATE over
+     * the same criteria. Only the IDs of certificates skipped for a missing file are kept in memory,
+     * and excluded from the UPDATE.
+     *
+     * @return number of certificates written
+     */
+    public int export(Long customerId, Filter filter, OutputStream out) throws IOException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Object> args = new ArrayList<>();
+        String where = where(customerId, filter, startedAt, args);
+        Map<Long, Long> perTemplate = new HashMap<>();
+        List<Long> skippedIds = new ArrayList<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setMethod(ZipOutputStream.STORED);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, unique_id, template_id, file_path FROM certificates WHERE " + where +
+                    " ORDER BY created_at, id");
+                statement.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 1, args.get(i));
+                }
+                return statement;
+            }, (RowCallbackHandler) row -> {
+                try {
+                    if (writeEntry(zip, "certificate_" + row.getString("unique_id") + ".pdf",
+                            Paths.get(row.getString("file_path")), buffer)) {
+                        perTemplate.merge(row.getLong("template_id"), 1L, Long::sum);
+                    } else {
+                        skippedIds.add(row.getLong("id"));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        zip.finish();
+
+        int exported = perTemplate.values().stream().mapToInt(Long::intValue).sum();
+        if (exported > 0) {
+            // Skipped files are not counted, matching the usage rollup
+            String sql = DOWNLOADED_SQL + where + (skippedIds.isEmpty() ? "" : " AND id <> ALL(?)");
+            jdbcTemplate.update(sql, statement -> {
+                statement.setTimestamp(1, Timestamp.valueOf(startedAt));
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 2, args.get(i));
+                }
+                if (!skippedIds.isEmpty()) {
+                    statement.setArray(args.size() + 2,
+                        statement.getConnection().createArrayOf("bigint", skippedIds.toArray()));
+                }
+            });
+            perTemplate.forEach((templateId, count) -> usageRollupService.recordDownloaded(customerId, templateId, count));
+        }
+        auditService.record(customerId, "EXPORT_CERTIFICATES", "CERTIFICATE", null,
+            AuditService.details("batchId", filter.batchId(), "templateId", filter.templateId(),
+                                 "from", filter.from(), "to", filter.to(), "count", exported));
+        log.info("Exported {} certificates for customer {}", exported, customerId);
+        return exported;
+    }
+
+    public enum RegisterFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        RegisterFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static RegisterFormat of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported register format: " + name);
+            }
+        }
+    }
+
+    /**
+     * Writes the metadata of all of a customer's certificates, oldest first, one line per
+     * certificate. Rows are projections rather than entities, so nothing accumulates in the
+     * persistence context; output is flushed every {@value #FLUSH_EVERY} rows so the client sees
+     * data while the cursor is still being read.
+     *
+     * @return number of rows written
+     */
+    public long exportRegister(Long customerId, RegisterFormat format, OutputStream out) throws IOException {
+        long[] written = new long[1];
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<CertificateRepository.RegisterRow> rows = certificateRepository.streamRegister(customerId)) {
+                    written[0] = format == RegisterFormat.NDJSON ? writeNdjson(rows, out) : writeCsv(rows, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        auditService.record(customerId, "EXPORT_REGISTER", "CERTIFICATE", null,
+            AuditService.details("format", format.name(), "count", written[0]));
+        log.info("Exported register of {} certificates for customer {}", written[0], customerId);
+        return written[0];
+    }
+
+    private long writeNdjson(Stream<CertificateRepository.RegisterRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // One object per line instead of Jackson's space-separated root values
+            json.setRootValueSeparator(null);
+            for (CertificateRepository.RegisterRow row : (Iterable<CertificateRepository.RegisterRow>) rows::iterator) {
+                Object[] values = registerValues(row);
+                json.writeStartObject();
+                for (int i = 0; i < REGISTER_COLUMNS.length; i++) {
+                    json.writeFieldName(REGISTER_COLUMNS[i]);
+                    json.writeObject(values[i]);
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    json.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long writeCsv(Stream<CertificateRepository.RegisterRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Csv.writeRow(csv, (Object[]) REGISTER_COLUMNS);
+        for (CertificateRepository.RegisterRow row : (Iterable<CertificateRepository.RegisterRow>) rows::iterator) {
+            Csv.writeRow(csv, registerValues(row));
+            if (++count % FLUSH_EVERY == 0) {
+                csv.flush();
+            }
+        }
+        csv.flush();
+        return count;
+    }
+
+    private static Object[] registerValues(CertificateRepository.RegisterRow row) {
+        return new Object[] {
+            row.getUniqueId(), row.getTemplateId(), row.getTemplateName(), row.getRecipientName(),
+            row.getRecipientEmail(), row.getStatus() == null ? null : row.getStatus().name(),
+            row.getCreatedAt() == null ? null : row.getCreatedAt().toString(),
+            row.getDownloadedAt() == null ? null : row.getDownloadedAt().toString(),
+            row.getDownloadCount(), row.getBatchId()
+        };
+    }
+
+    // Rows created after the export started are neither exported nor counted
+    private static String where(Long customerId, Filter filter, LocalDateTime startedAt, List<Object> args) {
+        StringBuilder where = new StringBuilder("customer_id = ? AND created_at <= ?");
+        args.add(customerId);
+        args.add(Timestamp.valueOf(startedAt));
+        if (filter.batchId() != null) {
+            where.append(" AND batch_id = ?");
+            args.add(filter.batchId());
+        }
+        if (filter.templateId() != null) {
+            where.append(" AND template_id = ?");
+            args.add(filter.templateId());
+        }
+        if (filter.from() != null) {
+            where.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from().atStartOfDay()));
+        }
+        if (filter.to() != null) {
+            where.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(filter.to().plusDays(1).atStartOfDay()));
+        }
+        return where.toString();
+    }
+
+    /**
+     * STORED entries need size and CRC before the data, so the file is read twice; the second read
+     * is normally served from the page cache. Missing files are skipped.
+     */
+    private static boolean writeEntry(ZipOutputStream zip, String name, Path file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        } catch (NoSuchFileException e) {
+            log.warn("Skipping certificate file missing from storage: {}", file);
+            return false;
+        }
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                zip.write(buffer, 0, read);
+            }
+        }
+        zip.closeEntry();
+        return true;
+    }
+}
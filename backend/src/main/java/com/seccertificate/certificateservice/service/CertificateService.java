@@ -2,29 +2,45 @@ package com.seccertificate.certificateservice.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.config.ReadYourWritesTracker;
+import com.seccertificate.certificateservice.config.ReplicaRoutingDataSource;
 import com.seccertificate.certificateservice.dto.CertificateBatchRequest;
 import com.seccertificate.certificateservice.dto.CertificateDTO;
+import com.seccertificate.certificateservice.dto.CursorPageResponse;
 import com.seccertificate.certificateservice.dto.GenerateCertificateRequest;
+import com.seccertificate.certificateservice.dto.UsageStatsDTO;
 import com.seccertificate.certificateservice.entity.Certificate;
 import com.seccertificate.certificateservice.entity.Customer;
 import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.entity.TemplateVersion;
 import com.seccertificate.certificateservice.exception.ResourceNotFoundException;
 import com.seccertificate.certificateservice.repository.CertificateRepository;
 import com.seccertificate.certificateservice.repository.CustomerRepository;
 import com.seccertificate.certificateservice.repository.TemplateRepository;
+import com.seccertificate.certificateservice.util.UuidV7;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.Map;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -40,7 +56,18 @@ public class CertificateService {
     private final PdfGenerationService pdfGenerationService;
     private final SignatureService signatureService;
     private final ObjectMapper objectMapper;
-    private final com.seccertificate.certificateservice.repository.AuditLogRepository auditLogRepository;
+    private final AuditService auditService;
+    private final DownloadCounterService downloadCounterService;
+    private final UsageRollupService usageRollupService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final VerificationResultCache verificationResultCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TemplateVersionService templateVersionService;
+    private final GenerationScheduler generationScheduler;
+    private final TransactionTemplate transactionTemplate;
+    
+    private static final int MIN_SEARCH_LENGTH = 3;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
     
     @Transactional
     public CertificateDTO generateCertificate(Long customerId, GenerateCertificateRequest request) {
@@ -48,11 +75,15 @@ public class CertificateService {
         Template template = templateRepository.findByIdAndCustomerId(request.getTemplateId(), customerId)
                 .orElseThrow(() -> new AccessDeniedException("Template not found or access denied"));
         
-        Customer customer = customerRepository.findById(customerId)
-            .orElseThrow(() -> new ResourceNotFoundException("Customer not found")); // customerId is always provided, so no null safety issue
+        // Only the FK is needed; the authenticated customer is known to exist
+        Customer customer = customerRepository.getReferenceById(customerId);
+        
+        // Precompiled at save time, so rendering does no parsing or sanitizing
+        TemplateVersion version = templateVersionService.currentVersion(template);
+        CompiledTemplate compiledTemplate = templateVersionService.compiled(version);
         
-        // Generate unique ID for certificate
-        String uniqueId = UUID.randomUUID().toString();
+        // Time-ordered, so inserts append to the unique ID index
+        String uniqueId = UuidV7.next().toString();
         
         // Generate digital signature
         try {
@@ -60,11 +91,14 @@ public class CertificateService {
             String digitalSignature = signatureService.sign(uniqueId, request.getData());
 
             // Generate QR code data for verification (include digital signature)
-            String qrCodeData = pdfGenerationService.generateQRCode(uniqueId, customer.getId(), digitalSignature);
+            String qrCodeData = pdfGenerationService.generateQRCode(
+                signatureService.verificationToken(uniqueId, digitalSignature));
 
             // Generate PDF (embed QR code)
             String filePath = pdfGenerationService.generateCertificatePdf(
-                template,
+                compiledTemplate,
+                template.getRenderer(),
+                Boolean.TRUE.equals(template.getStamped()),
                 request.getData(),
                 uniqueId,
                 qrCodeData
@@ -75,6 +109,7 @@ public class CertificateService {
                 .uniqueId(uniqueId)
                 .customer(customer)
                 .template(template)
+                .templateVersion(version)
                 .filePath(filePath)
                 .certificateData(serializeData(request.getData()))
                 .recipientName(request.getRecipientName())
@@ -88,15 +123,13 @@ public class CertificateService {
             
             certificate = certificateRepository.save(certificate); // certificate is always built, so no null safety issue
 
-            // Audit log: certificate generated
-            com.seccertificate.certificateservice.entity.AuditLog audit = com.seccertificate.certificateservice.entity.AuditLog.builder()
-                    .customerId(customer.getId())
-                    .action("GENERATE_CERTIFICATE")
-                    .entityType("CERTIFICATE")
-                    .entityId(certificate.getId())
-                    .details("{\"recipientName\":\"" + request.getRecipientName() + "\",\"recipientEmail\":\"" + request.getRecipientEmail() + "\"}")
-                    .build();
-            auditLogRepository.save(audit); // audit is always built, so no null safety issue
+            // Audit log: certificate generated (written asynchronously after commit)
+            auditService.record(customer.getId(), "GENERATE_CERTIFICATE", "CERTIFICATE", certificate.getId(),
+                    AuditService.details("recipientName", request.getRecipientName(),
+                                         "recipientEmail", request.getRecipientEmail()));
+            usageRollupService.recordGenerated(customer.getId(), template.getId(), 1);
+            // Keep the customer's reads on the primary until replicas have the new certificate
+            readYourWritesTracker.markWrite(customer.getId());
 
             return mapToDTO(certificate);
             
@@ -105,35 +138,63 @@ public class CertificateService {
         }
     }
     
-        @Async("certificateGenerationExecutor")
-        @Transactional
+        /**
+         * Queues one certificate in the customer's interactive lane of the generation scheduler.
+         */
         public CompletableFuture<CertificateDTO> generateCertificateAsync(Long customerId, GenerateCertificateRequest request) {
-            try {
-                log.info("Async certificate generation started for customer: {}", customerId);
-                CertificateDTO result = generateCertificate(customerId, request);
-                log.info("Async certificate generation completed: {}", result.getUniqueId());
-                return CompletableFuture.completedFuture(result);
-            } catch (Exception e) {
-                log.error("Async certificate generation failed for customer: {}", customerId, e);
-                return CompletableFuture.failedFuture(e);
-            }
+            return generationScheduler.submit(customerId, GenerationScheduler.Lane.INTERACTIVE, 1, () -> {
+                try {
+                    log.info("Async certificate generation started for customer: {}", customerId);
+                    CertificateDTO result = transactionTemplate.execute(status -> generateCertificate(customerId, request));
+                    log.info("Async certificate generation completed: {}", result.getUniqueId());
+                    return result;
+                } catch (Exception e) {
+                    log.error("Async certificate generation failed for customer: {}", customerId, e);
+                    // Nobody waits on the future, so the audit log is where the customer sees the failure
+                    auditService.record(customerId, "GENERATE_CERTIFICATE_FAILED", "TEMPLATE", request.getTemplateId(),
+                        AuditService.details("recipientName", request.getRecipientName(), "error", e.getMessage()));
+                    throw e;
+                }
+            });
         }
     
-        @Async("certificateGenerationExecutor")
-        @Transactional
+        /**
+         * Queues a batch in the customer's bulk lane, charged per certificate so large batches
+         * get a proportionally smaller share of the workers.
+         */
         public CompletableFuture<List<CertificateDTO>> generateBatchCertificates(
-                Long customerId, CertificateBatchRequest batchRequest) {
-        
+                Long customerId, String batchId, CertificateBatchRequest batchRequest) {
+            int count = batchRequest.getCertificates().size();
+            return generationScheduler.submit(customerId, GenerationScheduler.Lane.BULK, count, () -> {
+                try {
+                    return transactionTemplate.execute(status -> generateBatch(customerId, batchId, batchRequest));
+                } catch (Exception e) {
+                    log.error("Batch certificate generation failed for customer: {}", customerId, e);
+                    auditService.record(customerId, "GENERATE_CERTIFICATE_BATCH_FAILED", "BATCH", null,
+                        AuditService.details("batchId", batchId, "total", count, "error", e.getMessage()));
+                    throw e;
+                }
+            });
+        }
+    
+        /** Expected seconds until a batch of this size, queued now, has been generated. */
+        public long estimateBatchSeconds(int count) {
+            return generationScheduler.estimatedSeconds(GenerationScheduler.Lane.BULK, count);
+        }
+    
+        private List<CertificateDTO> generateBatch(Long customerId, String batchId, CertificateBatchRequest batchRequest) {
             log.info("Batch certificate generation started for customer: {}, count: {}", 
                 customerId, batchRequest.getCertificates().size());
         
-            try {
+            boolean merged = Boolean.TRUE.equals(batchRequest.getMerged());
+            try (MergedPdf mergedPdf = merged ? pdfGenerationService.openMergedPdf(customerId, batchId) : null) {
                 Template template = templateRepository.findByIdAndCustomerId(
                     batchRequest.getTemplateId(), customerId
                 ).orElseThrow(() -> new AccessDeniedException("Template not found or access denied"));
             
-                Customer customer = customerRepository.findById(customerId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
+                Customer customer = customerRepository.getReferenceById(customerId);
+                TemplateVersion version = templateVersionService.currentVersion(template);
+                CompiledTemplate compiledTemplate = templateVersionService.compiled(version);
             
                 List<Certificate> certificates = new ArrayList<>();
                 int successCount = 0;
@@ -141,17 +202,24 @@ public class CertificateService {
             
                 for (GenerateCertificateRequest req : batchRequest.getCertificates()) {
                     try {
-                        String uniqueId = UUID.randomUUID().toString();
+                        String uniqueId = UuidV7.next().toString();
                         String signature = signatureService.sign(uniqueId, req.getData());
-                        String qrCode = pdfGenerationService.generateQRCode(uniqueId, customerId, signature);
+                        String qrCode = pdfGenerationService.generateQRCode(
+                            signatureService.verificationToken(uniqueId, signature));
                         String filePath = pdfGenerationService.generateCertificatePdf(
-                            template, req.getData(), uniqueId, qrCode
+                            compiledTemplate, template.getRenderer(), Boolean.TRUE.equals(template.getStamped()),
+                            req.getData(), uniqueId, qrCode
                         );
+                        if (mergedPdf != null) {
+                            mergedPdf.append(Paths.get(filePath));
+                        }
                     
                         Certificate cert = Certificate.builder()
                             .uniqueId(uniqueId)
                             .customer(customer)
                             .template(template)
+                            .templateVersion(version)
+                            .batchId(batchId)
                             .filePath(filePath)
                             .certificateData(serializeData(req.getData()))
                             .recipientName(req.getRecipientName())
@@ -174,28 +242,25 @@ public class CertificateService {
             
                 // Batch save (single database transaction)
                 List<Certificate> saved = certificateRepository.saveAll(certificates);
+                if (mergedPdf != null) {
+                    // Downloadable only once the certificates it contains are committed
+                    mergedPdf.finishAfterCommit();
+                }
             
                 log.info("Batch certificate generation completed. Success: {}, Failed: {}", 
                     successCount, failCount);
             
                 // Batch audit log
-                com.seccertificate.certificateservice.entity.AuditLog batchAudit = 
-                    com.seccertificate.certificateservice.entity.AuditLog.builder()
-                        .customerId(customer.getId())
-                        .action("GENERATE_CERTIFICATE_BATCH")
-                        .entityType("CERTIFICATE")
-                        .entityId(template.getId())
-                        .details(String.format("{\"total\":%d,\"success\":%d,\"failed\":%d}", 
-                            batchRequest.getCertificates().size(), successCount, failCount))
-                        .build();
-                auditLogRepository.save(batchAudit);
+                auditService.record(customer.getId(), "GENERATE_CERTIFICATE_BATCH", "CERTIFICATE", template.getId(),
+                    AuditService.details("total", batchRequest.getCertificates().size(),
+                                         "success", successCount,
+                                         "failed", failCount));
+                usageRollupService.recordGenerated(customer.getId(), template.getId(), saved.size());
+                readYourWritesTracker.markWrite(customer.getId());
             
-                return CompletableFuture.completedFuture(
-                    saved.stream().map(this::mapToDTO).collect(Collectors.toList())
-                );
-            } catch (Exception e) {
-                log.error("Batch certificate generation failed for customer: {}", customerId, e);
-                return CompletableFuture.failedFuture(e);
+                return saved.stream().map(this::mapToDTO).collect(Collectors.toList());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write merged batch PDF", e);
             }
         }
     
@@ -220,48 +285,195 @@ public class CertificateService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional
+    /**
+     * Fuzzy search over recipient name and email, ranked by trigram similarity.
+     * Results are scoped to the customer and paginated by (score, id) keyset.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CertificateDTO> searchCertificates(Long customerId, String query, String cursor, int size) {
+        String term = query == null ? "" : query.trim();
+        if (term.length() < MIN_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        
+        // First page starts above the maximum similarity (1.0)
+        double lastScore = 2.0;
+        long lastId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            lastScore = Double.parseDouble(parts[0]);
+            lastId = Long.parseLong(parts[1]);
+        }
+        
+        // Fetch one extra row to know whether another page exists
+        List<CertificateRepository.SearchHit> hits = certificateRepository.searchByRecipient(
+            customerId, term, "%" + escapeLikePattern(term) + "%", lastScore, lastId, pageSize + 1);
+        boolean last = hits.size() <= pageSize;
+        if (!last) {
+            hits = hits.subList(0, pageSize);
+        }
+        
+        Map<Long, Certificate> byId = certificateRepository.findAllWithTemplateByIdIn(
+                hits.stream().map(CertificateRepository.SearchHit::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(Certificate::getId, c -> c));
+        
+        List<CertificateDTO> content = hits.stream()
+            .map(hit -> byId.get(hit.getId()))
+            .filter(Objects::nonNull)
+            .map(this::mapToDTO)
+            .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (!last) {
+            CertificateRepository.SearchHit lastHit = hits.get(hits.size() - 1);
+            nextCursor = encodeCursor(lastHit.getScore() + ":" + lastHit.getId());
+        }
+        
+        return CursorPageResponse.<CertificateDTO>builder()
+                .content(content)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .last(last)
+                .build();
+    }
+    
+    @Transactional(readOnly = true)
     public byte[] downloadCertificate(Long customerId, String uniqueId) throws IOException {
         Certificate certificate = certificateRepository.findByUniqueIdAndCustomerId(uniqueId, customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Certificate not found or access denied"));
         
-        // Update download statistics
-        certificate.setDownloadCount(certificate.getDownloadCount() + 1);
-        certificate.setDownloadedAt(LocalDateTime.now());
-        certificate.setStatus(Certificate.CertificateStatus.DOWNLOADED);
-        certificateRepository.save(certificate);
+        // Update download statistics (counted in memory, flushed to the database in batches)
+        downloadCounterService.recordDownload(certificate.getId(), certificate.getCreatedAt());
 
         // Audit log: certificate downloaded
-        com.seccertificate.certificateservice.entity.AuditLog downloadAudit = com.seccertificate.certificateservice.entity.AuditLog.builder()
-                .customerId(certificate.getCustomer().getId())
-                .action("DOWNLOAD_CERTIFICATE")
-                .entityType("CERTIFICATE")
-                .entityId(certificate.getId())
-                .details("{\"uniqueId\":\"" + certificate.getUniqueId() + "\"}")
-                .build();
-        auditLogRepository.save(downloadAudit);
+        auditService.record(certificate.getCustomer().getId(), "DOWNLOAD_CERTIFICATE", "CERTIFICATE",
+                certificate.getId(), AuditService.details("uniqueId", certificate.getUniqueId()));
+        usageRollupService.recordDownloaded(certificate.getCustomer().getId(), certificate.getTemplate().getId());
 
         return pdfGenerationService.readCertificateFile(certificate.getFilePath());
     }
     
+    /**
+     * The single PDF of a batch generated with {@code merged} set, once the batch has finished.
+     * Served from disk, since a large batch does not fit comfortably in memory.
+     */
+    public Resource getMergedBatchPdf(Long customerId, String batchId) {
+        Path path = pdfGenerationService.mergedPdfPath(customerId, batchId);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Merged PDF not found or not ready yet");
+        }
+        auditService.record(customerId, "DOWNLOAD_BATCH_PDF", "BATCH", null, AuditService.details("batchId", batchId));
+        return new FileSystemResource(path);
+    }
+    
     @Transactional(readOnly = true)
     public boolean verifyCertificate(String uniqueId, String digitalSignature) {
-        Certificate certificate = certificateRepository.findByUniqueId(uniqueId)
-                .orElse(null);
+        return verify(uniqueId, digitalSignature, certificate -> isAuthentic(certificate, digitalSignature));
+    }
+    
+    /**
+     * Verifies a compact token from a QR code: the stored data must still match the stored
+     * signature, and the token's MAC must match that signature.
+     */
+    @Transactional(readOnly = true)
+    public boolean verifyToken(String token) {
+        VerificationToken parsed = VerificationToken.parse(token).orElse(null);
+        if (parsed == null) {
+            return false;
+        }
+        return verify(parsed.uniqueId(), token.toUpperCase(Locale.ROOT), certificate ->
+                isAuthentic(certificate, certificate.getDigitalSignature())
+                        && signatureService.verifyToken(parsed, certificate.getDigitalSignature()));
+    }
+    
+    private boolean verify(String uniqueId, String presented, Predicate<Certificate> authentic) {
+        VerificationResultCache.VerificationResult result = verificationResultCache.get(uniqueId, presented);
+        if (result == null) {
+            long stamp = verificationResultCache.readStamp();
+            Certificate certificate = certificateRepository.findByUniqueId(uniqueId)
+                    .orElse(null);
+            
+            if (certificate == null) {
+                return false;
+            }
+            result = new VerificationResultCache.VerificationResult(
+                    authentic.test(certificate),
+                    certificate.getCustomer().getId(),
+                    certificate.getTemplate().getId());
+            // A replica may not have applied a recent revocation yet, so only primary reads are cached
+            if (!ReplicaRoutingDataSource.isCurrentTransactionOnReplica()) {
+                verificationResultCache.put(uniqueId, presented, result, stamp);
+            }
+        }
+        
+        if (result.valid()) {
+            usageRollupService.recordVerified(result.customerId(), result.templateId());
+        }
+        return result.valid();
+    }
+    
+    @Transactional
+    public CertificateDTO revokeCertificate(Long customerId, String uniqueId) {
+        Certificate certificate = certificateRepository.findByUniqueIdAndCustomerId(uniqueId, customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate not found or access denied"));
+        
+        certificate.setStatus(Certificate.CertificateStatus.REVOKED);
+        certificate = certificateRepository.save(certificate);
         
-        if (certificate == null) {
+        auditService.record(customerId, "REVOKE_CERTIFICATE", "CERTIFICATE", certificate.getId(),
+                AuditService.details("uniqueId", uniqueId));
+        // Cached verification results must not outlive the revocation on any node
+        cacheInvalidationBus.publish(CacheInvalidationBus.Type.CERTIFICATE, uniqueId);
+        
+        return mapToDTO(certificate);
+    }
+    
+    private boolean isAuthentic(Certificate certificate, String digitalSignature) {
+        if (certificate.getStatus() == Certificate.CertificateStatus.REVOKED) {
             return false;
         }
-
         // Recompute signature from stored certificate data to verify integrity
         try {
             Map<String, String> storedData = objectMapper.readValue(certificate.getCertificateData(), new TypeReference<>() {});
-            return signatureService.verify(uniqueId, storedData, digitalSignature);
+            return signatureService.verify(certificate.getUniqueId(), storedData, digitalSignature);
         } catch (IOException e) {
             return false;
         }
     }
     
+    /**
+     * Dashboard statistics answered from the daily usage rollups rather than the certificates
+     * table. Without bounds the range covers all history up to today.
+     */
+    public UsageStatsDTO getUsageStats(Long customerId, LocalDate from, LocalDate to) {
+        return usageRollupService.getUsageStats(customerId,
+            from != null ? from : LocalDate.EPOCH,
+            to != null ? to : LocalDate.now());
+    }
+    
+    private static String escapeLikePattern(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
+    private static String encodeCursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
     private String serializeData(Object data) {
         try {
             return objectMapper.writeValueAsString(data);
@@ -287,6 +499,7 @@ public class CertificateService {
                 .createdAt(certificate.getCreatedAt())
                 .downloadedAt(certificate.getDownloadedAt())
                 .downloadCount(certificate.getDownloadCount())
+                .batchId(certificate.getBatchId())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.entity.Template;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A template version split into literal text and slots, ready to render by concatenation.
+ *
+ * Placeholder substitution keeps the original semantics: values are inserted as-is, and
+ * placeholders without a value are left in place.
+ */
+public final class CompiledTemplate {
+
+    static final String QR_IMAGE_PLACEHOLDER = "qr_image";
+
+    private static final String QR_SIZE = "100px";
+    private static final String QR_IMAGE_HTML =
+        "<img src=\"data:image/png;base64,%s\" style=\"width:100px;height:100px;\"/>";
+    private static final String QR_FIXED_HTML =
+        "<div style=\"position: fixed; left: 10px; top: 10px; width: 100px; height: 100px; z-index:9999;\">%s</div>";
+    private static final String WATERMARK_HTML =
+        "<div style='position: fixed; bottom: 10px; right: 10px; font-size: 8px; color: #ccc;'>Certificate ID: %s</div>";
+
+    public enum SegmentType {
+        TEXT, PLACEHOLDER, QR_INLINE, QR_FIXED, WATERMARK
+    }
+
+    public record Segment(SegmentType type, String value) {
+    }
+
+    private final Template.TemplateType type;
+    private final List<Segment> segments;
+    private final int literalLength;
+    private final boolean hasQrSlot;
+    private final PdfFormTemplate pdfForm;
+    private final JsonLayoutTemplate jsonLayout;
+    // Built on first stamped render; lives as long as this version stays cached
+    private final Map<Template.Renderer, Optional<StampedTemplate>> stampedLayers = new ConcurrentHashMap<>();
+
+    public CompiledTemplate(Template.TemplateType type, List<Segment> segments) {
+        this(type, segments, null, null);
+    }
+
+    public CompiledTemplate(PdfFormTemplate pdfForm) {
+        this(Template.TemplateType.PDF_TEMPLATE, List.of(), pdfForm, null);
+    }
+
+    public CompiledTemplate(JsonLayoutTemplate jsonLayout) {
+        this(Template.TemplateType.JSON, List.of(), null, jsonLayout);
+    }
+
+    private CompiledTemplate(Template.TemplateType type, List<Segment> segments, PdfFormTemplate pdfForm,
+                             JsonLayoutTemplate jsonLayout) {
+        this.type = type;
+        this.pdfForm = pdfForm;
+        this.jsonLayout = jsonLayout;
+        this.segments = List.copyOf(segments);
+        this.literalLength = segments.stream()
+            .filter(segment -> segment.type() == SegmentType.TEXT)
+            .mapToInt(segment -> segment.value().length())
+            .sum();
+        this.hasQrSlot = segments.stream()
+            .anyMatch(segment -> segment.type() == SegmentType.QR_INLINE || segment.type() == SegmentType.QR_FIXED);
+    }
+
+    public Template.TemplateType getType() {
+        return type;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public boolean hasQrSlot() {
+        return hasQrSlot;
+    }
+
+    /**
+     * The form to fill for valid {@code PDF_TEMPLATE} templates, which have no segments; otherwise {@code null}.
+     */
+    public PdfFormTemplate getPdfForm() {
+        return pdfForm;
+    }
+
+    /**
+     * The layout to draw for valid {@code JSON} templates, which have no segments; otherwise {@code null}.
+     */
+    public JsonLayoutTemplate getJsonLayout() {
+        return jsonLayout;
+    }
+
+    /**
+     * Static layer of this version as rendered by {@code renderer}, built once by {@code builder};
+     * empty when the template cannot be stamped.
+     */
+    public Optional<StampedTemplate> stampedLayer(Template.Renderer renderer,
+                                                  Function<Template.Renderer, Optional<StampedTemplate>> builder) {
+        return stampedLayers.computeIfAbsent(renderer, builder);
+    }
+
+    /**
+     * Renders the document for one certificate.
+     *
+     * @param qrHtml QR code element from {@link #qrSvg} or {@link #qrImage}, or {@code null} to
+     *               leave QR slots empty
+     */
+    public String render(Map<String, String> data, String uniqueId, String qrHtml) {
+        StringBuilder out = new StringBuilder(literalLength + 1024 + (qrHtml != null ? qrHtml.length() + 200 : 0));
+        for (Segment segment : segments) {
+            switch (segment.type()) {
+                case TEXT -> out.append(segment.value());
+                case PLACEHOLDER -> appendPlaceholder(out, segment.value(), data);
+                case QR_INLINE -> {
+                    if (data != null && data.containsKey(QR_IMAGE_PLACEHOLDER)) {
+                        appendPlaceholder(out, QR_IMAGE_PLACEHOLDER, data);
+                    } else if (qrHtml != null) {
+                        out.append(qrHtml);
+                    } else {
+                        out.append("{{").append(QR_IMAGE_PLACEHOLDER).append("}}");
+                    }
+                }
+                case QR_FIXED -> {
+                    if (qrHtml != null) {
+                        out.append(String.format(QR_FIXED_HTML, qrHtml));
+                    }
+                }
+                case WATERMARK -> out.append(String.format(WATERMARK_HTML, uniqueId));
+            }
+        }
+        return out.toString();
+    }
+
+    /** QR slot content as inline vector SVG. */
+    public static String qrSvg(QrCode qr) {
+        return qr.svg(QR_SIZE);
+    }
+
+    /** QR slot content as a PNG data URI, for renderers without inline SVG support. */
+    public static String qrImage(String pngBase64) {
+        return String.format(QR_IMAGE_HTML, pngBase64);
+    }
+
+    private static void appendPlaceholder(StringBuilder out, String name, Map<String, String> data) {
+        if (data != null && data.containsKey(name)) {
+            String value = data.get(name);
+            out.append(value != null ? value : "");
+        } else {
+            out.append("{{").append(name).append("}}");
+        }
+    }
+}
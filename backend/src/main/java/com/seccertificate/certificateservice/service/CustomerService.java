@@ -20,6 +20,7 @@ public class CustomerService {
     
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus cacheInvalidationBus;
     private static final SecureRandom secureRandom = new SecureRandom();
     
     @Transactional
@@ -73,6 +74,7 @@ public class CustomerService {
         }
         
         customer = customerRepository.save(customer);
+        cacheInvalidationBus.publish(CacheInvalidationBus.Type.CUSTOMER, id);
         return mapToDTO(customer);
     }
     
@@ -83,6 +85,8 @@ public class CustomerService {
         
         customer.setApiKey(generateApiKey());
         customerRepository.save(customer);
+        // The old key must stop working on every node
+        cacheInvalidationBus.publish(CacheInvalidationBus.Type.CUSTOMER, customerId);
         return customer.getApiKey();
     }
     
@@ -0,0 +1,113 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.util.StripedCounters;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts certificate downloads in memory and applies them to the database periodically as
+ * relative updates ({@code download_count = download_count + ?}), so downloads never hold a
+ * row lock and concurrent downloads of the same certificate cannot lose updates.
+ *
+ * Counts are drained from {@link StripedCounters}, so every download lands in exactly one flush.
+ * Each flush is one transaction: if it fails, nothing was applied and the whole batch is counted
+ * again next cycle.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DownloadCounterService {
+
+    private static final String UPDATE_SQL =
+        "UPDATE certificates SET download_count = COALESCE(download_count, 0) + ?, " +
+        "downloaded_at = GREATEST(downloaded_at, ?), " +
+        "status = CASE WHEN status = 'REVOKED' THEN status ELSE 'DOWNLOADED' END " +
+        "WHERE id = ? AND created_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final StripedCounters<Key, PendingDownloads> counters = new StripedCounters<>(PendingDownloads::new);
+
+    /**
+     * Records one download. {@code createdAt} is part of the key so the flush can target the
+     * certificate's partition directly.
+     */
+    public void recordDownload(Long certificateId, LocalDateTime createdAt) {
+        record(new Key(certificateId, createdAt), 1, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.downloads.flush-interval-ms:2000}")
+    public void flush() {
+        Map<Key, PendingDownloads> drained = counters.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Key, PendingDownloads>> entries = new ArrayList<>(drained.entrySet());
+        // Stable lock order across nodes flushing concurrently
+        entries.sort(Comparator.comparing(entry -> entry.getKey().certificateId()));
+
+        List<Object[]> batch = new ArrayList<>(entries.size());
+        for (Map.Entry<Key, PendingDownloads> entry : entries) {
+            batch.add(new Object[] {
+                entry.getValue().count.sum(),
+                Timestamp.valueOf(toLocalDateTime(entry.getValue().lastDownloadedAt.get())),
+                entry.getKey().certificateId(),
+                Timestamp.valueOf(entry.getKey().createdAt())
+            });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Download counter flush failed, retrying {} certificates next cycle: {}",
+                entries.size(), e.getMessage());
+            for (Map.Entry<Key, PendingDownloads> entry : entries) {
+                record(entry.getKey(), entry.getValue().count.sum(), entry.getValue().lastDownloadedAt.get());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void record(Key key, long count, long downloadedAtMillis) {
+        counters.update(key, pending -> {
+            pending.count.add(count);
+            pending.lastDownloadedAt.accumulate(downloadedAtMillis);
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private record Key(Long certificateId, LocalDateTime createdAt) {
+    }
+
+    private static final class PendingDownloads {
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator lastDownloadedAt = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,425 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.config.GenerationProperties;
+import com.seccertificate.certificateservice.exception.TooManyRequestsException;
+import com.seccertificate.certificateservice.util.DecayingRate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs certificate generation with a fair share of the workers per customer, instead of one FIFO
+ * queue in which a customer's large batches hold up everyone else.
+ *
+ * Each customer has a queue per lane. Within a lane, tasks are dispatched by start-time fair
+ * queuing: a task's tag is where its customer's previous task in the lane ends in virtual time,
+ * or the lane's current virtual time if the customer was idle, and each task advances its
+ * customer by {@code cost / weight}. The smallest tag runs next, so customers with equal weights
+ * take turns, and a customer whose tasks cost more (batches are charged per certificate) gets
+ * proportionally fewer turns. An idle customer cannot save up credit.
+ *
+ * The interactive lane goes first, except that after {@code interactiveBurst} interactive tasks
+ * in a row one waiting bulk task is dispatched, so bulk work is never starved. Bulk tasks never
+ * occupy the last {@code reservedInteractive} workers, and no customer runs more than
+ * {@code maxRunningPerCustomer} tasks at once.
+ *
+ * Admission control keeps the queues short instead of letting them grow until memory or patience
+ * runs out. Throughput is measured in certificates per second. Work is refused with
+ * {@link TooManyRequestsException} when the queue ahead of it, plus its own cost, would take longer
+ * than {@code maxQueueSeconds} to drain. The queue ahead is the interactive lane for interactive
+ * work, and both lanes for bulk. A customer may fill only {@code maxCustomerShare} of that. An empty
+ * queue admits anything, so the largest batch can always run. Once accepted, work is not dropped:
+ * shutdown waits for the queues to drain.
+ *
+ * Queue wait is recorded per customer and lane as {@code certificate.generation.queue.wait}.
+ */
+@Slf4j
+public class GenerationScheduler {
+
+    public enum Lane {
+        /** Single certificates a user is waiting for. */
+        INTERACTIVE,
+        /** Batches. */
+        BULK
+    }
+
+    // Set on worker threads: what they run was accepted already and must not be refused later
+    private static final ThreadLocal<Boolean> WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final GenerationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Long, Tenant> tenants = new HashMap<>();
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final DecayingRate throughput;
+    private int consecutiveInteractive;
+    private boolean shuttingDown;
+
+    public GenerationScheduler(GenerationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.throughput = new DecayingRate(properties.getAdmission().getThroughputWindowMs());
+        Gauge.builder("certificate.generation.throughput", this, GenerationScheduler::throughput)
+            .description("Certificates generated per second, as used for admission")
+            .register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneState());
+            Gauge.builder("certificate.generation.queued", this, scheduler -> scheduler.queued(lane))
+                .tag("lane", tagValue(lane))
+                .description("Generation tasks waiting for a worker")
+                .register(meterRegistry);
+            Gauge.builder("certificate.generation.running", this, scheduler -> scheduler.running(lane))
+                .tag("lane", tagValue(lane))
+                .register(meterRegistry);
+        }
+        for (int i = 1; i <= properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::work, "cert-gen-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues {@code work} for the customer. {@code cost} is the number of certificates it
+     * generates.
+     *
+     * @throws TooManyRequestsException  when the work could not start within the admission limits
+     * @throws RejectedExecutionException when the scheduler is shutting down
+     */
+    public <T> CompletableFuture<T> submit(Long customerId, Lane lane, int cost, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable run = () -> {
+            try {
+                future.complete(work.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        lock.lock();
+        try {
+            if (shuttingDown) {
+                throw new RejectedExecutionException("Certificate generation is shutting down");
+            }
+            int charged = Math.max(1, cost);
+            Tenant tenant = tenants.get(customerId);
+            admit(tenant, lane, charged);
+            if (tenant == null) {
+                tenant = new Tenant(customerId, properties.weight(customerId));
+                tenants.put(customerId, tenant);
+            }
+            LaneState state = lanes.get(lane);
+            double start = Math.max(state.virtualTime, tenant.finish[lane.ordinal()]);
+            tenant.finish[lane.ordinal()] = start + (double) charged / tenant.weight;
+            tenant.queues[lane.ordinal()].add(new Task(tenant, lane, charged, start, System.nanoTime(), run));
+            state.active.add(tenant);
+            state.queued++;
+            state.queuedCost += charged;
+            tenant.queuedCost += charged;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    public int queued(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Certificates waiting in the lane, counting each batch by its size. */
+    public long queuedCost(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).queuedCost;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Measured certificates per second, never below the configured minimum. */
+    public double throughput() {
+        lock.lock();
+        try {
+            return currentThroughput();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Expected seconds until work of this cost, submitted now, has been generated. */
+    public long estimatedSeconds(Lane lane, int cost) {
+        lock.lock();
+        try {
+            return seconds(queuedAhead(lane) + Math.max(1, cost), currentThroughput());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int running(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting work and waits for the workers to finish what is already queued.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shuttingDown = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.currentTimeMillis() + properties.getShutdownTimeoutMs();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        int abandoned = queued(Lane.INTERACTIVE) + queued(Lane.BULK);
+        if (abandoned > 0) {
+            log.error("Shut down with {} accepted certificate generation tasks still queued", abandoned);
+        }
+    }
+
+    /**
+     * Whether the current thread is a generation worker, running work that was already admitted.
+     */
+    public static boolean isWorkerThread() {
+        return WORKER.get();
+    }
+
+    private void work() {
+        WORKER.set(true);
+        while (true) {
+            Task task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            waitTimer(task).record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+            try {
+                task.run().run();
+            } finally {
+                complete(task);
+            }
+        }
+    }
+
+    /** Blocks until a task may run; null once shutting down with nothing left to run. */
+    private Task take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Task task = dispatch();
+                if (task != null) {
+                    return task;
+                }
+                if (shuttingDown && lanes.values().stream().allMatch(state -> state.queued == 0)) {
+                    return null;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Task dispatch() {
+        Tenant interactive = next(Lane.INTERACTIVE);
+        int bulkWorkers = Math.max(1, properties.getWorkers() - properties.getReservedInteractive());
+        Tenant bulk = lanes.get(Lane.BULK).running < bulkWorkers ? next(Lane.BULK) : null;
+
+        Lane lane;
+        if (interactive != null && (bulk == null || consecutiveInteractive < properties.getInteractiveBurst())) {
+            lane = Lane.INTERACTIVE;
+            consecutiveInteractive++;
+        } else if (bulk != null) {
+            lane = Lane.BULK;
+            consecutiveInteractive = 0;
+        } else {
+            return null;
+        }
+
+        Tenant tenant = lane == Lane.INTERACTIVE ? interactive : bulk;
+        LaneState state = lanes.get(lane);
+        Task task = tenant.queues[lane.ordinal()].poll();
+        if (tenant.queues[lane.ordinal()].isEmpty()) {
+            state.active.remove(tenant);
+        }
+        state.virtualTime = task.start();
+        state.queued--;
+        state.queuedCost -= task.cost();
+        tenant.queuedCost -= task.cost();
+        state.running++;
+        tenant.running++;
+        return task;
+    }
+
+    /** The customer whose next task in the lane has the smallest start tag, among those below their cap. */
+    private Tenant next(Lane lane) {
+        Tenant next = null;
+        double smallest = Double.MAX_VALUE;
+        for (Tenant tenant : lanes.get(lane).active) {
+            if (tenant.running >= properties.getMaxRunningPerCustomer()) {
+                continue;
+            }
+            double start = tenant.queues[lane.ordinal()].peek().start();
+            if (start < smallest) {
+                smallest = start;
+                next = tenant;
+            }
+        }
+        return next;
+    }
+
+    private void complete(Task task) {
+        lock.lock();
+        try {
+            throughput.record(task.cost(), System.nanoTime());
+            lanes.get(task.lane()).running--;
+            Tenant tenant = task.tenant();
+            tenant.running--;
+            if (tenant.running == 0 && tenant.queued() == 0) {
+                // Keeps the map to active customers; one coming back starts at the lane's virtual time
+                tenants.remove(tenant.id, tenant);
+            }
+            // A freed worker or per-customer slot may make other tasks eligible
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admit(Tenant tenant, Lane lane, int cost) {
+        GenerationProperties.Admission admission = properties.getAdmission();
+        double rate = currentThroughput();
+        double budget = rate * admission.getMaxQueueSeconds();
+
+        // Work larger than the whole budget waits for an empty queue
+        long ahead = queuedAhead(lane);
+        if (ahead > 0 && ahead + cost > budget) {
+            throw new TooManyRequestsException("Certificate generation is at capacity, please retry later",
+                seconds(Math.min(ahead, ahead + cost - budget), rate));
+        }
+
+        long customerQueued = tenant == null ? 0 : tenant.queuedCost;
+        double customerBudget = budget * admission.getMaxCustomerShare();
+        if (customerQueued > 0 && customerQueued + cost > customerBudget) {
+            // The customer's queue drains at roughly its share of the workers
+            double customerRate = rate / Math.max(1, tenants.size());
+            throw new TooManyRequestsException("Too much certificate generation queued for this account, please retry later",
+                seconds(Math.min(customerQueued, customerQueued + cost - customerBudget), customerRate));
+        }
+        if (tenant != null && tenant.queued() >= properties.getMaxQueuedPerCustomer()) {
+            throw new TooManyRequestsException("Too many certificate generation requests queued for this account",
+                seconds(tenant.queuedCost, rate / Math.max(1, tenants.size())));
+        }
+    }
+
+    /** Interactive work only waits for the interactive lane; bulk work waits for both. */
+    private long queuedAhead(Lane lane) {
+        long ahead = lanes.get(Lane.INTERACTIVE).queuedCost;
+        if (lane == Lane.BULK) {
+            ahead += lanes.get(Lane.BULK).queuedCost;
+        }
+        return ahead;
+    }
+
+    private double currentThroughput() {
+        return Math.max(properties.getAdmission().getMinThroughput(), throughput.perSecond(System.nanoTime()));
+    }
+
+    private static long seconds(double certificates, double perSecond) {
+        return Math.max(1, (long) Math.ceil(certificates / perSecond));
+    }
+
+    private Timer waitTimer(Task task) {
+        return Timer.builder("certificate.generation.queue.wait")
+            .tag("customer", String.valueOf(task.tenant().id))
+            .tag("lane", tagValue(task.lane()))
+            .description("Time generation tasks wait for a worker")
+            .register(meterRegistry);
+    }
+
+    private static String tagValue(Lane lane) {
+        return lane.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class LaneState {
+        // Insertion order breaks ties between equal start tags in arrival order
+        final Set<Tenant> active = new LinkedHashSet<>();
+        double virtualTime;
+        int queued;
+        long queuedCost;
+        int running;
+    }
+
+    private static final class Tenant {
+        final Long id;
+        final int weight;
+        final double[] finish = new double[Lane.values().length];
+        @SuppressWarnings("unchecked")
+        final ArrayDeque<Task>[] queues = new ArrayDeque[Lane.values().length];
+        long queuedCost;
+        int running;
+
+        Tenant(Long id, int weight) {
+            this.id = id;
+            this.weight = weight;
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new ArrayDeque<>();
+            }
+        }
+
+        int queued() {
+            int queued = 0;
+            for (ArrayDeque<Task> queue : queues) {
+                queued += queue.size();
+            }
+            return queued;
+        }
+    }
+
+    private record Task(Tenant tenant, Lane lane, int cost, double start, long enqueuedAt, Runnable run) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.seccertificate.certificateservice.service;
+
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.seccertificate.certificateservice.entity.Template;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * iText pdfHTML. Broad CSS support, the historical default.
+ */
+@Component
+@RequiredArgsConstructor
+public class ITextRenderEngine implements RenderEngine {
+
+    private final RenderResources renderResources;
+
+    @Override
+    public Template.Renderer renderer() {
+        return Template.Renderer.ITEXT;
+    }
+
+    @Override
+    public void render(String html, OutputStream out) throws IOException {
+        HtmlConverter.convertToPdf(html, out, renderResources.converterProperties());
+    }
+
+    @Override
+    public boolean supportsInlineSvg() {
+        return true;
+    }
+}
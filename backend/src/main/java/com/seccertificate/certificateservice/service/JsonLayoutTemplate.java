@@ -0,0 +1,273 @@
+package com.seccertificate.certificateservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.seccertificate.certificateservice.entity.Template;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A {@code JSON} template: a declarative page layout rendered directly with the iText layout
+ * API, without any HTML or CSS. Parsed and validated once per template version.
+ *
+ * <pre>
+ * {
+ *   "pageSize": "A4", "orientation": "landscape",      // or "width"/"height" in points
+ *   "font": "Helvetica", "fontSize": 14, "color": "#000000",
+ *   "pages": [{
+ *     "background": "#fffdf5",
+ *     "elements": [
+ *       {"type": "rect",  "x": 20, "y": 20, "width": 802, "height": 555, "stroke": "#1a3c6e", "lineWidth": 4},
+ *       {"type": "text",  "x": 0, "y": 120, "width": 842, "height": 60, "text": "{{name}}",
+ *        "font": "Helvetica-Bold", "fontSize": 32, "align": "center"},
+ *       {"type": "image", "x": 40, "y": 40, "width": 120, "height": 60, "src": "data:image/png;base64,..."},
+ *       {"type": "qr",    "x": 700, "y": 440, "size": 100}
+ *     ]
+ *   }]
+ * }
+ * </pre>
+ *
+ * Coordinates are points from the top-left corner of the page. Fonts are the 14 standard PDF
+ * fonts; images must be inline data URIs so rendering never fetches anything.
+ */
+public final class JsonLayoutTemplate {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int MAX_PAGES = 20;
+    private static final int MAX_ELEMENTS_PER_PAGE = 200;
+
+    static final Set<String> STANDARD_FONTS = Set.of(
+        StandardFonts.HELVETICA, StandardFonts.HELVETICA_BOLD, StandardFonts.HELVETICA_OBLIQUE,
+        StandardFonts.HELVETICA_BOLDOBLIQUE, StandardFonts.TIMES_ROMAN, StandardFonts.TIMES_BOLD,
+        StandardFonts.TIMES_ITALIC, StandardFonts.TIMES_BOLDITALIC, StandardFonts.COURIER,
+        StandardFonts.COURIER_BOLD, StandardFonts.COURIER_OBLIQUE, StandardFonts.COURIER_BOLDOBLIQUE,
+        StandardFonts.SYMBOL, StandardFonts.ZAPFDINGBATS);
+
+    /** Where the QR code goes when the layout has no {@code qr} element, matching HTML templates. */
+    static final QrBox DEFAULT_QR = new QrBox(10, 10, 100);
+
+    public sealed interface Element permits TextBox, ImageBox, QrBox, RectBox {
+    }
+
+    public record TextBox(float x, float y, float width, float height, CompiledTemplate text,
+                          String font, float fontSize, DeviceRgb color, TextAlignment align) implements Element {
+    }
+
+    public record ImageBox(float x, float y, float width, float height, ImageData image) implements Element {
+    }
+
+    public record QrBox(float x, float y, float size) implements Element {
+    }
+
+    public record RectBox(float x, float y, float width, float height, DeviceRgb stroke, DeviceRgb fill,
+                          float lineWidth) implements Element {
+    }
+
+    public record Page(DeviceRgb background, List<Element> elements) {
+    }
+
+    private final PageSize pageSize;
+    private final List<Page> pages;
+    private final QrBox qr;
+
+    private JsonLayoutTemplate(PageSize pageSize, List<Page> pages, QrBox qr) {
+        this.pageSize = pageSize;
+        this.pages = List.copyOf(pages);
+        this.qr = qr;
+    }
+
+    public PageSize pageSize() {
+        return pageSize;
+    }
+
+    public List<Page> pages() {
+        return pages;
+    }
+
+    /** True when a page places the QR code itself; otherwise it goes to {@link #DEFAULT_QR} on page 1. */
+    public boolean hasQrElement() {
+        return qr != null;
+    }
+
+    /**
+     * Parses and validates a layout.
+     *
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    public static JsonLayoutTemplate parse(String json) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Layout is not valid JSON: " + e.getOriginalMessage());
+        }
+        if (root == null || !root.isObject()) {
+            throw new IllegalArgumentException("Layout must be a JSON object");
+        }
+
+        PageSize pageSize = pageSize(root);
+        String defaultFont = font(root, "font", StandardFonts.HELVETICA, "layout");
+        float defaultFontSize = positive(root, "fontSize", 12, "layout");
+        DeviceRgb defaultColor = color(root, "color", new DeviceRgb(0, 0, 0), "layout");
+
+        JsonNode pagesNode = root.path("pages");
+        if (!pagesNode.isArray() || pagesNode.isEmpty()) {
+            throw new IllegalArgumentException("Layout needs at least one entry in 'pages'");
+        }
+        if (pagesNode.size() > MAX_PAGES) {
+            throw new IllegalArgumentException("Layout may have at most " + MAX_PAGES + " pages");
+        }
+
+        List<Page> pages = new ArrayList<>();
+        QrBox qr = null;
+        for (int p = 0; p < pagesNode.size(); p++) {
+            JsonNode pageNode = pagesNode.get(p);
+            String pagePath = "pages[" + p + "]";
+            JsonNode elementsNode = pageNode.path("elements");
+            if (!elementsNode.isArray()) {
+                throw new IllegalArgumentException(pagePath + ": 'elements' must be an array");
+            }
+            if (elementsNode.size() > MAX_ELEMENTS_PER_PAGE) {
+                throw new IllegalArgumentException(pagePath + ": at most " + MAX_ELEMENTS_PER_PAGE + " elements per page");
+            }
+
+            List<Element> elements = new ArrayList<>();
+            for (int e = 0; e < elementsNode.size(); e++) {
+                JsonNode node = elementsNode.get(e);
+                String path = pagePath + ".elements[" + e + "]";
+                String type = node.path("type").asText("");
+                switch (type) {
+                    case "text" -> elements.add(new TextBox(
+                        number(node, "x", path), number(node, "y", path),
+                        positive(node, "width", -1, path), positive(node, "height", -1, path),
+                        new CompiledTemplate(Template.TemplateType.JSON,
+                            TemplateCompiler.segments(required(node, "text", path).asText(), Template.TemplateType.JSON)),
+                        font(node, "font", defaultFont, path),
+                        positive(node, "fontSize", defaultFontSize, path),
+                        color(node, "color", defaultColor, path),
+                        align(node, path)));
+                    case "image" -> elements.add(new ImageBox(
+                        number(node, "x", path), number(node, "y", path),
+                        positive(node, "width", -1, path), positive(node, "height", -1, path),
+                        image(node, path)));
+                    case "qr" -> {
+                        if (qr != null) {
+                            throw new IllegalArgumentException(path + ": only one 'qr' element is allowed");
+                        }
+                        qr = new QrBox(number(node, "x", path), number(node, "y", path), positive(node, "size", 100, path));
+                        elements.add(qr);
+                    }
+                    case "rect" -> elements.add(new RectBox(
+                        number(node, "x", path), number(node, "y", path),
+                        positive(node, "width", -1, path), positive(node, "height", -1, path),
+                        color(node, "stroke", null, path), color(node, "fill", null, path),
+                        positive(node, "lineWidth", 1, path)));
+                    default -> throw new IllegalArgumentException(
+                        path + ": 'type' must be one of text, image, qr, rect");
+                }
+            }
+            pages.add(new Page(color(pageNode, "background", null, pagePath), elements));
+        }
+        return new JsonLayoutTemplate(pageSize, pages, qr);
+    }
+
+    private static PageSize pageSize(JsonNode root) {
+        PageSize size;
+        if (root.has("width") || root.has("height")) {
+            size = new PageSize(positive(root, "width", -1, "layout"), positive(root, "height", -1, "layout"));
+        } else {
+            size = switch (root.path("pageSize").asText("A4").toUpperCase(Locale.ROOT)) {
+                case "A4" -> PageSize.A4;
+                case "A5" -> PageSize.A5;
+                case "A3" -> PageSize.A3;
+                case "LETTER" -> PageSize.LETTER;
+                case "LEGAL" -> PageSize.LEGAL;
+                default -> throw new IllegalArgumentException("layout: 'pageSize' must be A3, A4, A5, LETTER or LEGAL");
+            };
+        }
+        return "landscape".equalsIgnoreCase(root.path("orientation").asText("")) ? size.rotate() : size;
+    }
+
+    private static JsonNode required(JsonNode node, String field, String path) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            throw new IllegalArgumentException(path + ": '" + field + "' is required");
+        }
+        return value;
+    }
+
+    private static float number(JsonNode node, String field, String path) {
+        JsonNode value = required(node, field, path);
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException(path + ": '" + field + "' must be a number");
+        }
+        return value.floatValue();
+    }
+
+    // defaultValue < 0 makes the field required
+    private static float positive(JsonNode node, String field, float defaultValue, String path) {
+        if (!node.has(field) && defaultValue >= 0) {
+            return defaultValue;
+        }
+        float value = number(node, field, path);
+        if (value <= 0) {
+            throw new IllegalArgumentException(path + ": '" + field + "' must be positive");
+        }
+        return value;
+    }
+
+    private static String font(JsonNode node, String field, String defaultValue, String path) {
+        String font = node.path(field).asText(defaultValue);
+        if (!STANDARD_FONTS.contains(font)) {
+            throw new IllegalArgumentException(path + ": unknown font '" + font + "', use one of " + STANDARD_FONTS);
+        }
+        return font;
+    }
+
+    private static DeviceRgb color(JsonNode node, String field, DeviceRgb defaultValue, String path) {
+        if (!node.has(field)) {
+            return defaultValue;
+        }
+        String value = node.get(field).asText("");
+        if (!value.matches("#[0-9a-fA-F]{6}")) {
+            throw new IllegalArgumentException(path + ": '" + field + "' must be a #rrggbb color");
+        }
+        int rgb = Integer.parseInt(value.substring(1), 16);
+        return new DeviceRgb((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
+    private static TextAlignment align(JsonNode node, String path) {
+        return switch (node.path("align").asText("left").toLowerCase(Locale.ROOT)) {
+            case "left" -> TextAlignment.LEFT;
+            case "center" -> TextAlignment.CENTER;
+            case "right" -> TextAlignment.RIGHT;
+            case "justify" -> TextAlignment.JUSTIFIED;
+            default -> throw new IllegalArgumentException(path + ": 'align' must be left, center, right or justify");
+        };
+    }
+
+    private static ImageData image(JsonNode node, String path) {
+        String src = required(node, "src", path).asText();
+        int comma = src.indexOf(',');
+        if (!src.startsWith("data:image/") || comma < 0 || !src.substring(0, comma).endsWith(";base64")) {
+            throw new IllegalArgumentException(path + ": 'src' must be a base64 data:image/... URI");
+        }
+        try {
+            return ImageDataFactory.create(Base64.getMimeDecoder().decode(src.substring(comma + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(path + ": 'src' is not a readable image");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.seccertificate.certificateservice.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Every certificate of a batch as pages of one PDF, appended as the certificates are generated.
+ *
+ * Smart mode writes byte-identical objects once, so shared images, fonts embedded in full and
+ * stamped static layers are stored a single time; full compression packs the remaining objects
+ * into object streams. Font subsets differ per certificate and are not shared between pages.
+ * Copied pages are flushed after each certificate, so memory does not grow with the page count.
+ * The file is written under a temporary name and only appears under its final name once
+ * {@link #finish()} succeeds, or once the transaction commits with {@link #finishAfterCommit()}.
+ */
+@Slf4j
+public final class MergedPdf implements Closeable {
+
+    private final Path target;
+    private final Path partial;
+    private final PdfDocument document;
+    private boolean finished;
+
+    MergedPdf(Path target) throws IOException {
+        this.target = target;
+        this.partial = target.resolveSibling(target.getFileName() + ".part");
+        this.document = new PdfDocument(new PdfWriter(partial.toString(),
+                new WriterProperties().setFullCompressionMode(true).useSmartMode()));
+    }
+
+    public void append(Path certificatePdf) throws IOException {
+        try (PdfDocument source = new PdfDocument(new PdfReader(certificatePdf.toString()))) {
+            source.copyPagesTo(1, source.getNumberOfPages(), document);
+            document.flushCopiedObjects(source);
+        }
+    }
+
+    public int pages() {
+        return document.getNumberOfPages();
+    }
+
+    /** Completes the document and moves it to its final name; a batch without pages leaves no file. */
+    public void finish() throws IOException {
+        finished = true;
+        if (pages() == 0) {
+            discard();
+            return;
+        }
+        document.close();
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Completes the document now, so write errors still roll back the current transaction, and
+     * moves it to its final name once that transaction commits. On rollback the file is discarded.
+     * Without a transaction this is {@link #finish()}.
+     */
+    public void finishAfterCommit() throws IOException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            finish();
+            return;
+        }
+        finished = true;
+        if (pages() == 0) {
+            discard();
+            return;
+        }
+        document.close();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } else {
+                        Files.deleteIfExists(partial);
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to {} merged PDF {}", status == STATUS_COMMITTED ? "publish" : "discard",
+                            partial, e);
+                }
+            }
+        });
+    }
+
+    /** Discards the partial file unless {@link #finish()} or {@link #finishAfterCommit()} was called. */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            finished = true;
+            discard();
+        }
+    }
+
+    private void discard() throws IOException {
+        try {
+            document.close();
+        } catch (RuntimeException e) {
+            // Closing a document without pages fails; the file is deleted either way
+            log.debug("Closing discarded merged PDF {}: {}", partial, e.getMessage());
+        }
+        Files.deleteIfExists(partial);
+    }
+}
@@ -0,0 +1,32 @@
+package com.seccertificate.certificateservice.service;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.seccertificate.certificateservice.entity.Template;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * openhtmltopdf on PDFBox. Its own parser only accepts well-formed XHTML, and substituted
+ * placeholder values may not be, so documents go through Jsoup's lenient HTML parser first.
+ */
+@Component
+public class OpenHtmlToPdfRenderEngine implements RenderEngine {
+
+    @Override
+    public Template.Renderer renderer() {
+        return Template.Renderer.OPENHTMLTOPDF;
+    }
+
+    @Override
+    public void render(String html, OutputStream out) throws IOException {
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        builder.withW3cDocument(W3CDom.convert(Jsoup.parse(html)), null);
+        builder.toStream(out);
+        builder.run();
+    }
+}
@@ -0,0 +1,489 @@
+package com.seccertificate.certificateservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code certificates} and {@code audit_logs} range-partitioned by month.
+ *
+ * An existing heap table is converted online, in the background once the application is ready.
+ * A partitioned shadow table is created with the same indexes and foreign keys, a trigger
+ * mirrors every write on the live table into it, and existing rows are copied over in batches
+ * of {@code copy-batch-size}, each in its own short transaction. Only the final swap of the two
+ * tables takes an exclusive lock, for a few catalog updates. Afterwards a daily job pre-creates
+ * upcoming partitions and enforces audit retention by detaching (and optionally dropping) whole
+ * partitions, which is O(1) regardless of row count.
+ *
+ * PostgreSQL only enforces unique indexes on a partitioned table if they include the partition
+ * key, so {@code certificates.unique_id} is kept unique by a small non-partitioned registry,
+ * {@code certificate_ids}: a row trigger claims the ID on insert and releases it on delete, in
+ * the same transaction as the certificate, so a duplicate fails the insert itself.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Order(1)
+public class PartitionMaintenanceService implements ApplicationRunner {
+
+    static final PartitionedTable CERTIFICATES =
+        new PartitionedTable("certificates", "created_at", "unique_id", "certificate_ids");
+    static final PartitionedTable AUDIT_LOGS = new PartitionedTable("audit_logs", "\"timestamp\"", null, null);
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final long CONVERSION_LOCK_ID = 0x63657274L; // arbitrary, shared by all nodes
+    private static final int SWAP_ATTEMPTS = 10;
+    private static final String REGISTRY_COMPLETE = "complete"; // table comment once every row is registered
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.partitioning.audit-retention-months:13}")
+    private int auditRetentionMonths;
+
+    @Value("${app.partitioning.drop-expired:true}")
+    private boolean dropExpired;
+
+    @Value("${app.partitioning.copy-batch-size:5000}")
+    private int copyBatchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+        maintainPartitions();
+        for (PartitionedTable table : List.of(CERTIFICATES, AUDIT_LOGS)) {
+            if (isPartitioned(table.name())) {
+                ensureRegistry(table);
+            }
+        }
+    }
+
+    /**
+     * Starts converting tables that are not partitioned yet. Runs after every runner (so the
+     * indexes from {@code PostgresSchemaInitializer} exist and are carried over) and off the
+     * startup thread, so the service is ready while rows are copied.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startConversion() {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+        List<PartitionedTable> pending = List.of(CERTIFICATES, AUDIT_LOGS).stream()
+            .filter(table -> tableExists(table.name()) && !isPartitioned(table.name()))
+            .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        taskScheduler.schedule(() -> {
+            for (PartitionedTable table : pending) {
+                try {
+                    convert(table);
+                } catch (DataAccessException e) {
+                    log.error("Failed to partition table {}, will resume on next startup: {}",
+                        table.name(), e.getMostSpecificCause().getMessage());
+                }
+            }
+            maintainPartitions();
+        }, Instant.now());
+    }
+
+    /**
+     * Pre-creates upcoming monthly partitions and drops audit partitions past retention.
+     */
+    @Scheduled(cron = "${app.partitioning.maintenance-cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (PartitionedTable table : List.of(CERTIFICATES, AUDIT_LOGS)) {
+            if (!isPartitioned(table.name())) {
+                continue;
+            }
+            for (int i = 0; i <= monthsAhead; i++) {
+                try {
+                    createPartition(table, current.plusMonths(i));
+                } catch (DataAccessException e) {
+                    log.warn("Failed to create partition of {} for {}: {}",
+                        table.name(), current.plusMonths(i), e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        if (isPartitioned(AUDIT_LOGS.name())) {
+            expireAuditPartitions(current.minusMonths(auditRetentionMonths));
+        }
+    }
+
+    /**
+     * Converts one table on a dedicated connection that holds a session advisory lock, so only
+     * one node copies at a time. Safe to interrupt: a later run resumes with the existing shadow
+     * table, and rows already copied are skipped.
+     */
+    private void convert(PartitionedTable table) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+            JdbcTemplate session = new JdbcTemplate(dataSource);
+            TransactionTemplate sessionTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+            if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class,
+                    CONVERSION_LOCK_ID))) {
+                log.info("Another node is partitioning tables, skipping {}", table.name());
+                return null;
+            }
+            try {
+                if (isPartitioned(table.name())) {
+                    return null;
+                }
+                if (!tableExists(table.shadow())) {
+                    sessionTransaction.executeWithoutResult(status -> createShadow(session, table));
+                }
+                copyRows(session, table);
+                swap(session, sessionTransaction, table);
+            } finally {
+                session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, CONVERSION_LOCK_ID);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Creates the partitioned shadow table with the live table's indexes and foreign keys, and the
+     * trigger that mirrors writes into it from now on. One transaction: the shadow never exists
+     * without its trigger.
+     */
+    private void createShadow(JdbcTemplate session, PartitionedTable table) {
+        String shadow = table.shadow();
+        log.info("Converting {} to monthly range partitions on {}", table.name(), table.column());
+
+        session.execute("CREATE TABLE " + shadow + " (LIKE " + table.name() + " INCLUDING DEFAULTS) "
+            + "PARTITION BY RANGE (" + table.column() + ")");
+
+        // Identity columns are not supported on partitioned parents before PostgreSQL 17;
+        // the sequence is advanced past the copied ids when the tables are swapped
+        String sequence = table.name() + "_part_id_seq";
+        session.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " OWNED BY " + shadow + ".id");
+        session.execute("ALTER TABLE " + shadow + " ALTER COLUMN id SET DEFAULT nextval('" + sequence + "')");
+        session.execute("ALTER TABLE " + shadow + " ADD PRIMARY KEY (id, " + table.column() + ")");
+
+        Map<String, Object> range = session.queryForMap(
+            "SELECT MIN(" + table.column() + ") AS min_value FROM " + table.name());
+        YearMonth first = range.get("min_value") != null
+            ? YearMonth.from(((Timestamp) range.get("min_value")).toLocalDateTime())
+            : YearMonth.now();
+        YearMonth lastMonth = YearMonth.now().plusMonths(monthsAhead);
+        for (YearMonth month = first; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            // Final partition names already: the live table is not partitioned, so they are free
+            session.execute("CREATE TABLE " + partitionName(table, month) + " PARTITION OF " + shadow
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        // Safety net for rows outside pre-created ranges (e.g. clock skew)
+        session.execute("CREATE TABLE " + table.name() + "_default PARTITION OF " + shadow + " DEFAULT");
+
+        // Index names are taken by the live table until the swap; the shadow's indexes get a
+        // suffix and are renamed then. The table is empty, so building them is instant.
+        List<Map<String, Object>> indexes = session.queryForList(
+            "SELECT ic.relname AS name, pg_get_indexdef(i.indexrelid) AS definition FROM pg_index i " +
+            "JOIN pg_class c ON c.oid = i.indrelid JOIN pg_class ic ON ic.oid = i.indexrelid " +
+            "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace " +
+            "AND NOT i.indisprimary AND NOT i.indisunique",
+            table.name());
+        for (Map<String, Object> index : indexes) {
+            String definition = ((String) index.get("definition")).replaceFirst(
+                " INDEX \\S+ ON (ONLY )?\\S+ ", " INDEX " + index.get("name") + "_shadow ON " + shadow + " ");
+            session.execute(definition);
+        }
+        if (table.registry() != null) {
+            // Filled by the row copy and the mirrored writes as they land in the shadow
+            createRegistry(session, table, shadow);
+        }
+
+        List<Map<String, Object>> foreignKeys = session.queryForList(
+            "SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+            "WHERE conrelid = (current_schema() || '.' || ?)::regclass AND contype = 'f'",
+            table.name());
+        for (Map<String, Object> fk : foreignKeys) {
+            session.execute("ALTER TABLE " + shadow + " ADD CONSTRAINT " + fk.get("conname")
+                + " " + fk.get("definition"));
+        }
+
+        session.execute("CREATE FUNCTION " + table.mirror() + "() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN "
+            + "IF TG_OP <> 'INSERT' THEN DELETE FROM " + shadow + " WHERE id = OLD.id AND "
+            + table.column() + " = OLD." + table.column() + "; END IF; "
+            + "IF TG_OP <> 'DELETE' THEN INSERT INTO " + shadow + " SELECT (NEW).*; END IF; "
+            + "RETURN NULL; END $$");
+        session.execute("CREATE TRIGGER " + table.mirror() + " AFTER INSERT OR UPDATE OR DELETE ON "
+            + table.name() + " FOR EACH ROW EXECUTE FUNCTION " + table.mirror() + "()");
+        log.info("Created {} with {} indexes and {} foreign keys; copying rows", shadow, indexes.size(),
+            foreignKeys.size());
+    }
+
+    /**
+     * Copies the rows that existed before the trigger, one id range per transaction. FOR SHARE
+     * makes a concurrent update of a row wait until its copy has committed, so the trigger then
+     * replaces the copy rather than racing it; rows the trigger already wrote are left alone.
+     */
+    private void copyRows(JdbcTemplate session, PartitionedTable table) {
+        Long maxId = session.queryForObject("SELECT MAX(id) FROM " + table.name(), Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long minId = session.queryForObject("SELECT MIN(id) FROM " + table.name(), Long.class);
+        long copied = 0;
+        int batches = 0;
+        for (long from = minId - 1; from < maxId; from += copyBatchSize) {
+            copied += session.update("WITH batch AS (SELECT * FROM " + table.name()
+                + " WHERE id > ? AND id <= ? FOR SHARE) INSERT INTO " + table.shadow()
+                + " SELECT * FROM batch ON CONFLICT DO NOTHING", from, from + copyBatchSize);
+            if (++batches % 100 == 0) {
+                log.info("Partitioning {}: {} rows copied, up to id {} of {}", table.name(), copied,
+                    from + copyBatchSize, maxId);
+            }
+        }
+        log.info("Partitioning {}: {} rows copied", table.name(), copied);
+    }
+
+    /**
+     * Replaces the live table with the shadow. The exclusive lock is held only for catalog
+     * changes; if it cannot be had quickly (long-running readers) the attempt is abandoned and
+     * retried, rather than queueing every other query behind it.
+     */
+    private void swap(JdbcTemplate session, TransactionTemplate sessionTransaction, PartitionedTable table) {
+        String legacy = table.name() + "_legacy";
+        String shadow = table.shadow();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sessionTransaction.executeWithoutResult(status -> {
+                    session.execute("SET LOCAL lock_timeout = '5s'");
+                    session.execute("LOCK TABLE " + table.name() + " IN ACCESS EXCLUSIVE MODE");
+                    session.execute("DROP TRIGGER " + table.mirror() + " ON " + table.name());
+                    session.execute("DROP FUNCTION " + table.mirror() + "()");
+                    session.queryForObject("SELECT setval('" + table.name() + "_part_id_seq', "
+                        + "COALESCE(MAX(id), 0) + 1, false) FROM " + table.name(), Long.class);
+
+                    List<String> indexes = session.queryForList(
+                        "SELECT ic.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indrelid " +
+                        "JOIN pg_class ic ON ic.oid = i.indexrelid " +
+                        "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace " +
+                        "AND ic.relname LIKE '%\\_shadow'",
+                        String.class, shadow);
+
+                    session.execute("ALTER TABLE " + table.name() + " RENAME TO " + legacy);
+                    session.execute("ALTER TABLE " + shadow + " RENAME TO " + table.name());
+                    session.execute("ALTER TABLE " + table.name() + " RENAME CONSTRAINT " + shadow + "_pkey TO "
+                        + table.name() + "_pkey");
+                    session.execute("DROP TABLE " + legacy);
+                    for (String index : indexes) {
+                        session.execute("ALTER INDEX " + index + " RENAME TO "
+                            + index.substring(0, index.length() - "_shadow".length()));
+                    }
+                    if (table.registry() != null) {
+                        session.execute("COMMENT ON TABLE " + table.registry() + " IS '" + REGISTRY_COMPLETE + "'");
+                    }
+                });
+                log.info("Partitioned {}", table.name());
+                return;
+            } catch (DataAccessException e) {
+                if (attempt >= SWAP_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Could not swap in partitioned {} (attempt {}): {}", table.name(), attempt,
+                    e.getMostSpecificCause().getMessage());
+                try {
+                    Thread.sleep(1000L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the registry of unique values and the trigger that keeps it in step with
+     * {@code target}. A second row with the same value fails on the registry's primary key.
+     */
+    private void createRegistry(JdbcTemplate session, PartitionedTable table, String target) {
+        String registry = table.registry();
+        String column = table.uniqueColumn();
+        session.execute("CREATE TABLE IF NOT EXISTS " + registry + " (" + column + " text PRIMARY KEY)");
+        session.execute("CREATE OR REPLACE FUNCTION " + table.registrySync() + "() RETURNS trigger "
+            + "LANGUAGE plpgsql AS $$ BEGIN "
+            + "IF TG_OP = 'INSERT' THEN INSERT INTO " + registry + " VALUES (NEW." + column + "); "
+            + "ELSE DELETE FROM " + registry + " WHERE " + column + " = OLD." + column + "; END IF; "
+            + "RETURN NULL; END $$");
+        session.execute("DROP TRIGGER IF EXISTS " + table.registrySync() + " ON " + target);
+        session.execute("CREATE TRIGGER " + table.registrySync() + " AFTER INSERT OR DELETE ON " + target
+            + " FOR EACH ROW EXECUTE FUNCTION " + table.registrySync() + "()");
+    }
+
+    /**
+     * Adds the registry to tables partitioned before it existed without blocking writes: the
+     * trigger first, then existing rows registered one id range per transaction. The table is
+     * marked complete at the end, so an interrupted backfill is resumed on the next start.
+     */
+    private void ensureRegistry(PartitionedTable table) {
+        if (table.registry() == null || (tableExists(table.registry()) && REGISTRY_COMPLETE.equals(
+                jdbcTemplate.queryForObject("SELECT obj_description((current_schema() || '.' || ?)::regclass, "
+                    + "'pg_class')", String.class, table.registry())))) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> createRegistry(jdbcTemplate, table, table.name()));
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.name(), Long.class);
+            if (maxId != null) {
+                Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table.name(), Long.class);
+                for (long from = minId - 1; from < maxId; from += copyBatchSize) {
+                    jdbcTemplate.update("INSERT INTO " + table.registry() + " SELECT " + table.uniqueColumn()
+                        + " FROM " + table.name() + " WHERE id > ? AND id <= ? ON CONFLICT DO NOTHING",
+                        from, from + copyBatchSize);
+                }
+            }
+            jdbcTemplate.execute("COMMENT ON TABLE " + table.registry() + " IS '" + REGISTRY_COMPLETE + "'");
+            log.info("Created {} for {}.{}", table.registry(), table.name(), table.uniqueColumn());
+        } catch (DataAccessException e) {
+            log.error("Failed to create {} for {}: {}", table.registry(), table.name(),
+                e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void createPartition(PartitionedTable table, YearMonth month) {
+        String partition = partitionName(table, month);
+        if (tableExists(partition)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Rows that landed in the default partition for this month must move into the new partition,
+            // otherwise PostgreSQL refuses to create it
+            String defaultPartition = table.name() + "_default";
+            boolean hasDefault = tableExists(defaultPartition);
+            if (hasDefault) {
+                jdbcTemplate.execute("CREATE TEMP TABLE pending_rows (LIKE " + table.name() + ") ON COMMIT DROP");
+                jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition + " WHERE " + table.column()
+                    + " >= ? AND " + table.column() + " < ? RETURNING *) INSERT INTO pending_rows SELECT * FROM moved",
+                    from, to);
+            }
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table.name()
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            if (hasDefault) {
+                jdbcTemplate.update("INSERT INTO " + table.name() + " SELECT * FROM pending_rows");
+            }
+        });
+        log.info("Created partition {}", partition);
+    }
+
+    private void expireAuditPartitions(YearMonth oldestRetained) {
+        String prefix = AUDIT_LOGS.name() + "_p";
+        for (String partition : partitions(AUDIT_LOGS.name())) {
+            if (!partition.startsWith(prefix)) {
+                continue; // default partition
+            }
+            YearMonth month = YearMonth.parse(partition.substring(prefix.length()), SUFFIX_FORMAT);
+            if (!month.isBefore(oldestRetained)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("ALTER TABLE " + AUDIT_LOGS.name() + " DETACH PARTITION " + partition);
+                if (dropExpired) {
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                    log.info("Dropped expired audit partition {}", partition);
+                } else {
+                    log.info("Detached expired audit partition {} for archiving", partition);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Failed to expire audit partition {}: {}", partition, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private List<String> partitions(String parent) {
+        return jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace",
+            String.class, parent);
+    }
+
+    static String partitionName(PartitionedTable table, YearMonth month) {
+        return table.name() + "_p" + month.format(SUFFIX_FORMAT);
+    }
+
+    private boolean isPartitioned(String table) {
+        return "p".equals(relationKind(table));
+    }
+
+    private boolean tableExists(String table) {
+        return relationKind(table) != null;
+    }
+
+    private String relationKind(String table) {
+        List<String> kinds = jdbcTemplate.queryForList(
+            "SELECT relkind::text FROM pg_class WHERE relname = ? AND relnamespace = current_schema()::regnamespace",
+            String.class, table);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private boolean isPostgres() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            return product != null && product.toLowerCase().contains("postgresql");
+        } catch (DataAccessException e) {
+            log.warn("Could not determine database product: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A table kept partitioned by month on {@code column}. {@code uniqueColumn}, if set, is kept
+     * unique across partitions by the non-partitioned table {@code registry}.
+     */
+    record PartitionedTable(String name, String column, String uniqueColumn, String registry) {
+
+        String shadow() {
+            return name + "_partitioned";
+        }
+
+        String mirror() {
+            return name + "_mirror";
+        }
+
+        String registrySync() {
+            return registry + "_sync";
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.seccertificate.certificateservice.service;
+
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.annot.PdfAnnotation;
+import com.itextpdf.kernel.pdf.annot.PdfWidgetAnnotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A customer-designed PDF with AcroForm fields, inspected once per template version.
+ *
+ * iText documents cannot be shared between threads, so each render re-opens {@link #pdf()};
+ * everything that can be worked out ahead of time (field names, where the QR code goes) is
+ * kept here.
+ */
+public final class PdfFormTemplate {
+
+    /** Field whose widget rectangle receives the QR code, same name as the HTML placeholder. */
+    public static final String QR_FIELD = CompiledTemplate.QR_IMAGE_PLACEHOLDER;
+
+    private final byte[] pdf;
+    private final List<String> fieldNames;
+    private final int qrPage;
+    private final float[] qrArea; // x, y, width, height; null without a QR field
+
+    private PdfFormTemplate(byte[] pdf, List<String> fieldNames, int qrPage, float[] qrArea) {
+        this.pdf = pdf;
+        this.fieldNames = List.copyOf(fieldNames);
+        this.qrPage = qrPage;
+        this.qrArea = qrArea;
+    }
+
+    /**
+     * Decodes and inspects a base64 PDF as stored in template content.
+     *
+     * @throws IllegalArgumentException if it is not a PDF with form fields
+     */
+    public static PdfFormTemplate parse(String base64Content) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(stripDataUrl(base64Content));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("PDF template content must be base64 encoded");
+        }
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)))) {
+            PdfAcroForm acroForm = PdfAcroForm.getAcroForm(document, false);
+            if (acroForm == null || acroForm.getFormFields().isEmpty()) {
+                throw new IllegalArgumentException("PDF template has no form fields");
+            }
+
+            List<String> fieldNames = new ArrayList<>();
+            for (String name : acroForm.getFormFields().keySet()) {
+                if (!QR_FIELD.equals(name)) {
+                    fieldNames.add(name);
+                }
+            }
+
+            int qrPage = 0;
+            float[] qrArea = null;
+            PdfFormField qrField = acroForm.getField(QR_FIELD);
+            if (qrField != null && !qrField.getWidgets().isEmpty()) {
+                PdfWidgetAnnotation widget = qrField.getWidgets().get(0);
+                Rectangle rect = widget.getRectangle().toRectangle();
+                qrPage = pageOf(document, widget);
+                qrArea = new float[] {rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()};
+            }
+            return new PdfFormTemplate(bytes, fieldNames, qrPage, qrArea);
+        } catch (IOException | PdfException e) {
+            throw new IllegalArgumentException("PDF template could not be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Normalized storage form: plain base64 without data URL prefix or line breaks.
+     */
+    public static String normalize(String base64Content) {
+        return stripDataUrl(base64Content).replaceAll("\\s", "");
+    }
+
+    public byte[] pdf() {
+        return pdf;
+    }
+
+    /** Fillable fields, excluding the QR field; these are the template's placeholders. */
+    public List<String> fieldNames() {
+        return fieldNames;
+    }
+
+    public boolean hasQrField() {
+        return qrArea != null;
+    }
+
+    /** 1-based page number of the QR field. */
+    public int qrPage() {
+        return qrPage;
+    }
+
+    public Rectangle qrArea() {
+        return qrArea == null ? null : new Rectangle(qrArea[0], qrArea[1], qrArea[2], qrArea[3]);
+    }
+
+    private static int pageOf(PdfDocument document, PdfWidgetAnnotation widget) {
+        PdfPage page = widget.getPage();
+        if (page != null) {
+            return document.getPageNumber(page);
+        }
+        // Widgets are not required to point back at their page
+        for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            for (PdfAnnotation annotation : document.getPage(i).getAnnotations()) {
+                if (annotation.getPdfObject() == widget.getPdfObject()) {
+                    return i;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static String stripDataUrl(String content) {
+        int comma = content.indexOf(',');
+        return content.startsWith("data:") && comma > 0 ? content.substring(comma + 1) : content;
+    }
+}
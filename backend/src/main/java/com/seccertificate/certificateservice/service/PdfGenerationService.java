@@ -1,47 +1,96 @@
 package com.seccertificate.certificateservice.service;
 
-import com.itextpdf.html2pdf.ConverterProperties;
-import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.OverflowPropertyValue;
+import com.itextpdf.layout.properties.Property;
+import com.itextpdf.layout.properties.TextAlignment;
 import com.seccertificate.certificateservice.entity.Template;
-import com.google.zxing.BarcodeFormat;
+import com.seccertificate.certificateservice.exception.TooManyRequestsException;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-import com.itextpdf.io.image.ImageData;
-import com.itextpdf.io.image.ImageDataFactory;
-import com.itextpdf.layout.element.Image;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
 public class PdfGenerationService {
     
+    private final Map<Template.Renderer, RenderEngine> renderEngines = new EnumMap<>(Template.Renderer.class);
+    
+    @Value("${app.rendering.default-engine:ITEXT}")
+    private Template.Renderer defaultRenderer;
+    
+    private final RenderResources renderResources;
+    private final RenderLimiter renderLimiter;
+    
+    @Autowired
+    public PdfGenerationService(List<RenderEngine> engines, RenderResources renderResources, RenderLimiter renderLimiter) {
+        engines.forEach(engine -> renderEngines.put(engine.renderer(), engine));
+        this.renderResources = renderResources;
+        this.renderLimiter = renderLimiter;
+    }
+    
+    /** Renders without a concurrency limit (tests and benchmarks). */
+    public PdfGenerationService(List<RenderEngine> engines, RenderResources renderResources) {
+        this(engines, renderResources, null);
+    }
+    
     @Value("${app.certificate.storage-path:./certificates}")
     private String storagePath;
     
     @Value("${app.frontend.url:http://localhost:4200}")
     private String frontendUrl;
     
-    public String generateCertificatePdf(Template template, Map<String, String> data, String uniqueId, String qrCodeUrl) 
-            throws IOException {
+    public String generateCertificatePdf(CompiledTemplate template, Template.Renderer renderer, boolean stamped,
+                                         Map<String, String> data, String uniqueId, String qrCodeUrl) throws IOException {
+        try (RenderLimiter.Permit permit = renderPermit()) {
+            return writeCertificatePdf(template, renderer, stamped, data, uniqueId, qrCodeUrl);
+        }
+    }
+    
+    // Null without a limiter; try-with-resources skips closing a null resource. Scheduled work
+    // waits for a slot, since it was accepted already; synchronous requests fail fast with 429
+    private RenderLimiter.Permit renderPermit() {
+        if (renderLimiter == null) {
+            return null;
+        }
+        return GenerationScheduler.isWorkerThread() ? renderLimiter.acquireQueued() : renderLimiter.acquire();
+    }
+    
+    private String writeCertificatePdf(CompiledTemplate template, Template.Renderer renderer, boolean stamped,
+                                       Map<String, String> data, String uniqueId, String qrCodeUrl) throws IOException {
         
         // Create storage directory if it doesn't exist
         Path directoryPath = Paths.get(storagePath);
@@ -49,58 +98,283 @@ public class PdfGenerationService {
             Files.createDirectories(directoryPath);
         }
         
-        // Replace placeholders in template
-        String processedContent = replacePlaceholders(template.getTemplateContent(), data);
-        
         // Generate PDF file path
         String fileName = String.format("certificate_%s.pdf", uniqueId);
         String filePath = Paths.get(storagePath, fileName).toString();
         
         // Generate PDF (embed QR code in the left corner)
         if (template.getType() == Template.TemplateType.HTML) {
-            generatePdfFromHtml(processedContent, filePath, uniqueId, qrCodeUrl);
+            generatePdfFromHtml(template, renderer, stamped, data, filePath, uniqueId, qrCodeUrl);
+        } else if (template.getPdfForm() != null) {
+            try (FileOutputStream fos = new FileOutputStream(filePath)) {
+                fillPdfForm(template.getPdfForm(), data, uniqueId, qrCodeUrl, fos);
+            }
+        } else if (template.getJsonLayout() != null) {
+            try (FileOutputStream fos = new FileOutputStream(filePath)) {
+                renderJsonLayout(template.getJsonLayout(), data, uniqueId, qrCodeUrl, fos);
+            }
         } else {
-            generateSimplePdf(processedContent, filePath, uniqueId, qrCodeUrl);
+            generateSimplePdf(template.render(data, uniqueId, null), filePath, uniqueId, qrCodeUrl);
         }
         
         log.info("Certificate PDF generated: {}", filePath);
         return filePath;
     }
     
-    private void generatePdfFromHtml(String htmlContent, String outputPath, String uniqueId, String qrCodeUrl) 
+    private void generatePdfFromHtml(CompiledTemplate template, Template.Renderer renderer, boolean stamped,
+                                     Map<String, String> data, String outputPath, String uniqueId, String qrCodeUrl)
             throws IOException {
+        RenderEngine engine = renderEngine(renderer);
+        if (stamped) {
+            Optional<StampedTemplate> layer = template.stampedLayer(engine.renderer(), r -> StampedTemplate.build(template, engine, renderResources.fontSet()));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (layer.isPresent() && stamp(layer.get(), data, uniqueId, qrCodeUrl, out)) {
+                Files.write(Paths.get(outputPath), out.toByteArray());
+                return;
+            }
+        }
         
-        // Add watermark and unique ID to HTML
-        String enhancedHtml = addWatermarkToHtml(htmlContent, uniqueId);
-
-        // If template author placed a placeholder `{{qr_image}}` in HTML, replace it with an inline base64 PNG
-        if (qrCodeUrl != null && !qrCodeUrl.isBlank()) {
+        // Watermark, placeholders and QR slots were laid out when the template version was compiled
+        String qrHtml = null;
+        if (qrCodeUrl != null && !qrCodeUrl.isBlank() && template.hasQrSlot()) {
             try {
-                String qrBase64 = generateQrBase64(qrCodeUrl, 200);
-                String inlineImg = String.format("<img src=\"data:image/png;base64,%s\" style=\"width:100px;height:100px;\"/>", qrBase64);
-
-                if (enhancedHtml.contains("{{qr_image}}")) {
-                    enhancedHtml = enhancedHtml.replace("{{qr_image}}", inlineImg);
-                } else {
-                    // Fallback: embed QR at fixed top-left position if placeholder not present
-                    String qrImg = String.format("<img src=\"data:image/png;base64,%s\" style=\"position: fixed; left: 10px; top: 10px; width: 100px; height: 100px; z-index:9999;\"/>", qrBase64);
-                    if (enhancedHtml.contains("</body>")) {
-                        enhancedHtml = enhancedHtml.replace("</body>", qrImg + "</body>");
-                    } else {
-                        enhancedHtml = qrImg + enhancedHtml;
-                    }
-                }
+                QrCode qr = QrCode.encode(qrCodeUrl);
+                qrHtml = engine.supportsInlineSvg()
+                        ? CompiledTemplate.qrSvg(qr)
+                        : CompiledTemplate.qrImage(Base64.getEncoder().encodeToString(qr.png(200)));
             } catch (WriterException e) {
                 log.warn("Failed to generate QR code for PDF: {}", e.getMessage());
             }
         }
+        String html = template.render(data, uniqueId, qrHtml);
         
         try (FileOutputStream fos = new FileOutputStream(outputPath)) {
-            ConverterProperties converterProperties = new ConverterProperties();
-            HtmlConverter.convertToPdf(enhancedHtml, fos, converterProperties);
+            engine.render(html, fos);
+        }
+    }
+    
+    /**
+     * Draws one certificate onto the static layer of a stamped HTML template: only the runs
+     * holding placeholders, the QR code and nothing else. Returns {@code false}, without writing,
+     * when these values would not look exactly like the full render; the caller then renders
+     * the HTML instead.
+     */
+    public boolean stamp(StampedTemplate layer, Map<String, String> data, String uniqueId, String qrCodeUrl,
+                         OutputStream out) throws IOException {
+        List<String> texts = layer.fieldTexts(data, uniqueId);
+        if (texts == null) {
+            return false;
+        }
+        QrCode qr = null;
+        if (!layer.qrAreas().isEmpty() && qrCodeUrl != null && !qrCodeUrl.isBlank()) {
+            try {
+                qr = QrCode.encode(qrCodeUrl);
+            } catch (WriterException e) {
+                log.warn("Failed to generate QR code for stamped PDF: {}", e.getMessage());
+            }
+        }
+        
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(layer.staticLayer())), new PdfWriter(out))) {
+            Map<String, PdfFont> fonts = new HashMap<>();
+            Map<Integer, PdfCanvas> canvases = new HashMap<>();
+            for (int i = 0; i < texts.size(); i++) {
+                StampedTemplate.Field field = layer.fields().get(i);
+                StampedTemplate.FieldFont fieldFont = field.font();
+                PdfFont font = fonts.computeIfAbsent(fieldFont.name(), name -> PdfFontFactory.createFont(fieldFont.program(),
+                        fieldFont.encoding(), fieldFont.embedded()
+                                ? PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED
+                                : PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED));
+                String text = texts.get(i);
+                float x = switch (field.anchor()) {
+                    case LEFT -> field.x();
+                    case CENTER -> field.x() - font.getWidth(text, field.fontSize()) / 2;
+                    case RIGHT -> field.x() - font.getWidth(text, field.fontSize());
+                };
+                canvases.computeIfAbsent(field.page(), page -> overlay(pdf.getPage(page)))
+                        .saveState()
+                        .beginText()
+                        .setFontAndSize(font, field.fontSize())
+                        .setFillColor(field.color())
+                        .moveText(x, field.baseline())
+                        .showText(text)
+                        .endText()
+                        .restoreState();
+            }
+            if (qr != null) {
+                for (StampedTemplate.QrArea area : layer.qrAreas()) {
+                    qr.draw(canvases.computeIfAbsent(area.page(), page -> overlay(pdf.getPage(page))),
+                            new Rectangle(area.x(), area.y(), area.width(), area.height()));
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Engine for a template's renderer setting; {@code null} selects {@code app.rendering.default-engine}.
+     */
+    public RenderEngine renderEngine(Template.Renderer renderer) {
+        Template.Renderer selected = renderer != null ? renderer : defaultRenderer;
+        RenderEngine engine = renderEngines.get(selected);
+        if (engine == null) {
+            throw new IllegalStateException("No render engine registered for " + selected);
+        }
+        return engine;
+    }
+    
+    /**
+     * Fills and flattens a PDF form template. The design is already laid out, so this is much
+     * cheaper than HTML conversion. The QR code is drawn into the {@code qr_image} field's
+     * rectangle and the certificate ID in the bottom-right corner of the first page.
+     */
+    public void fillPdfForm(PdfFormTemplate form, Map<String, String> data, String uniqueId, String qrCodeUrl,
+                            OutputStream out) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(form.pdf())), new PdfWriter(out))) {
+            PdfAcroForm acroForm = PdfAcroForm.getAcroForm(pdf, false);
+            Map<String, PdfFormField> fields = acroForm.getFormFields();
+            if (data != null) {
+                for (String name : form.fieldNames()) {
+                    String value = data.get(name);
+                    PdfFormField field = fields.get(name);
+                    if (value != null && field != null) {
+                        field.setValue(value);
+                    }
+                }
+            }
+            if (form.hasQrField()) {
+                acroForm.removeField(PdfFormTemplate.QR_FIELD);
+            }
+            acroForm.flattenFields();
+            
+            if (form.hasQrField() && qrCodeUrl != null && !qrCodeUrl.isBlank()) {
+                try {
+                    Rectangle area = form.qrArea();
+                    float side = Math.min(area.getWidth(), area.getHeight());
+                    Rectangle square = new Rectangle(area.getX(), area.getTop() - side, side, side);
+                    QrCode.encode(qrCodeUrl).draw(overlay(pdf.getPage(form.qrPage())), square);
+                } catch (WriterException e) {
+                    log.warn("Failed to generate QR code for PDF form: {}", e.getMessage());
+                }
+            }
+            
+            stampCertificateId(pdf.getFirstPage(), uniqueId);
+        }
+    }
+    
+    /**
+     * Draws a JSON layout template straight onto PDF pages with the iText layout API: no HTML or
+     * CSS is parsed, only placeholders are substituted into the pre-split text boxes.
+     */
+    public void renderJsonLayout(JsonLayoutTemplate layout, Map<String, String> data, String uniqueId, String qrCodeUrl,
+                                 OutputStream out) throws IOException {
+        QrCode qrCode = null;
+        if (qrCodeUrl != null && !qrCodeUrl.isBlank()) {
+            try {
+                qrCode = QrCode.encode(qrCodeUrl);
+            } catch (WriterException e) {
+                log.warn("Failed to generate QR code for JSON layout: {}", e.getMessage());
+            }
+        }
+        
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            // Fonts belong to a document, so each render creates the ones it uses
+            Map<String, PdfFont> fonts = new HashMap<>();
+            Rectangle pageSize = layout.pageSize();
+            
+            for (JsonLayoutTemplate.Page layoutPage : layout.pages()) {
+                PdfPage page = pdf.addNewPage(layout.pageSize());
+                PdfCanvas pdfCanvas = new PdfCanvas(page);
+                if (layoutPage.background() != null) {
+                    pdfCanvas.saveState().setFillColor(layoutPage.background()).rectangle(pageSize).fill().restoreState();
+                }
+                try (Canvas canvas = new Canvas(pdfCanvas, pageSize)) {
+                    for (JsonLayoutTemplate.Element element : layoutPage.elements()) {
+                        if (element instanceof JsonLayoutTemplate.TextBox text) {
+                            Paragraph paragraph = new Paragraph(text.text().render(data, uniqueId, null))
+                                    .setFont(fonts.computeIfAbsent(text.font(), PdfGenerationService::standardFont))
+                                    .setFontSize(text.fontSize())
+                                    .setFontColor(text.color())
+                                    .setTextAlignment(text.align())
+                                    .setMargin(0)
+                                    .setHeight(text.height())
+                                    .setFixedPosition(text.x(), bottom(pageSize, text.y(), text.height()), text.width());
+                            // Longer values than the designer planned for still print, past the box
+                            paragraph.setProperty(Property.OVERFLOW_Y, OverflowPropertyValue.VISIBLE);
+                            canvas.add(paragraph);
+                        } else if (element instanceof JsonLayoutTemplate.ImageBox image) {
+                            pdfCanvas.addImageFittedIntoRectangle(image.image(),
+                                    new Rectangle(image.x(), bottom(pageSize, image.y(), image.height()), image.width(), image.height()),
+                                    false);
+                        } else if (element instanceof JsonLayoutTemplate.QrBox qr) {
+                            drawQr(pdfCanvas, pageSize, qr, qrCode);
+                        } else if (element instanceof JsonLayoutTemplate.RectBox rect) {
+                            drawRect(pdfCanvas, pageSize, rect);
+                        }
+                    }
+                }
+            }
+            
+            if (!layout.hasQrElement()) {
+                drawQr(overlay(pdf.getFirstPage()), pageSize, JsonLayoutTemplate.DEFAULT_QR, qrCode);
+            }
+            stampCertificateId(pdf.getFirstPage(), uniqueId);
+        }
+    }
+    
+    // Layout coordinates are measured from the top of the page, PDF coordinates from the bottom
+    private static float bottom(Rectangle pageSize, float top, float height) {
+        return pageSize.getHeight() - top - height;
+    }
+    
+    private static void drawQr(PdfCanvas pdfCanvas, Rectangle pageSize, JsonLayoutTemplate.QrBox qr, QrCode qrCode) {
+        if (qrCode != null) {
+            qrCode.draw(pdfCanvas, new Rectangle(qr.x(), bottom(pageSize, qr.y(), qr.size()), qr.size(), qr.size()));
+        }
+    }
+    
+    private static void drawRect(PdfCanvas pdfCanvas, Rectangle pageSize, JsonLayoutTemplate.RectBox rect) {
+        pdfCanvas.saveState()
+                .setLineWidth(rect.lineWidth())
+                .rectangle(rect.x(), bottom(pageSize, rect.y(), rect.height()), rect.width(), rect.height());
+        if (rect.fill() != null) {
+            pdfCanvas.setFillColor(rect.fill());
+        }
+        if (rect.stroke() != null) {
+            pdfCanvas.setStrokeColor(rect.stroke());
+        }
+        if (rect.fill() != null && rect.stroke() != null) {
+            pdfCanvas.fillStroke();
+        } else if (rect.fill() != null) {
+            pdfCanvas.fill();
+        } else {
+            pdfCanvas.stroke();
+        }
+        pdfCanvas.restoreState();
+    }
+    
+    private static PdfFont standardFont(String name) {
+        try {
+            return PdfFontFactory.createFont(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
     
+    private static void stampCertificateId(PdfPage page, String uniqueId) {
+        Rectangle pageSize = page.getPageSize();
+        try (Canvas canvas = new Canvas(overlay(page), pageSize)) {
+            canvas.showTextAligned(new Paragraph("Certificate ID: " + uniqueId)
+                            .setFontSize(8)
+                            .setFontColor(ColorConstants.LIGHT_GRAY),
+                    pageSize.getRight() - 10, pageSize.getBottom() + 10, TextAlignment.RIGHT);
+        }
+    }
+    
+    // Separate content stream, so the page's own graphics state cannot leak into what we draw
+    private static PdfCanvas overlay(PdfPage page) {
+        return new PdfCanvas(page.newContentStreamAfter(), page.getResources(), page.getDocument());
+    }
+    
     private void generateSimplePdf(String content, String outputPath, String uniqueId, String qrCodeUrl) 
             throws IOException {
         
@@ -119,19 +393,13 @@ public class PdfGenerationService {
                     .setFontSize(8)
                     .setItalic());
 
-            // Add QR code image at top-left if provided
+            // Add QR code at top-left if provided
             if (qrCodeUrl != null && !qrCodeUrl.isBlank()) {
                 try {
-                    String qrBase64 = generateQrBase64(qrCodeUrl, 200);
-                    byte[] imgBytes = Base64.getDecoder().decode(qrBase64);
-                    ImageData imgData = ImageDataFactory.create(imgBytes);
-                    Image img = new Image(imgData);
                     // position near top-left (1 inch margin = 72 units)
                     float x = 36f;
                     float y = pdf.getDefaultPageSize().getHeight() - 36f - 100f; // top minus height
-                    img.setFixedPosition(x, y);
-                    img.scaleToFit(100f, 100f);
-                    document.add(img);
+                    QrCode.encode(qrCodeUrl).draw(overlay(pdf.getFirstPage()), new Rectangle(x, y, 100f, 100f));
                 } catch (WriterException e) {
                     log.warn("Failed to generate QR code for simple PDF: {}", e.getMessage());
                 }
@@ -148,31 +416,30 @@ public class PdfGenerationService {
         return result;
     }
     
-    private String addWatermarkToHtml(String html, String uniqueId) {
-        // Add unique ID watermark to HTML
-        String watermark = String.format(
-            "<div style='position: fixed; bottom: 10px; right: 10px; font-size: 8px; color: #ccc;'>" +
-            "Certificate ID: %s</div>", uniqueId);
-        
-        if (html.contains("</body>")) {
-            return html.replace("</body>", watermark + "</body>");
-        }
-        return html + watermark;
+    /**
+     * Verification URL for the QR code, pointing to the frontend's compact-token route. Scheme and
+     * host are upper-cased (both are case-insensitive) so that, with the Base32 token, a URL without
+     * a base path fits the QR alphanumeric mode and a lower QR version.
+     */
+    public String generateQRCode(String verificationToken) {
+        String base = frontendUrl != null && !frontendUrl.isBlank() ? frontendUrl.replaceAll("/+$", "") : "http://localhost:4200";
+        int path = base.indexOf('/', base.indexOf("://") + 3);
+        String origin = path < 0 ? base : base.substring(0, path);
+        return origin.toUpperCase(Locale.ROOT) + base.substring(origin.length()) + "/V/" + verificationToken;
     }
-
-    private String generateQrBase64(String text, int size) throws WriterException, IOException {
-        QRCodeWriter qrWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrWriter.encode(text, BarcodeFormat.QR_CODE, size, size);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", baos);
-        return Base64.getEncoder().encodeToString(baos.toByteArray());
+    
+    /**
+     * Starts the single PDF of a batch; see {@link MergedPdf}.
+     */
+    public MergedPdf openMergedPdf(Long customerId, String batchId) throws IOException {
+        Files.createDirectories(Paths.get(storagePath));
+        return new MergedPdf(mergedPdfPath(customerId, batchId));
     }
     
-    public String generateQRCode(String uniqueId, Long customerId, String digitalSignature) {
-        // Generate verification URL for QR code pointing to frontend verify route
-        String encodedSignature = URLEncoder.encode(digitalSignature, StandardCharsets.UTF_8);
-        String base = frontendUrl != null && !frontendUrl.isBlank() ? frontendUrl.replaceAll("/+$", "") : "http://localhost:4200";
-        return String.format("%s/verify/%s?customer=%d&signature=%s", base, uniqueId, customerId, encodedSignature);
+    public Path mergedPdfPath(Long customerId, String batchId) {
+        // The ID becomes part of a file name, so only accept UUIDs
+        String id = UUID.fromString(batchId).toString();
+        return Paths.get(storagePath, String.format("batch_%d_%s.pdf", customerId, id));
     }
     
     public byte[] readCertificateFile(String filePath) throws IOException {
@@ -184,6 +451,14 @@ public class PdfGenerationService {
      * Generate PDF from HTML content with placeholder replacement (for simulation/preview)
      */
     public byte[] generatePdfFromHtmlContent(String htmlContent, Map<String, String> placeholderValues) throws IOException {
+        return generatePdfFromHtmlContent(htmlContent, placeholderValues, null);
+    }
+    
+    /**
+     * Same as {@link #generatePdfFromHtmlContent(String, Map)}, rendered with the given engine
+     */
+    public byte[] generatePdfFromHtmlContent(String htmlContent, Map<String, String> placeholderValues,
+                                             Template.Renderer renderer) throws IOException {
         try {
             // Replace placeholders with actual values
             String processedHtml = replacePlaceholders(htmlContent, placeholderValues);
@@ -191,13 +466,15 @@ public class PdfGenerationService {
             // Add CSS to ensure proper rendering
             String styledHtml = wrapHtmlWithStyles(processedHtml);
             
-            // Generate PDF using iText
+            // Generate PDF with the template's engine
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ConverterProperties converterProperties = new ConverterProperties();
-            
-            HtmlConverter.convertToPdf(styledHtml, outputStream, converterProperties);
+            try (RenderLimiter.Permit permit = renderPermit()) {
+                renderEngine(renderer).render(styledHtml, outputStream);
+            }
             
             return outputStream.toByteArray();
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error generating PDF from HTML", e);
             throw new IOException("Failed to generate PDF: " + e.getMessage(), e);
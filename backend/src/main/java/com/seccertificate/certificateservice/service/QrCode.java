@@ -0,0 +1,110 @@
+package com.seccertificate.certificateservice.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A verification QR code as its module grid, quiet zone included. Drawn as vector shapes, so no
+ * raster image is encoded, embedded or decoded on the way into the PDF.
+ */
+public final class QrCode {
+
+    // Stateless and thread-safe; the hints are what QRCodeWriter uses by default
+    private static final QRCodeWriter WRITER = new QRCodeWriter();
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+        EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L,
+        EncodeHintType.MARGIN, 4);
+
+    private final String text;
+    private final BitMatrix modules;
+
+    private QrCode(String text, BitMatrix modules) {
+        this.text = text;
+        this.modules = modules;
+    }
+
+    public static QrCode encode(String text) throws WriterException {
+        // Size 0 yields one cell per module
+        return new QrCode(text, WRITER.encode(text, BarcodeFormat.QR_CODE, 0, 0, HINTS));
+    }
+
+    /** Modules per side, quiet zone included. */
+    public int size() {
+        return modules.getWidth();
+    }
+
+    /**
+     * Fills {@code area} with the code: a white square, then every row's dark runs as rectangles
+     * in a single path.
+     */
+    public void draw(PdfCanvas canvas, Rectangle area) {
+        int size = size();
+        float moduleWidth = area.getWidth() / size;
+        float moduleHeight = area.getHeight() / size;
+        canvas.saveState()
+                .setFillColor(ColorConstants.WHITE)
+                .rectangle(area)
+                .fill()
+                .setFillColor(ColorConstants.BLACK);
+        for (int y = 0; y < size; y++) {
+            float bottom = area.getTop() - (y + 1) * moduleHeight;
+            for (int x = 0; x < size; x++) {
+                int run = run(x, y);
+                if (run > 0) {
+                    canvas.rectangle(area.getX() + x * moduleWidth, bottom, run * moduleWidth, moduleHeight);
+                    x += run;
+                }
+            }
+        }
+        canvas.fill().restoreState();
+    }
+
+    /** Inline SVG element of the given CSS size, for HTML renderers that support it. */
+    public String svg(String cssSize) {
+        int size = size();
+        StringBuilder svg = new StringBuilder(size * size)
+            .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(cssSize)
+            .append("\" height=\"").append(cssSize).append("\" viewBox=\"0 0 ").append(size).append(' ').append(size)
+            .append("\" shape-rendering=\"crispEdges\"><rect width=\"").append(size).append("\" height=\"").append(size)
+            .append("\" fill=\"#ffffff\"/><path fill=\"#000000\" d=\"");
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int run = run(x, y);
+                if (run > 0) {
+                    svg.append('M').append(x).append(' ').append(y)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+                    x += run;
+                }
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+
+    /** PNG of about {@code pixels} square, for renderers that can only show raster images. */
+    public byte[] png(int pixels) throws WriterException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(WRITER.encode(text, BarcodeFormat.QR_CODE, pixels, pixels, HINTS), "PNG", out);
+        return out.toByteArray();
+    }
+
+    // Length of the dark run starting at (x, y), 0 when that module is light
+    private int run(int x, int y) {
+        int end = x;
+        while (end < size() && modules.get(end, y)) {
+            end++;
+        }
+        return end - x;
+    }
+}
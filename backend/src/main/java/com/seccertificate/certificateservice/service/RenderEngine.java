@@ -0,0 +1,21 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.entity.Template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Converts a complete HTML document to PDF. Implementations must be thread-safe.
+ */
+public interface RenderEngine {
+
+    Template.Renderer renderer();
+
+    void render(String html, OutputStream out) throws IOException;
+
+    /** Whether inline {@code <svg>} elements are drawn; otherwise QR codes are embedded as PNG. */
+    default boolean supportsInlineSvg() {
+        return false;
+    }
+}
@@ -0,0 +1,212 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps how many PDFs render at once, adapting the cap to measured render latency instead of a
+ * fixed pool size. Rendering is CPU and allocation bound: past the point where cores are busy,
+ * more concurrent renders only add GC pressure and latency.
+ *
+ * The limit follows a latency gradient. The average latency of each window of renders is
+ * compared with the baseline, the lowest window average seen. While latency stays within
+ * {@code tolerance} of the baseline, the limit grows by about its square root per window. When
+ * latency rises further, the limit shrinks in proportion, by at most half per window. Every
+ * {@value #PROBE_WINDOWS} windows the limit is halved for one window to re-measure the baseline,
+ * so it cannot stay inflated by load. The limit does not grow while less than half of it is in
+ * use, so an idle service does not drift to the maximum. Renders over the limit wait for a
+ * permit. Synchronous requests fail with {@link TooManyRequestsException} if none frees up within
+ * the acquire timeout; work already accepted by the generation scheduler waits as long as needed.
+ *
+ * The current limit is published as {@code render.concurrency.limit}.
+ */
+@Component
+@Slf4j
+public class RenderLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int PROBE_WINDOWS = 50;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long acquireTimeoutMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private double baselineRttNanos;
+    private long windows;
+    private boolean probing;
+    private double lastRttNanos;
+    private long windowRttNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public RenderLimiter(@Value("${app.rendering.concurrency.initial-limit:0}") int initialLimit,
+                         @Value("${app.rendering.concurrency.min-limit:1}") int minLimit,
+                         @Value("${app.rendering.concurrency.max-limit:0}") int maxLimit,
+                         @Value("${app.rendering.concurrency.tolerance:1.5}") double tolerance,
+                         @Value("${app.rendering.concurrency.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+                         MeterRegistry meterRegistry) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit > 0 ? maxLimit : 4 * processors);
+        this.tolerance = tolerance;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.limit = clamp(initialLimit > 0 ? initialLimit : processors);
+
+        Gauge.builder("render.concurrency.limit", this, RenderLimiter::limit)
+            .description("Renders allowed to run at once, adapted to render latency")
+            .register(meterRegistry);
+        Gauge.builder("render.concurrency.in-flight", this, RenderLimiter::inFlight)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Waits up to the acquire timeout for a render slot; close the permit when the render has
+     * finished.
+     *
+     * @throws TooManyRequestsException if no slot frees up in time
+     */
+    public Permit acquire() {
+        return acquire(true);
+    }
+
+    /**
+     * Waits for a render slot without a timeout, for accepted work that must not be dropped.
+     * Close the permit when the render has finished.
+     */
+    public Permit acquireQueued() {
+        return acquire(false);
+    }
+
+    private Permit acquire(boolean timed) {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+            while (inFlight >= (int) limit) {
+                if (!timed) {
+                    released.await();
+                    continue;
+                }
+                if (remaining <= 0) {
+                    long retryAfter = Math.max(1, (long) Math.ceil(lastRttNanos / 1_000_000_000.0));
+                    throw new TooManyRequestsException("Certificate rendering is at capacity, please retry later", retryAfter);
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+            return new Permit(System.nanoTime());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to render", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            sample(rttNanos);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Adds one render latency; every window of samples updates the limit. Called under the lock. */
+    void sample(long rttNanos) {
+        windowRttNanos += rttNanos;
+        windowSamples++;
+        if (windowSamples < Math.max(MIN_WINDOW_SAMPLES, (int) limit)) {
+            return;
+        }
+        double shortRtt = (double) windowRttNanos / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowRttNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = inFlight;
+        lastRttNanos = shortRtt;
+        windows++;
+
+        if (baselineRttNanos == 0 || probing) {
+            baselineRttNanos = shortRtt;
+            probing = false;
+            return;
+        }
+        baselineRttNanos = Math.min(baselineRttNanos, shortRtt);
+        if (windows % PROBE_WINDOWS == 0) {
+            // Re-measure the baseline at half the load, in case it has drifted or the host changed
+            limit = clamp(limit / 2);
+            probing = true;
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRttNanos / shortRtt));
+        double newLimit = limit * gradient + (gradient == 1.0 ? Math.sqrt(limit) : 0);
+        if (newLimit > limit && maxInFlight < limit / 2) {
+            return;
+        }
+        double previous = limit;
+        limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        if ((int) previous != (int) limit) {
+            log.debug("Render concurrency limit {} -> {} (latency {} ms, baseline {} ms)", (int) previous, (int) limit,
+                Math.round(shortRtt / 1_000_000), Math.round(baselineRttNanos / 1_000_000));
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /** One render slot; closing it releases the slot and records the render latency. */
+    public final class Permit implements AutoCloseable {
+
+        private final long startNanos;
+        private boolean closed;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
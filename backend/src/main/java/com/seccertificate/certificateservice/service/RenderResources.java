@@ -0,0 +1,112 @@
+package com.seccertificate.certificateservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.styledxmlparser.resolver.resource.DefaultResourceRetriever;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * Rendering resources shared by all render threads, so certificates do not each pay for them.
+ *
+ * Fonts are scanned once into a {@link FontSet}; iText font providers keep per-document state,
+ * so every render gets a new, cheap {@link FontProvider} over that set. Resources fetched by URL
+ * (images, stylesheets, fonts) are cached as bytes.
+ */
+@Component
+@Slf4j
+public class RenderResources {
+
+    private final FontSet fontSet;
+    private final String defaultFontFamily;
+    private final IResourceRetriever resourceRetriever;
+
+    public RenderResources(@Value("${app.rendering.fonts.system:false}") boolean systemFonts,
+                           @Value("${app.rendering.fonts.directory:}") String fontDirectory,
+                           @Value("${app.rendering.resource-cache.maximum-size:32MB}") DataSize maximumSize,
+                           @Value("${app.rendering.resource-cache.ttl:1h}") Duration ttl) {
+        long start = System.nanoTime();
+        // Same fonts html2pdf loads by default: standard PDF fonts and the ones it ships with
+        DefaultFontProvider fonts = new DefaultFontProvider(true, true, systemFonts);
+        if (fontDirectory != null && !fontDirectory.isBlank()) {
+            fonts.addDirectory(fontDirectory);
+        }
+        this.fontSet = fonts.getFontSet();
+        this.defaultFontFamily = fonts.getDefaultFontFamily();
+        this.resourceRetriever = new CachingResourceRetriever(maximumSize, ttl);
+        log.info("Loaded {} fonts for rendering in {} ms", fontSet.getFonts().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Fonts available to templates. Read-only after startup, safe to share. */
+    public FontSet fontSet() {
+        return fontSet;
+    }
+
+    /** A provider for one document. */
+    public FontProvider fontProvider() {
+        return new FontProvider(fontSet, defaultFontFamily);
+    }
+
+    public IResourceRetriever resourceRetriever() {
+        return resourceRetriever;
+    }
+
+    /** Converter settings for one html2pdf conversion. */
+    public ConverterProperties converterProperties() {
+        return new ConverterProperties()
+                .setFontProvider(fontProvider())
+                .setResourceRetriever(resourceRetriever);
+    }
+
+    /**
+     * Keeps the bytes of fetched resources, bounded by total size. Failures are not cached.
+     */
+    static final class CachingResourceRetriever implements IResourceRetriever {
+
+        private final IResourceRetriever delegate = new DefaultResourceRetriever();
+        private final Cache<String, byte[]> resources;
+
+        CachingResourceRetriever(DataSize maximumSize, Duration ttl) {
+            this.resources = Caffeine.newBuilder()
+                    .maximumWeight(maximumSize.toBytes())
+                    .weigher((String url, byte[] bytes) -> bytes.length)
+                    .expireAfterWrite(ttl)
+                    .build();
+        }
+
+        @Override
+        public InputStream getInputStreamByUrl(URL url) throws IOException {
+            byte[] bytes = getByteArrayByUrl(url);
+            return bytes != null ? new ByteArrayInputStream(bytes) : null;
+        }
+
+        @Override
+        public byte[] getByteArrayByUrl(URL url) throws IOException {
+            try {
+                return resources.get(url.toExternalForm(), key -> {
+                    try {
+                        return delegate.getByteArrayByUrl(url);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
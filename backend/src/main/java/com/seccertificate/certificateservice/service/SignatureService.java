@@ -8,6 +8,9 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Map;
 
@@ -43,10 +46,33 @@ public class SignatureService {
         return calculated.equals(providedSignature);
     }
 
+    /**
+     * Compact token for QR codes, bound to the certificate's full signature and therefore to its data.
+     */
+    public String verificationToken(String uniqueId, String digitalSignature) {
+        return VerificationToken.encode(uniqueId, tokenMac(uniqueId, digitalSignature));
+    }
+
+    public boolean verifyToken(VerificationToken token, String digitalSignature) {
+        byte[] expected = Arrays.copyOf(tokenMac(token.uniqueId(), digitalSignature), VerificationToken.MAC_LENGTH);
+        return MessageDigest.isEqual(expected, token.mac());
+    }
+
     public String getCurrentKeyId() {
         return signatureKeyId;
     }
 
+    private byte[] tokenMac(String uniqueId, String digitalSignature) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGO);
+            mac.init(new SecretKeySpec(signatureSecret.getBytes(), HMAC_ALGO));
+            // Own prefix, so a token MAC is never valid as a certificate signature or the reverse
+            return mac.doFinal(("token:" + uniqueId + ":" + digitalSignature).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute token MAC", e);
+        }
+    }
+
     private String buildPayload(String uniqueId, Map<String, String> data) throws JsonProcessingException {
         String json = objectMapper.writeValueAsString(data == null ? Map.of() : data);
         return uniqueId + ":" + json;
@@ -0,0 +1,598 @@
+package com.seccertificate.certificateservice.service;
+
+import com.itextpdf.io.font.FontEncoding;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.otf.Glyph;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceCmyk;
+import com.itextpdf.kernel.colors.DeviceGray;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.Matrix;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfOutputStream;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.ImageRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.font.FontInfo;
+import com.itextpdf.layout.font.FontSet;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An HTML template version split into a static layer, rendered once by the template's engine,
+ * and the text runs holding placeholders, which are drawn per certificate at positions measured
+ * from that render.
+ *
+ * The template is rendered with every placeholder replaced by a short and by a long marker.
+ * Comparing the two shows how each run is anchored (left, centre or right) and proves that no
+ * other content moves with the placeholder values. The short render, with the marker runs
+ * removed, becomes the static layer: one Form XObject per page. Templates where stamping could
+ * differ from the full render (placeholders in attributes, text that reflows, fonts we cannot
+ * reproduce, ...) are not stamped at all, and {@link #fieldTexts} turns down individual
+ * certificates whose values would lay out differently.
+ */
+@Slf4j
+public final class StampedTemplate {
+
+    /** Name the certificate ID is substituted under in field texts; "@" keeps it out of user placeholders. */
+    static final String ID_PLACEHOLDER = "@id";
+
+    // Mixed case, so a CSS text-transform shows up as a missing marker
+    private static final Pattern MARKER = Pattern.compile("Qx([a-m]+)(n*)xQ");
+    private static final int LONG_MARKER_PADDING = 32;
+    private static final float TOLERANCE = 0.5f;
+
+    // Odd pixel size, so the QR stand-in can be told apart from the template's own images
+    private static final int QR_MARKER_WIDTH = 3;
+    private static final int QR_MARKER_HEIGHT = 7;
+    private static final String QR_MARKER_PNG = transparentPng(QR_MARKER_WIDTH, QR_MARKER_HEIGHT);
+
+    private static final Set<String> TEXT_OPERATORS = Set.of("Tj", "TJ");
+    private static final FontEncoding WIN_ANSI = FontEncoding.createFontEncoding(PdfEncodings.WINANSI);
+
+    public enum Anchor {
+        LEFT, CENTER, RIGHT
+    }
+
+    /** Font a field is drawn with; programs are immutable and shared, {@code PdfFont}s are per document. */
+    public record FieldFont(String name, FontProgram program, String encoding, boolean embedded) {
+    }
+
+    /**
+     * A run of text holding placeholders. {@code x} is the anchor point; {@code maxWidth} is
+     * the widest run proven not to reflow.
+     */
+    public record Field(int page, Anchor anchor, float x, float baseline, float maxWidth, FieldFont font,
+                        float fontSize, Color color, CompiledTemplate text) {
+    }
+
+    public record QrArea(int page, float x, float y, float width, float height) {
+    }
+
+    private final byte[] staticLayer;
+    private final List<Field> fields;
+    private final List<QrArea> qrAreas;
+
+    private StampedTemplate(byte[] staticLayer, List<Field> fields, List<QrArea> qrAreas) {
+        this.staticLayer = staticLayer;
+        this.fields = List.copyOf(fields);
+        this.qrAreas = List.copyOf(qrAreas);
+    }
+
+    /** PDF whose pages each place their static content as a single Form XObject. */
+    public byte[] staticLayer() {
+        return staticLayer;
+    }
+
+    public List<Field> fields() {
+        return fields;
+    }
+
+    public List<QrArea> qrAreas() {
+        return qrAreas;
+    }
+
+    /**
+     * Splits a compiled HTML template rendered by {@code engine}, or returns empty when
+     * stamping it could not reproduce the full render. Embedded fonts are looked up in
+     * {@code fonts}, the set the engine renders with.
+     */
+    public static Optional<StampedTemplate> build(CompiledTemplate template, RenderEngine engine, FontSet fonts) {
+        try {
+            return Optional.of(split(template, engine, fonts));
+        } catch (NotStampable e) {
+            log.info("Template is rendered in full, it cannot be stamped: {}", e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to build static layer, rendering in full: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Texts of all fields for one certificate, or {@code null} if any value would not lay out
+     * exactly as in the measured render: markup or line breaks in a value, glyphs the font
+     * lacks, or a run wider than was proven not to wrap.
+     */
+    public List<String> fieldTexts(Map<String, String> data, String uniqueId) {
+        if (data != null && data.containsKey(CompiledTemplate.QR_IMAGE_PLACEHOLDER) && !qrAreas.isEmpty()) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>(data != null ? data : Map.of());
+        values.put(ID_PLACEHOLDER, uniqueId);
+
+        List<String> texts = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            for (CompiledTemplate.Segment segment : field.text().getSegments()) {
+                String value = values.get(segment.value());
+                if (segment.type() == CompiledTemplate.SegmentType.PLACEHOLDER && value != null
+                        && value.chars().anyMatch(c -> c == '<' || c == '&' || c == '\n' || c == '\r' || c == '\t')) {
+                    return null;
+                }
+            }
+            String text = field.text().render(values, uniqueId, null);
+            if (text.isEmpty() || text.contains("  ") || Character.isWhitespace(text.charAt(0))
+                    || Character.isWhitespace(text.charAt(text.length() - 1))) {
+                return null;
+            }
+            float width = width(field.font(), text, field.fontSize());
+            if (width < 0 || width > field.maxWidth() + TOLERANCE) {
+                return null;
+            }
+            texts.add(text);
+        }
+        return texts;
+    }
+
+    /** Advance width of {@code text}, or -1 if the font cannot show it. */
+    static float width(FieldFont font, String text, float fontSize) {
+        // Standard fonts are not embedded and limited to WinAnsi; embedded ones show any glyph they have
+        FontEncoding encoding = font.embedded() ? null : WIN_ANSI;
+        float units = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            Glyph glyph = font.program().getGlyph(codePoint);
+            if (glyph == null || (encoding != null && !encoding.canEncode(codePoint))) {
+                return -1;
+            }
+            units += glyph.getWidth();
+        }
+        return units * fontSize / 1000f;
+    }
+
+    private static StampedTemplate split(CompiledTemplate template, RenderEngine engine, FontSet fonts) throws IOException {
+        // One marker code per placeholder name, plus one for the certificate ID in the watermark
+        Map<String, String> codes = new LinkedHashMap<>();
+        Map<String, Integer> expected = new HashMap<>();
+        int qrSlots = 0;
+        for (CompiledTemplate.Segment segment : template.getSegments()) {
+            String name = switch (segment.type()) {
+                case PLACEHOLDER -> segment.value();
+                case WATERMARK -> ID_PLACEHOLDER;
+                default -> null;
+            };
+            if (name != null) {
+                codes.computeIfAbsent(name, n -> code(codes.size()));
+                expected.merge(codes.get(name), 1, Integer::sum);
+            }
+            if (segment.type() == CompiledTemplate.SegmentType.QR_INLINE || segment.type() == CompiledTemplate.SegmentType.QR_FIXED) {
+                qrSlots++;
+            }
+        }
+
+        byte[] shortPdf = render(template, engine, codes, 0);
+        Layout shortLayout = Layout.scan(shortPdf, fonts);
+        Layout longLayout = Layout.scan(render(template, engine, codes, LONG_MARKER_PADDING), fonts);
+
+        if (shortLayout.pages != longLayout.pages || !sameRuns(shortLayout.staticRuns(), longLayout.staticRuns())) {
+            throw new NotStampable("content moves with placeholder values");
+        }
+        if (!sameQrAreas(shortLayout.qrAreas, longLayout.qrAreas) || shortLayout.qrAreas.size() != qrSlots) {
+            throw new NotStampable("QR code position depends on placeholder values");
+        }
+
+        Map<String, String> names = new HashMap<>();
+        codes.forEach((name, code) -> names.put(code, name));
+        List<Run> shortFields = shortLayout.markerRuns();
+        List<Run> longFields = longLayout.markerRuns();
+        if (shortFields.size() != longFields.size()) {
+            throw new NotStampable("placeholder text reflows");
+        }
+
+        Map<String, Integer> found = new HashMap<>();
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < shortFields.size(); i++) {
+            fields.add(field(template, shortFields.get(i), longFields.get(i), names, found));
+        }
+        if (!found.equals(expected)) {
+            throw new NotStampable("placeholders outside of text (attributes, styles or split runs)");
+        }
+
+        byte[] staticLayer = staticLayer(shortPdf);
+        if (!sameRuns(Layout.scan(staticLayer, fonts).runs, shortLayout.staticRuns())) {
+            throw new NotStampable("static layer differs from the full render");
+        }
+        return new StampedTemplate(staticLayer, fields, shortLayout.qrAreas);
+    }
+
+    private static Field field(CompiledTemplate template, Run shortRun, Run longRun, Map<String, String> names,
+                               Map<String, Integer> found) {
+        String pattern = shortRun.text.replaceAll(MARKER.pattern(), "Qx$1xQ");
+        if (!pattern.equals(longRun.text.replaceAll(MARKER.pattern(), "Qx$1xQ"))
+                || shortRun.page != longRun.page || Math.abs(shortRun.baseline - longRun.baseline) > TOLERANCE
+                || !shortRun.font.equals(longRun.font) || Math.abs(shortRun.fontSize - longRun.fontSize) > 0.01f) {
+            throw new NotStampable("placeholder text reflows");
+        }
+        if (!shortRun.plain || shortRun.fieldFont == null) {
+            throw new NotStampable("placeholder text uses spacing, effects or a font that cannot be reproduced: " + shortRun.font);
+        }
+        float measured = shortRun.end - shortRun.start;
+        float computed = width(shortRun.fieldFont, shortRun.text, shortRun.fontSize);
+        if (computed < 0 || Math.abs(measured - computed) > Math.max(TOLERANCE, measured * 0.005f)) {
+            throw new NotStampable("placeholder text is kerned or justified");
+        }
+
+        Anchor anchor;
+        float x;
+        if (Math.abs(shortRun.start - longRun.start) <= TOLERANCE) {
+            anchor = Anchor.LEFT;
+            x = shortRun.start;
+        } else if (Math.abs(shortRun.end - longRun.end) <= TOLERANCE) {
+            anchor = Anchor.RIGHT;
+            x = shortRun.end;
+        } else if (Math.abs((shortRun.start + shortRun.end) - (longRun.start + longRun.end)) <= 2 * TOLERANCE) {
+            anchor = Anchor.CENTER;
+            x = (shortRun.start + shortRun.end) / 2;
+        } else {
+            throw new NotStampable("placeholder text is not left, right or centre aligned");
+        }
+
+        List<CompiledTemplate.Segment> segments = new ArrayList<>();
+        Matcher matcher = MARKER.matcher(shortRun.text);
+        int position = 0;
+        while (matcher.find()) {
+            String name = names.get(matcher.group(1));
+            if (name == null) {
+                throw new NotStampable("unexpected marker text");
+            }
+            found.merge(matcher.group(1), 1, Integer::sum);
+            if (matcher.start() > position) {
+                segments.add(new CompiledTemplate.Segment(CompiledTemplate.SegmentType.TEXT, shortRun.text.substring(position, matcher.start())));
+            }
+            segments.add(new CompiledTemplate.Segment(CompiledTemplate.SegmentType.PLACEHOLDER, name));
+            position = matcher.end();
+        }
+        if (position < shortRun.text.length()) {
+            segments.add(new CompiledTemplate.Segment(CompiledTemplate.SegmentType.TEXT, shortRun.text.substring(position)));
+        }
+
+        return new Field(shortRun.page, anchor, x, shortRun.baseline, longRun.end - longRun.start,
+                shortRun.fieldFont, shortRun.fontSize, shortRun.color, new CompiledTemplate(template.getType(), segments));
+    }
+
+    private static byte[] render(CompiledTemplate template, RenderEngine engine, Map<String, String> codes, int padding)
+            throws IOException {
+        Map<String, String> markers = new HashMap<>();
+        codes.forEach((name, code) -> markers.put(name, marker(code, padding)));
+        String html = template.render(markers, markers.getOrDefault(ID_PLACEHOLDER, ""), CompiledTemplate.qrImage(QR_MARKER_PNG));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.render(html, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Removes the marker runs from each page of the short render and wraps what is left in a
+     * Form XObject, so stamped content starts from a clean graphics state.
+     */
+    private static byte[] staticLayer(byte[] shortPdf) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(shortPdf)));
+             PdfDocument target = new PdfDocument(new PdfWriter(out))) {
+            for (int i = 1; i <= source.getNumberOfPages(); i++) {
+                PdfPage sourcePage = source.getPage(i);
+                Rectangle size = sourcePage.getPageSize();
+                PdfFormXObject layer = new PdfFormXObject(size);
+                layer.getPdfObject().setData(new MarkerTextRemover().edit(sourcePage));
+                layer.getPdfObject().put(PdfName.Resources, sourcePage.getResources().getPdfObject().copyTo(target));
+                new PdfCanvas(target.addNewPage(new PageSize(size))).addXObjectAt(layer, 0, 0);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String code(int index) {
+        StringBuilder code = new StringBuilder();
+        do {
+            code.append((char) ('a' + index % 13));
+            index /= 13;
+        } while (index > 0);
+        return code.toString();
+    }
+
+    private static String marker(String code, int padding) {
+        return "Qx" + code + "n".repeat(padding) + "xQ";
+    }
+
+    private static boolean sameRuns(List<Run> a, List<Run> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            Run x = a.get(i);
+            Run y = b.get(i);
+            if (x.page != y.page || !x.text.equals(y.text) || Math.abs(x.start - y.start) > TOLERANCE
+                    || Math.abs(x.baseline - y.baseline) > TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameQrAreas(List<QrArea> a, List<QrArea> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            QrArea x = a.get(i);
+            QrArea y = b.get(i);
+            if (x.page() != y.page() || Math.abs(x.x() - y.x()) > TOLERANCE || Math.abs(x.y() - y.y()) > TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String transparentPng(int width, int height) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "PNG", out);
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FieldFont fieldFont(TextRenderInfo info, FontSet fonts) {
+        String name = fontName(info);
+        if (!info.getFont().isEmbedded()) {
+            if (!JsonLayoutTemplate.STANDARD_FONTS.contains(name)) {
+                return null;
+            }
+            try {
+                return new FieldFont(name, FontProgramFactory.createFont(name), PdfEncodings.WINANSI, false);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        // Embedded fonts are only reproducible when they come from the engine's font set
+        for (FontInfo font : fonts.getFonts()) {
+            if (font.getDescriptor().getFontName().equalsIgnoreCase(name)) {
+                try {
+                    FontProgram program = font.getFontData() != null
+                            ? FontProgramFactory.createFont(font.getFontData())
+                            : FontProgramFactory.createFont(font.getFontName());
+                    return new FieldFont(name, program, PdfEncodings.IDENTITY_H, true);
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Without the subset tag, which differs between renders
+    private static String fontName(TextRenderInfo info) {
+        return info.getFont().getFontProgram().getFontNames().getFontName().replaceFirst("^[A-Z]{6}\\+", "");
+    }
+
+    private static final class NotStampable extends RuntimeException {
+        NotStampable(String reason) {
+            super(reason);
+        }
+    }
+
+    /** A text-showing operator as drawn: where its baseline starts and ends, and how. */
+    private static final class Run {
+        int page;
+        String text;
+        float start;
+        float end;
+        float baseline;
+        String font;
+        float fontSize;
+        Color color;
+        boolean plain;
+        FieldFont fieldFont;
+    }
+
+    /** Text runs and QR stand-ins of a rendered PDF, in drawing order. */
+    private static final class Layout implements IEventListener {
+        final List<Run> runs = new ArrayList<>();
+        final List<QrArea> qrAreas = new ArrayList<>();
+        int pages;
+        private final FontSet fonts;
+        private int page;
+
+        private Layout(FontSet fonts) {
+            this.fonts = fonts;
+        }
+
+        static Layout scan(byte[] pdf, FontSet fonts) throws IOException {
+            Layout layout = new Layout(fonts);
+            try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+                layout.pages = document.getNumberOfPages();
+                for (int i = 1; i <= layout.pages; i++) {
+                    layout.page = i;
+                    new PdfCanvasProcessor(layout).processPageContent(document.getPage(i));
+                }
+            }
+            return layout;
+        }
+
+        List<Run> staticRuns() {
+            return runs.stream().filter(run -> !MARKER.matcher(run.text).find()).toList();
+        }
+
+        List<Run> markerRuns() {
+            return runs.stream().filter(run -> MARKER.matcher(run.text).find()).toList();
+        }
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (data instanceof TextRenderInfo info) {
+                if (info.getText().isBlank()) {
+                    return;
+                }
+                Matrix matrix = info.getTextMatrix().multiply(info.getGraphicsState().getCtm());
+                Vector start = info.getBaseline().getStartPoint();
+                Vector end = info.getBaseline().getEndPoint();
+                Color color = info.getFillColor();
+
+                Run run = new Run();
+                run.page = page;
+                run.text = info.getText();
+                run.start = start.get(Vector.I1);
+                run.end = end.get(Vector.I1);
+                run.baseline = start.get(Vector.I2);
+                run.font = fontName(info);
+                run.fontSize = info.getFontSize() * matrix.get(Matrix.I11);
+                run.color = color;
+                run.plain = info.getTextRenderMode() == PdfCanvasConstants.TextRenderingMode.FILL
+                        && info.getCharSpacing() == 0 && info.getWordSpacing() == 0 && info.getRise() == 0
+                        && matrix.get(Matrix.I12) == 0 && matrix.get(Matrix.I21) == 0
+                        && Math.abs(matrix.get(Matrix.I11) - matrix.get(Matrix.I22)) < 1e-4f
+                        && info.getGraphicsState().getFillOpacity() == 1f
+                        && (color instanceof DeviceRgb || color instanceof DeviceGray || color instanceof DeviceCmyk);
+                if (MARKER.matcher(run.text).find()) {
+                    run.fieldFont = fieldFont(info, fonts);
+                }
+                runs.add(run);
+            } else if (data instanceof ImageRenderInfo info && info.getImage() != null
+                    && info.getImage().getWidth() == QR_MARKER_WIDTH && info.getImage().getHeight() == QR_MARKER_HEIGHT) {
+                Matrix ctm = info.getImageCtm();
+                qrAreas.add(new QrArea(page, ctm.get(Matrix.I31), ctm.get(Matrix.I32), ctm.get(Matrix.I11), ctm.get(Matrix.I22)));
+            }
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return Set.of(EventType.RENDER_TEXT, EventType.RENDER_IMAGE);
+        }
+    }
+
+    /**
+     * Copies a page's content operator by operator, leaving out the text operators that show
+     * markers.
+     */
+    private static final class MarkerTextRemover extends PdfCanvasProcessor {
+        private final MarkerListener listener;
+        private PdfCanvas canvas;
+        private int depth;
+
+        MarkerTextRemover() {
+            this(new MarkerListener());
+        }
+
+        private MarkerTextRemover(MarkerListener listener) {
+            super(listener);
+            this.listener = listener;
+        }
+
+        byte[] edit(PdfPage page) {
+            PdfResources resources = page.getResources();
+            canvas = new PdfCanvas(new PdfStream(), resources, page.getDocument());
+            processContent(page.getContentBytes(), resources);
+            return canvas.getContentStream().getBytes();
+        }
+
+        @Override
+        protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
+            // Operators of form XObjects come through here too, while their "Do" is processed
+            boolean nested = depth > 0;
+            if (!nested) {
+                listener.markerShown = false;
+            }
+            depth++;
+            try {
+                super.invokeOperator(operator, operands);
+            } finally {
+                depth--;
+            }
+            if (nested) {
+                return;
+            }
+            String name = operator.toString();
+            if ("EI".equals(name)) {
+                throw new NotStampable("inline images");
+            }
+            if (listener.markerShown) {
+                if (!TEXT_OPERATORS.contains(name)) {
+                    // Text positioning operators or nested XObjects cannot be dropped safely
+                    throw new NotStampable("placeholder text drawn by " + name);
+                }
+                return;
+            }
+            // Operands end with the operator itself
+            PdfOutputStream out = canvas.getContentStream().getOutputStream();
+            for (int i = 0; i < operands.size(); i++) {
+                out.write(operands.get(i));
+                if (i < operands.size() - 1) {
+                    out.writeSpace();
+                } else {
+                    out.writeNewLine();
+                }
+            }
+        }
+    }
+
+    private static final class MarkerListener implements IEventListener {
+        boolean markerShown;
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (data instanceof TextRenderInfo info && MARKER.matcher(info.getText()).find()) {
+                markerShown = true;
+            }
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return Set.of(EventType.RENDER_TEXT);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.entity.Template;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Entities;
+import org.jsoup.safety.Safelist;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns saved template content into a {@link CompiledTemplate}, so certificate generation only
+ * has to concatenate segments instead of parsing, sanitizing and searching the template each time.
+ */
+@Component
+public class TemplateCompiler {
+
+    // Relaxed safelist preserves CKEditor formatting
+    private static final Safelist SAFELIST = Safelist.relaxed()
+            .addTags("span", "div", "style")
+            .addAttributes(":all", "style", "class", "id");
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{\\{(.*?)\\}\\}");
+
+    // Slot markers inserted into normalized content; the "@" keeps them out of the placeholder namespace
+    static final String WATERMARK_SLOT = "@watermark";
+    static final String QR_FIXED_SLOT = "@qr";
+
+    /**
+     * Sanitizes HTML to prevent XSS while preserving {@code {{placeholder}}} markers.
+     */
+    public String sanitize(String content) {
+        if (content == null || content.isBlank()) {
+            return content;
+        }
+        return Jsoup.clean(content, SAFELIST);
+    }
+
+    /**
+     * Sanitizes content of the given type. A {@code PDF_TEMPLATE} is a base64 PDF rather than
+     * markup: it is validated and stripped of whitespace instead. A {@code JSON} layout is never
+     * interpreted as HTML, so it is validated and kept as written.
+     *
+     * @throws IllegalArgumentException if a PDF template is not a readable PDF with form fields,
+     *         or a JSON template is not a valid {@link JsonLayoutTemplate}
+     */
+    public String sanitize(String content, Template.TemplateType type) {
+        if (type == Template.TemplateType.PDF_TEMPLATE) {
+            String normalized = PdfFormTemplate.normalize(content != null ? content : "");
+            PdfFormTemplate.parse(normalized);
+            return normalized;
+        }
+        if (type == Template.TemplateType.JSON) {
+            JsonLayoutTemplate.parse(content != null ? content : "");
+            return content;
+        }
+        return sanitize(content);
+    }
+
+    /**
+     * Normalizes sanitized content for rendering. HTML templates become a complete XHTML document
+     * with watermark and, unless the author placed {@code {{qr_image}}}, fixed QR slots before
+     * {@code </body>}. Other types are returned unchanged.
+     */
+    public String normalize(String sanitizedContent, Template.TemplateType type) {
+        String content = sanitizedContent != null ? sanitizedContent : "";
+        if (type != Template.TemplateType.HTML) {
+            return content;
+        }
+
+        Document document = Jsoup.parse(content);
+        document.outputSettings()
+                .syntax(Document.OutputSettings.Syntax.xml)
+                .escapeMode(Entities.EscapeMode.xhtml)
+                .charset(StandardCharsets.UTF_8)
+                .prettyPrint(false);
+        document.head().prependElement("meta").attr("charset", "UTF-8");
+
+        String xhtml = document.outerHtml();
+        String slots = slot(WATERMARK_SLOT);
+        if (!content.contains(slot(CompiledTemplate.QR_IMAGE_PLACEHOLDER))) {
+            slots += slot(QR_FIXED_SLOT);
+        }
+        int bodyEnd = xhtml.lastIndexOf("</body>");
+        return xhtml.substring(0, bodyEnd) + slots + xhtml.substring(bodyEnd);
+    }
+
+    /**
+     * Splits normalized content into literal text and slots. PDF templates are inspected for
+     * their form fields and JSON templates parsed into a layout instead; legacy content of either
+     * type that is not a valid PDF or layout is split like plain text.
+     */
+    public CompiledTemplate compile(String normalizedContent, Template.TemplateType type) {
+        if (type == Template.TemplateType.PDF_TEMPLATE) {
+            try {
+                return new CompiledTemplate(PdfFormTemplate.parse(normalizedContent));
+            } catch (IllegalArgumentException e) {
+                // Saved as plain text before PDF forms were supported: keep rendering it as such
+            }
+        }
+        if (type == Template.TemplateType.JSON) {
+            try {
+                return new CompiledTemplate(JsonLayoutTemplate.parse(normalizedContent));
+            } catch (IllegalArgumentException e) {
+                // Saved before layouts were validated: keep rendering it as plain text
+            }
+        }
+        return new CompiledTemplate(type, segments(normalizedContent, type));
+    }
+
+    static List<CompiledTemplate.Segment> segments(String content, Template.TemplateType type) {
+        List<CompiledTemplate.Segment> segments = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(content);
+        int position = 0;
+        while (matcher.find()) {
+            if (matcher.start() > position) {
+                segments.add(text(content.substring(position, matcher.start())));
+            }
+            segments.add(slotSegment(matcher.group(1), type));
+            position = matcher.end();
+        }
+        if (position < content.length()) {
+            segments.add(text(content.substring(position)));
+        }
+        return segments;
+    }
+
+    /**
+     * Placeholder names of compiled content: form field names for PDF templates, otherwise as
+     * {@link #placeholders(String)}.
+     */
+    public List<String> placeholders(CompiledTemplate compiled, String normalizedContent) {
+        if (compiled.getPdfForm() != null) {
+            return compiled.getPdfForm().fieldNames();
+        }
+        return placeholders(normalizedContent);
+    }
+
+    /**
+     * Placeholder names as shown to users: trimmed, de-duplicated, excluding internal slots.
+     */
+    public List<String> placeholders(String content) {
+        Set<String> names = new LinkedHashSet<>();
+        if (content != null) {
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(content);
+            while (matcher.find()) {
+                String name = matcher.group(1).trim();
+                if (!name.isEmpty() && !name.startsWith("@")) {
+                    names.add(name);
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static CompiledTemplate.Segment slotSegment(String name, Template.TemplateType type) {
+        // Watermark and QR are drawn by the simple renderer for non-HTML templates
+        if (type == Template.TemplateType.HTML) {
+            switch (name) {
+                case WATERMARK_SLOT:
+                    return new CompiledTemplate.Segment(CompiledTemplate.SegmentType.WATERMARK, "");
+                case QR_FIXED_SLOT:
+                    return new CompiledTemplate.Segment(CompiledTemplate.SegmentType.QR_FIXED, "");
+                case CompiledTemplate.QR_IMAGE_PLACEHOLDER:
+                    return new CompiledTemplate.Segment(CompiledTemplate.SegmentType.QR_INLINE, "");
+                default:
+                    break;
+            }
+        }
+        // Raw name: substitution matches "{{name}}" exactly, as before
+        return new CompiledTemplate.Segment(CompiledTemplate.SegmentType.PLACEHOLDER, name);
+    }
+
+    private static CompiledTemplate.Segment text(String value) {
+        return new CompiledTemplate.Segment(CompiledTemplate.SegmentType.TEXT, value);
+    }
+
+    private static String slot(String name) {
+        return "{{" + name + "}}";
+    }
+}
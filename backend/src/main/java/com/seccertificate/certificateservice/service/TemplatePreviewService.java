@@ -0,0 +1,185 @@
+package com.seccertificate.certificateservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.entity.TemplateVersion;
+import com.seccertificate.certificateservice.exception.ResourceNotFoundException;
+import com.seccertificate.certificateservice.repository.TemplateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Raster previews of the first page of a template, for the template editor.
+ *
+ * Images are cached by template version, render engine, placeholder values, DPI and format. A version changes
+ * whenever the template content does, so entries never need explicit invalidation; the cache is
+ * bounded by total image bytes.
+ */
+@Service
+@Slf4j
+public class TemplatePreviewService {
+
+    public static final int MIN_DPI = 36;
+    public static final int MAX_DPI = 300;
+
+    private final TemplateRepository templateRepository;
+    private final TemplateVersionService templateVersionService;
+    private final PdfGenerationService pdfGenerationService;
+    private final Cache<String, Preview> previews;
+
+    public TemplatePreviewService(TemplateRepository templateRepository,
+                                  TemplateVersionService templateVersionService,
+                                  PdfGenerationService pdfGenerationService,
+                                  @Value("${app.templates.preview-cache.maximum-size:64MB}") DataSize maximumSize,
+                                  @Value("${app.templates.preview-cache.ttl:30m}") Duration ttl) {
+        this.templateRepository = templateRepository;
+        this.templateVersionService = templateVersionService;
+        this.pdfGenerationService = pdfGenerationService;
+        this.previews = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((String key, Preview preview) -> preview.image().length)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    public enum Format {
+        PNG("png", "image/png"),
+        WEBP("webp", "image/webp");
+
+        private final String imageIoName;
+        private final String contentType;
+
+        Format(String imageIoName, String contentType) {
+            this.imageIoName = imageIoName;
+            this.contentType = contentType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported preview format: " + value);
+            }
+        }
+    }
+
+    public record Preview(byte[] image, String contentType) {
+    }
+
+    /**
+     * First page of the template rendered with {@code placeholderValues}, as an image.
+     * Not read-only: a template saved before versioning gets its first version here.
+     */
+    @Transactional
+    public Preview preview(Long customerId, Long templateId, Map<String, String> placeholderValues,
+                           int dpi, Format format) {
+        if (dpi < MIN_DPI || dpi > MAX_DPI) {
+            throw new IllegalArgumentException("dpi must be between " + MIN_DPI + " and " + MAX_DPI);
+        }
+        if (format == Format.WEBP && !ImageIO.getImageWritersByFormatName(format.imageIoName).hasNext()) {
+            throw new IllegalArgumentException("WebP previews are not available on this server, use png");
+        }
+
+        Template template = templateRepository.findByIdAndCustomerId(templateId, customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Template not found or access denied"));
+        TemplateVersion version = templateVersionService.currentVersion(template);
+
+        Template.Renderer renderer = pdfGenerationService.renderEngine(template.getRenderer()).renderer();
+        String key = version.getId() + ":" + renderer + ":" + valuesHash(placeholderValues) + ":" + dpi + ":" + format;
+        return previews.get(key, k -> render(template, version, renderer, placeholderValues, dpi, format));
+    }
+
+    /**
+     * The simulated certificate as a PDF, without QR code. Form and layout templates are
+     * rendered from their compiled version, HTML with the template's render engine.
+     */
+    @Transactional
+    public byte[] previewPdf(Long customerId, Long templateId, Map<String, String> placeholderValues) throws IOException {
+        Template template = templateRepository.findByIdAndCustomerId(templateId, customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Template not found or access denied"));
+        TemplateVersion version = templateVersionService.currentVersion(template);
+        return pdf(template, version, pdfGenerationService.renderEngine(template.getRenderer()).renderer(), placeholderValues);
+    }
+
+    private byte[] pdf(Template template, TemplateVersion version, Template.Renderer renderer,
+                       Map<String, String> placeholderValues) throws IOException {
+        CompiledTemplate compiled = templateVersionService.compiled(version);
+        if (compiled.getPdfForm() != null) {
+            ByteArrayOutputStream filled = new ByteArrayOutputStream();
+            pdfGenerationService.fillPdfForm(compiled.getPdfForm(), placeholderValues, "PREVIEW", null, filled);
+            return filled.toByteArray();
+        }
+        if (compiled.getJsonLayout() != null) {
+            ByteArrayOutputStream drawn = new ByteArrayOutputStream();
+            pdfGenerationService.renderJsonLayout(compiled.getJsonLayout(), placeholderValues, "PREVIEW", null, drawn);
+            return drawn.toByteArray();
+        }
+        return pdfGenerationService.generatePdfFromHtmlContent(template.getTemplateContent(), placeholderValues, renderer);
+    }
+
+    private Preview render(Template template, TemplateVersion version, Template.Renderer renderer,
+                           Map<String, String> placeholderValues, int dpi, Format format) {
+        long start = System.nanoTime();
+        try {
+            // Same PDF as the "Download PDF" preview, so both show identical output
+            byte[] pdf = pdf(template, version, renderer, placeholderValues);
+
+            BufferedImage image;
+            try (PDDocument document = PDDocument.load(pdf)) {
+                image = new PDFRenderer(document).renderImageWithDPI(0, dpi, ImageType.RGB);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, format.imageIoName, out)) {
+                throw new IllegalStateException("No image writer for " + format);
+            }
+            log.debug("Rendered {} preview at {} dpi in {} ms", format, dpi, (System.nanoTime() - start) / 1_000_000);
+            return new Preview(out.toByteArray(), format.contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render template preview", e);
+        }
+    }
+
+    private static String valuesHash(Map<String, String> placeholderValues) {
+        StringBuilder canonical = new StringBuilder();
+        if (placeholderValues != null) {
+            // Sorted and length-prefixed, so equal maps hash equally and no two maps collide by concatenation
+            new TreeMap<>(placeholderValues).forEach((name, value) -> {
+                String v = value != null ? value : "";
+                canonical.append(name.length()).append(':').append(name)
+                        .append(v.length()).append(':').append(v);
+            });
+        }
+        return sha256(canonical.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -31,39 +31,39 @@ public class TemplateService {
     private final TemplateRepository templateRepository;
     private final CustomerRepository customerRepository;
     private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TemplateCompiler templateCompiler;
+    private final TemplateVersionService templateVersionService;
     
     private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{\\{(.*?)\\}\\}");
     
     @Transactional
     public TemplateDTO createTemplate(Long customerId, TemplateDTO templateDTO) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
+        // Only the FK is needed; the authenticated customer is known to exist
+        Customer customer = customerRepository.getReferenceById(customerId);
         
-        // Extract placeholders from template content
-        List<String> extractedPlaceholders = extractPlaceholders(templateDTO.getTemplateContent());
+        Template.TemplateType type = Template.TemplateType.valueOf(templateDTO.getType());
         
         // Sanitize HTML templates to prevent XSS - but preserve placeholders
-        String sanitizedContent = templateDTO.getTemplateContent();
-        if (sanitizedContent != null && !sanitizedContent.isBlank()) {
-            // Use relaxed safelist to preserve CKEditor formatting
-            sanitizedContent = org.jsoup.Jsoup.clean(sanitizedContent, 
-                org.jsoup.safety.Safelist.relaxed()
-                    .addTags("span", "div", "style")
-                    .addAttributes(":all", "style", "class", "id")
-            );
-        }
+        String sanitizedContent = templateCompiler.sanitize(templateDTO.getTemplateContent(), type);
+        
+        // Extract placeholders from template content
+        List<String> extractedPlaceholders = extractPlaceholders(type, templateDTO.getTemplateContent(), sanitizedContent);
 
         Template template = Template.builder()
                 .customer(customer)
                 .name(templateDTO.getName())
                 .description(templateDTO.getDescription())
                 .templateContent(sanitizedContent)
-                .type(Template.TemplateType.valueOf(templateDTO.getType()))
+                .type(type)
+                .renderer(parseRenderer(templateDTO.getRenderer()))
+                .stamped(templateDTO.getStamped())
                 .placeholders(serializePlaceholders(extractedPlaceholders))
                 .status(Template.TemplateStatus.ACTIVE)
                 .build();
         
         template = templateRepository.save(template);
+        templateVersionService.publishVersion(template);
         return mapToDTO(template);
     }
     
@@ -100,24 +100,28 @@ public class TemplateService {
         Template template = templateRepository.findByIdAndCustomerId(templateId, customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Template not found or access denied"));
         
+        // Sanitize HTML on update
+        String sanitizedContent = templateCompiler.sanitize(templateDTO.getTemplateContent(), template.getType());
+        
         // Extract placeholders from updated content
-        List<String> extractedPlaceholders = extractPlaceholders(templateDTO.getTemplateContent());
+        List<String> extractedPlaceholders = extractPlaceholders(template.getType(), templateDTO.getTemplateContent(), sanitizedContent);
         
         template.setName(templateDTO.getName());
         template.setDescription(templateDTO.getDescription());
-        // Sanitize HTML on update
-        String sanitizedContent = templateDTO.getTemplateContent();
-        if (sanitizedContent != null && !sanitizedContent.isBlank()) {
-            sanitizedContent = org.jsoup.Jsoup.clean(sanitizedContent, 
-                org.jsoup.safety.Safelist.relaxed()
-                    .addTags("span", "div", "style")
-                    .addAttributes(":all", "style", "class", "id")
-            );
+        if (templateDTO.getRenderer() != null) {
+            // Absent keeps the current engine, blank resets to the server default
+            template.setRenderer(parseRenderer(templateDTO.getRenderer()));
+        }
+        if (templateDTO.getStamped() != null) {
+            template.setStamped(templateDTO.getStamped());
         }
         template.setTemplateContent(sanitizedContent);
         template.setPlaceholders(serializePlaceholders(extractedPlaceholders));
         
         template = templateRepository.save(template);
+        // New certificates use the new version; existing ones keep the version they were rendered with
+        templateVersionService.publishVersion(template);
+        cacheInvalidationBus.publish(CacheInvalidationBus.Type.TEMPLATE, templateId);
         return mapToDTO(template);
     }
     
@@ -127,6 +131,7 @@ public class TemplateService {
             throw new ResourceNotFoundException("Template not found or access denied");
         }
         templateRepository.deleteById(templateId);
+        cacheInvalidationBus.publish(CacheInvalidationBus.Type.TEMPLATE, templateId);
     }
     
     public void validateTemplateOwnership(Long customerId, Long templateId) {
@@ -156,6 +161,16 @@ public class TemplateService {
         return new ArrayList<>(placeholders);
     }
     
+    /**
+     * Placeholders of a PDF template are its form fields; other types use {{placeholder}} markers
+     */
+    private List<String> extractPlaceholders(Template.TemplateType type, String content, String sanitizedContent) {
+        if (type == Template.TemplateType.PDF_TEMPLATE) {
+            return PdfFormTemplate.parse(sanitizedContent).fieldNames();
+        }
+        return extractPlaceholders(content);
+    }
+    
     /**
      * Simulate certificate generation by replacing placeholders with test data
      */
@@ -196,6 +211,10 @@ public class TemplateService {
         return result;
     }
     
+    private Template.Renderer parseRenderer(String renderer) {
+        return renderer == null || renderer.isBlank() ? null : Template.Renderer.valueOf(renderer);
+    }
+    
     private String serializePlaceholders(List<String> placeholders) {
         try {
             return objectMapper.writeValueAsString(placeholders);
@@ -220,6 +239,8 @@ public class TemplateService {
                 .description(template.getDescription())
                 .templateContent(template.getTemplateContent())
                 .type(template.getType().name())
+                .renderer(template.getRenderer() != null ? template.getRenderer().name() : null)
+                .stamped(Boolean.TRUE.equals(template.getStamped()))
                 .placeholders(deserializePlaceholders(template.getPlaceholders()))
                 .status(template.getStatus().name())
                 .createdAt(template.getCreatedAt())
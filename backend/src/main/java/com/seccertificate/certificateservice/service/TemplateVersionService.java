@@ -0,0 +1,181 @@
+package com.seccertificate.certificateservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.entity.TemplateVersion;
+import com.seccertificate.certificateservice.exception.ResourceNotFoundException;
+import com.seccertificate.certificateservice.repository.TemplateRepository;
+import com.seccertificate.certificateservice.repository.TemplateVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Creates and serves immutable {@link TemplateVersion}s.
+ *
+ * A version is compiled when a template is saved; certificate generation only looks up the
+ * compiled form by version ID, which is cached in memory since versions never change.
+ * Templates saved before versioning existed are compiled on startup.
+ */
+@Service
+@Slf4j
+@Order(5)
+public class TemplateVersionService implements ApplicationRunner {
+
+    private static final TypeReference<List<CompiledTemplate.Segment>> SEGMENTS_TYPE = new TypeReference<>() {};
+
+    private final TemplateVersionRepository templateVersionRepository;
+    private final TemplateRepository templateRepository;
+    private final TemplateCompiler templateCompiler;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Long, CompiledTemplate> compiledTemplates;
+
+    public TemplateVersionService(TemplateVersionRepository templateVersionRepository,
+                                  TemplateRepository templateRepository,
+                                  TemplateCompiler templateCompiler,
+                                  ObjectMapper objectMapper,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.templates.compiled-cache-size:1000}") long compiledCacheSize) {
+        this.templateVersionRepository = templateVersionRepository;
+        this.templateRepository = templateRepository;
+        this.templateCompiler = templateCompiler;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compiledTemplates = Caffeine.newBuilder()
+                .maximumSize(compiledCacheSize)
+                .build();
+    }
+
+    /**
+     * Compiles the template's current content into a new version and makes it current. Must run
+     * in the transaction that saves the template. Content that did not change keeps its version.
+     */
+    public TemplateVersion publishVersion(Template template) {
+        String content = template.getTemplateContent() != null ? template.getTemplateContent() : "";
+        String contentHash = sha256(template.getType().name() + "\n" + content);
+
+        TemplateVersion current = template.getCurrentVersion();
+        if (current != null && contentHash.equals(current.getContentHash())) {
+            return current;
+        }
+
+        // Serializes publishers of the same template (concurrent saves, other nodes' backfill);
+        // whoever waited reuses the version the winner created if the content matches
+        Long lockedVersionId = jdbcTemplate.query(
+                "SELECT current_version_id FROM templates WHERE id = ? FOR UPDATE",
+                rs -> rs.next() ? rs.getObject(1, Long.class) : null, template.getId());
+        if (lockedVersionId != null && (current == null || !lockedVersionId.equals(current.getId()))) {
+            TemplateVersion latest = templateVersionRepository.findById(lockedVersionId).orElse(null);
+            if (latest != null && contentHash.equals(latest.getContentHash())) {
+                template.setCurrentVersion(latest);
+                return latest;
+            }
+        }
+
+        String normalized = templateCompiler.normalize(content, template.getType());
+        CompiledTemplate compiled = templateCompiler.compile(normalized, template.getType());
+
+        TemplateVersion version = templateVersionRepository.save(TemplateVersion.builder()
+                .template(template)
+                .versionNumber(templateVersionRepository.findMaxVersionNumber(template.getId()) + 1)
+                .type(template.getType())
+                .content(normalized)
+                .segments(toJson(compiled.getSegments()))
+                .placeholders(toJson(templateCompiler.placeholders(compiled, normalized)))
+                .contentHash(contentHash)
+                .build());
+        compiledTemplates.put(version.getId(), compiled);
+
+        template.setCurrentVersion(version);
+        log.debug("Published version {} of template {}", version.getVersionNumber(), template.getId());
+        return version;
+    }
+
+    /**
+     * The version new certificates of this template are rendered with, compiled on first use for
+     * templates that have none yet.
+     */
+    public TemplateVersion currentVersion(Template template) {
+        TemplateVersion current = template.getCurrentVersion();
+        return current != null ? current : publishVersion(template);
+    }
+
+    /**
+     * Compiled form of a version. Only the ID is read from {@code version}, so a lazy reference
+     * is resolved without touching the database once the version is cached.
+     */
+    public CompiledTemplate compiled(TemplateVersion version) {
+        return compiledTemplates.get(version.getId(), this::load);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int published = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Template> templates = templateRepository.findTop100ByCurrentVersionIsNullOrderById();
+                templates.forEach(this::publishVersion);
+                return templates.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            published += count;
+        }
+        if (published > 0) {
+            log.info("Compiled initial versions for {} templates", published);
+        }
+    }
+
+    private CompiledTemplate load(Long versionId) {
+        TemplateVersion version = templateVersionRepository.findById(versionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Template version not found"));
+        if (version.getType() != Template.TemplateType.HTML) {
+            // The PDF or layout itself is the compiled form, with no stored segments; parsing it
+            // is cheap and done once per version
+            return templateCompiler.compile(version.getContent(), version.getType());
+        }
+        try {
+            return new CompiledTemplate(version.getType(), objectMapper.readValue(version.getSegments(), SEGMENTS_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt segments in template version " + versionId, e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing template version", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.seccertificate.certificateservice.service;
+
+import com.seccertificate.certificateservice.dto.UsageStatsDTO;
+import com.seccertificate.certificateservice.repository.UsageRollupRepository;
+import com.seccertificate.certificateservice.util.StripedCounters;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains {@code usage_rollups}: certificate counts per customer, template and day.
+ *
+ * Generations, downloads and verifications are counted in memory and upserted periodically as
+ * relative increments, so the dashboard reads a handful of rollup rows instead of scanning
+ * certificates. {@link #startRebuild()} recomputes completed days from history, one month per task,
+ * on the application task executor.
+ */
+@Service
+@Slf4j
+@Order(4)
+public class UsageRollupService implements ApplicationRunner {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO usage_rollups (customer_id, template_id, rollup_date, generated_count, downloaded_count, verified_count) " +
+        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (customer_id, template_id, rollup_date) DO UPDATE SET " +
+        "generated_count = usage_rollups.generated_count + EXCLUDED.generated_count, " +
+        "downloaded_count = usage_rollups.downloaded_count + EXCLUDED.downloaded_count, " +
+        "verified_count = usage_rollups.verified_count + EXCLUDED.verified_count";
+
+    private static final String RESET_MONTH_SQL =
+        "UPDATE usage_rollups SET generated_count = 0, downloaded_count = 0 " +
+        "WHERE rollup_date >= ? AND rollup_date < ?";
+
+    private static final String RESET_MONTH_GENERATED_SQL =
+        "UPDATE usage_rollups SET generated_count = 0 WHERE rollup_date >= ? AND rollup_date < ?";
+
+    private static final String BACKFILL_GENERATED_SQL =
+        "INSERT INTO usage_rollups (customer_id, template_id, rollup_date, generated_count, downloaded_count, verified_count) " +
+        "SELECT customer_id, template_id, CAST(created_at AS date), COUNT(*), 0, 0 FROM certificates " +
+        "WHERE created_at >= ? AND created_at < ? GROUP BY 1, 2, 3 " +
+        "ON CONFLICT (customer_id, template_id, rollup_date) DO UPDATE SET generated_count = EXCLUDED.generated_count";
+
+    // Download history comes from the audit log; the certificate join is by id only, so every
+    // certificates partition is probed through the (id, created_at) primary key
+    private static final String BACKFILL_DOWNLOADED_SQL =
+        "INSERT INTO usage_rollups (customer_id, template_id, rollup_date, generated_count, downloaded_count, verified_count) " +
+        "SELECT c.customer_id, c.template_id, CAST(a.\"timestamp\" AS date), 0, COUNT(*), 0 " +
+        "FROM audit_logs a JOIN certificates c ON c.id = a.entity_id " +
+        "WHERE a.action = 'DOWNLOAD_CERTIFICATE' AND a.entity_type = 'CERTIFICATE' " +
+        "AND a.\"timestamp\" >= ? AND a.\"timestamp\" < ? GROUP BY 1, 2, 3 " +
+        "ON CONFLICT (customer_id, template_id, rollup_date) DO UPDATE SET downloaded_count = EXCLUDED.downloaded_count";
+
+    private final UsageRollupRepository usageRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final int backfillParallelism;
+    private final boolean backfillOnStartup;
+
+    private final StripedCounters<Key, LongAdder> counters = new StripedCounters<>(LongAdder::new);
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public UsageRollupService(UsageRollupRepository usageRollupRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                              @Value("${app.rollups.backfill-parallelism:4}") int backfillParallelism,
+                              @Value("${app.rollups.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.usageRollupRepository = usageRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.backfillParallelism = Math.max(1, backfillParallelism);
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    public void recordGenerated(Long customerId, Long templateId, long count) {
+        record(customerId, templateId, Kind.GENERATED, count);
+    }
+
+    public void recordDownloaded(Long customerId, Long templateId) {
+        recordDownloaded(customerId, templateId, 1);
+    }
+
+    public void recordDownloaded(Long customerId, Long templateId, long count) {
+        record(customerId, templateId, Kind.DOWNLOADED, count);
+    }
+
+    public void recordVerified(Long customerId, Long templateId) {
+        record(customerId, templateId, Kind.VERIFIED, 1);
+    }
+
+    /**
+     * Usage totals for a customer between two dates (inclusive). Pending increments not yet
+     * flushed are not included, so figures may trail live traffic by one flush interval.
+     */
+    @Transactional(readOnly = true)
+    public UsageStatsDTO getUsageStats(Long customerId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        UsageRollupRepository.UsageTotals totals = usageRollupRepository.sumByCustomerId(customerId, from, to);
+
+        List<UsageStatsDTO.DailyUsage> daily = usageRollupRepository.sumByDay(customerId, from, to).stream()
+            .map(row -> UsageStatsDTO.DailyUsage.builder()
+                .date(row.getRollupDate())
+                .generated(row.getGenerated())
+                .downloaded(row.getDownloaded())
+                .verified(row.getVerified())
+                .build())
+            .toList();
+
+        List<UsageStatsDTO.TemplateUsage> byTemplate = usageRollupRepository.sumByTemplate(customerId, from, to).stream()
+            .map(row -> UsageStatsDTO.TemplateUsage.builder()
+                .templateId(row.getTemplateId())
+                .generated(row.getGenerated())
+                .downloaded(row.getDownloaded())
+                .verified(row.getVerified())
+                .build())
+            .toList();
+
+        return UsageStatsDTO.builder()
+            .from(from)
+            .to(to)
+            .totalGenerated(totals.getGenerated())
+            .totalDownloaded(totals.getDownloaded())
+            .totalVerified(totals.getVerified())
+            .daily(daily)
+            .byTemplate(byTemplate)
+            .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Key, LongAdder> drained = counters.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        Map<RowKey, long[]> rows = new HashMap<>();
+        drained.forEach((key, count) ->
+            rows.computeIfAbsent(key.row(), k -> new long[Kind.values().length])[key.kind().ordinal()] += count.sum());
+
+        List<Map.Entry<RowKey, long[]>> entries = new ArrayList<>(rows.entrySet());
+        // Stable lock order across nodes flushing concurrently
+        entries.sort(Comparator.comparing((Map.Entry<RowKey, long[]> e) -> e.getKey().customerId())
+            .thenComparing(e -> e.getKey().templateId())
+            .thenComparing(e -> e.getKey().date()));
+
+        List<Object[]> batch = new ArrayList<>(entries.size());
+        for (Map.Entry<RowKey, long[]> entry : entries) {
+            long[] counts = entry.getValue();
+            batch.add(new Object[] {
+                entry.getKey().customerId(),
+                entry.getKey().templateId(),
+                Date.valueOf(entry.getKey().date()),
+                counts[Kind.GENERATED.ordinal()],
+                counts[Kind.DOWNLOADED.ordinal()],
+                counts[Kind.VERIFIED.ordinal()]
+            });
+        }
+
+        try {
+            // One transaction, so a failed flush applied nothing and can be counted again in full
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Usage rollup flush failed, retrying {} rows next cycle: {}", entries.size(), e.getMessage());
+            drained.forEach((key, count) -> counters.update(key, adder -> adder.add(count.sum())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Starts a rebuild in the background unless one is already running.
+     *
+     * @return {@code false} if a rebuild was already in progress
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuildMonths();
+                } catch (RuntimeException e) {
+                    log.error("Usage rollup rebuild failed", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            if (usageRollupRepository.count() == 0 && hasCertificates()) {
+                log.info("Usage rollups are empty, backfilling from history");
+                startRebuild();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Usage rollup startup backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes generated and downloaded counts for every completed day from certificates and
+     * the audit log. Today is left to the live counters so in-flight increments are not counted
+     * twice. Verifications are not recorded anywhere else and are preserved; so are download
+     * counts for months whose audit partitions have already been dropped.
+     */
+    private int rebuildMonths() {
+        flush();
+
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM certificates", LocalDateTime.class);
+        if (oldest == null) {
+            return 0;
+        }
+        LocalDateTime oldestDownload = jdbcTemplate.queryForObject(
+            "SELECT MIN(\"timestamp\") FROM audit_logs WHERE action = 'DOWNLOAD_CERTIFICATE'", LocalDateTime.class);
+        LocalDate auditHorizon = oldestDownload == null ? null : oldestDownload.toLocalDate().withDayOfMonth(1);
+
+        LocalDate today = LocalDate.now();
+        List<LocalDate> months = new ArrayList<>();
+        for (LocalDate month = oldest.toLocalDate().withDayOfMonth(1); month.isBefore(today); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+
+        long started = System.currentTimeMillis();
+        // backfill-parallelism workers take months from a shared queue; the calling thread is one of them
+        ConcurrentLinkedQueue<LocalDate> pending = new ConcurrentLinkedQueue<>(months);
+        Runnable worker = () -> {
+            LocalDate month;
+            while ((month = pending.poll()) != null) {
+                rebuildMonth(month, today, auditHorizon);
+            }
+        };
+        int helpers = Math.min(backfillParallelism, months.size()) - 1;
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[Math.max(0, helpers)];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = CompletableFuture.runAsync(worker, taskExecutor);
+        }
+        try {
+            worker.run();
+        } finally {
+            CompletableFuture.allOf(tasks).join();
+        }
+
+        log.info("Rebuilt usage rollups for {} months in {} ms", months.size(), System.currentTimeMillis() - started);
+        return months.size();
+    }
+
+    private void rebuildMonth(LocalDate month, LocalDate today, LocalDate auditHorizon) {
+        LocalDate end = month.plusMonths(1).isAfter(today) ? today : month.plusMonths(1);
+        Date fromDate = Date.valueOf(month);
+        Date toDate = Date.valueOf(end);
+        Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(end.atStartOfDay());
+        boolean withDownloads = auditHorizon != null && !month.isBefore(auditHorizon);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (withDownloads) {
+                jdbcTemplate.update(RESET_MONTH_SQL, fromDate, toDate);
+                jdbcTemplate.update(BACKFILL_DOWNLOADED_SQL, from, to);
+            } else {
+                jdbcTemplate.update(RESET_MONTH_GENERATED_SQL, fromDate, toDate);
+            }
+            jdbcTemplate.update(BACKFILL_GENERATED_SQL, from, to);
+        });
+        log.debug("Rebuilt usage rollups for {}", month);
+    }
+
+    private boolean hasCertificates() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM certificates)", Boolean.class));
+    }
+
+    private void record(Long customerId, Long templateId, Kind kind, long count) {
+        if (customerId == null || templateId == null || count <= 0) {
+            return;
+        }
+        Key key = new Key(new RowKey(customerId, templateId, LocalDate.now()), kind);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters.update(key, adder -> adder.add(count));
+                }
+            });
+        } else {
+            counters.update(key, adder -> adder.add(count));
+        }
+    }
+
+    private enum Kind {
+        GENERATED, DOWNLOADED, VERIFIED
+    }
+
+    private record RowKey(Long customerId, Long templateId, LocalDate date) {
+    }
+
+    private record Key(RowKey row, Kind kind) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.seccertificate.certificateservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of public certificate verification, keyed by unique ID and presented signature.
+ * Revoking a certificate evicts its entries on every node through the cache invalidation bus.
+ *
+ * A verification that read the certificate before an eviction must not put its result back
+ * afterwards, so callers take a {@link #readStamp()} before reading and hand it to {@link #put}.
+ */
+@Component
+public class VerificationResultCache {
+
+    private final Cache<Key, VerificationResult> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public VerificationResultCache(@Value("${app.cache.verification.maximum-size:100000}") long maximumSize,
+                                   @Value("${app.cache.verification.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public VerificationResult get(String uniqueId, String signature) {
+        return cache.getIfPresent(new Key(uniqueId, signature));
+    }
+
+    /**
+     * Changes whenever entries are evicted; take it before reading the certificate.
+     */
+    public long readStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a result unless an eviction happened since {@code stamp} was taken, in which case the
+     * read may have seen the certificate as it was before the change.
+     */
+    public void put(String uniqueId, String signature, VerificationResult result, long stamp) {
+        if (invalidations.get() != stamp) {
+            return;
+        }
+        Key key = new Key(uniqueId, signature);
+        cache.put(key, result);
+        // An eviction racing with this put may have run before the entry existed
+        if (invalidations.get() != stamp) {
+            cache.asMap().remove(key, result);
+        }
+    }
+
+    public void evict(String uniqueId) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.uniqueId().equals(uniqueId));
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Customer and template are kept so cached verifications still count towards usage rollups.
+     */
+    public record VerificationResult(boolean valid, Long customerId, Long templateId) {
+    }
+
+    private record Key(String uniqueId, String signature) {
+    }
+}
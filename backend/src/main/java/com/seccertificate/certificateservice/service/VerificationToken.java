@@ -0,0 +1,95 @@
+package com.seccertificate.certificateservice.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Compact verification token printed in QR codes instead of the unique ID and full signature:
+ * a format byte, the certificate UUID and a truncated HMAC, 25 bytes written as 40 Base32
+ * characters. Base32 upper case stays within the QR alphanumeric character set, so the code
+ * encodes at 5.5 bits per character instead of 8.
+ */
+public final class VerificationToken {
+
+    public static final int MAC_LENGTH = 8;
+
+    private static final byte FORMAT = 1;
+    private static final int BYTES = 1 + 16 + MAC_LENGTH;
+    private static final int LENGTH = BYTES * 8 / 5;
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567";
+
+    private final UUID uniqueId;
+    private final byte[] mac;
+
+    private VerificationToken(UUID uniqueId, byte[] mac) {
+        this.uniqueId = uniqueId;
+        this.mac = mac;
+    }
+
+    public String uniqueId() {
+        return uniqueId.toString();
+    }
+
+    public byte[] mac() {
+        return mac.clone();
+    }
+
+    public static String encode(String uniqueId, byte[] mac) {
+        if (mac.length < MAC_LENGTH) {
+            throw new IllegalArgumentException("MAC must have at least " + MAC_LENGTH + " bytes");
+        }
+        UUID id = UUID.fromString(uniqueId);
+        ByteBuffer bytes = ByteBuffer.allocate(BYTES)
+            .put(FORMAT)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .put(mac, 0, MAC_LENGTH);
+
+        StringBuilder token = new StringBuilder(LENGTH);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes.array()) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                token.append(ALPHABET.charAt((buffer >> bits) & 0x1F));
+            }
+        }
+        return token.toString();
+    }
+
+    /**
+     * Decodes a token, ignoring case. Empty when it is not a token of a known format.
+     */
+    public static Optional<VerificationToken> parse(String token) {
+        if (token == null || token.length() != LENGTH) {
+            return Optional.empty();
+        }
+        byte[] bytes = new byte[BYTES];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (char c : token.toUpperCase(Locale.ROOT).toCharArray()) {
+            int value = ALPHABET.indexOf(c);
+            if (value < 0) {
+                return Optional.empty();
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                bytes[index++] = (byte) (buffer >> bits);
+            }
+        }
+        ByteBuffer buffered = ByteBuffer.wrap(bytes);
+        if (buffered.get() != FORMAT) {
+            return Optional.empty();
+        }
+        UUID uniqueId = new UUID(buffered.getLong(), buffered.getLong());
+        return Optional.of(new VerificationToken(uniqueId, Arrays.copyOfRange(bytes, 1 + 16, BYTES)));
+    }
+}
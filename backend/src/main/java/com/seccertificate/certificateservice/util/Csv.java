@@ -0,0 +1,42 @@
+package com.seccertificate.certificateservice.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal RFC 4180 CSV output for streamed exports.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /** Writes one record, terminated by CRLF. */
+    public static void writeRow(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(field(values[i]));
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Quotes a value when needed. Text starting with a formula character is prefixed with an
+     * apostrophe so spreadsheets do not evaluate user-supplied values.
+     */
+    public static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,33 @@
+package com.seccertificate.certificateservice.util;
+
+/**
+ * Events per second, smoothed exponentially over a time constant: an amount recorded {@code tau}
+ * ago counts {@code 1/e} as much as one recorded now. Not thread-safe.
+ */
+public final class DecayingRate {
+
+    private final double tauNanos;
+    private double total;
+    private long lastNanos;
+
+    public DecayingRate(long tauMillis) {
+        this.tauNanos = tauMillis * 1_000_000.0;
+    }
+
+    public void record(double amount, long nowNanos) {
+        decay(nowNanos);
+        total += amount;
+    }
+
+    public double perSecond(long nowNanos) {
+        decay(nowNanos);
+        return total / tauNanos * 1_000_000_000.0;
+    }
+
+    private void decay(long nowNanos) {
+        if (total > 0 && nowNanos > lastNanos) {
+            total *= Math.exp(-(nowNanos - lastNanos) / tauNanos);
+        }
+        lastNanos = nowNanos;
+    }
+}
@@ -0,0 +1,81 @@
+package com.seccertificate.certificateservice.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keyed concurrent counters (e.g. {@link java.util.concurrent.atomic.LongAdder}) that can be
+ * drained atomically, for counts that are kept in memory and flushed to the database in batches.
+ *
+ * Counters live in a generation. A writer registers in one of the generation's in-flight stripes
+ * (picked by thread, so concurrent writers rarely share one) while it updates a counter, and
+ * {@link #drain()} swaps in a fresh generation and waits until every stripe of the old one is
+ * empty. Every update lands in exactly one drained snapshot, and the snapshot is not written to
+ * after it is returned.
+ */
+public final class StripedCounters<K, C> {
+
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2;
+
+    private final Supplier<C> factory;
+    private final AtomicReference<Generation<K, C>> current = new AtomicReference<>(new Generation<>());
+
+    public StripedCounters(Supplier<C> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Applies {@code update} to the key's counter in the current generation, creating it if needed.
+     * The update must be thread-safe: other writers may update the same counter concurrently.
+     */
+    public void update(K key, Consumer<? super C> update) {
+        AtomicInteger inFlight;
+        Generation<K, C> generation;
+        while (true) {
+            generation = current.get();
+            inFlight = generation.stripe();
+            inFlight.incrementAndGet();
+            // Either drain() sees this writer in flight, or this writer sees the swap
+            if (current.get() == generation) {
+                break;
+            }
+            inFlight.decrementAndGet(); // drained concurrently; count into the new generation
+        }
+        try {
+            update.accept(generation.counters.computeIfAbsent(key, k -> factory.get()));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public Map<K, C> drain() {
+        Generation<K, C> drained = current.getAndSet(new Generation<>());
+        // Waits for writers still updating the old generation; later ones see the swap and retry
+        for (AtomicInteger inFlight : drained.inFlight) {
+            while (inFlight.get() != 0) {
+                Thread.yield();
+            }
+        }
+        return drained.counters;
+    }
+
+    private static final class Generation<K, C> {
+        private final ConcurrentHashMap<K, C> counters = new ConcurrentHashMap<>();
+        private final AtomicInteger[] inFlight = new AtomicInteger[STRIPES];
+
+        private Generation() {
+            for (int i = 0; i < STRIPES; i++) {
+                inFlight[i] = new AtomicInteger();
+            }
+        }
+
+        private AtomicInteger stripe() {
+            long id = Thread.currentThread().getId();
+            return inFlight[(int) (id ^ (id >>> 32)) & (STRIPES - 1)];
+        }
+    }
+}
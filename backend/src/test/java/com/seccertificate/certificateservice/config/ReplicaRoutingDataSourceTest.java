@@ -0,0 +1,138 @@
+package com.seccertificate.certificateservice.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.seccertificate.certificateservice.entity.Customer;
+import com.seccertificate.certificateservice.security.CustomUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Routes through the same proxy and transaction manager stack as the application, with two
+ * stub data sources standing in for the primary and replica databases.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private DataSource replica;
+    private ResultSet lagResult;
+    private ReplicaRoutingDataSource routingDataSource;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setup() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        replica = mock(DataSource.class);
+        replicaConnection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        lagResult = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lagResult);
+        when(lagResult.next()).thenReturn(true);
+        when(lagResult.getLong(1)).thenReturn(0L);
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), 2000,
+            new ReadYourWritesTracker(5000));
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.refreshReplicaLag();
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @AfterEach
+    void cleanup() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        assertSame(replicaConnection, connectionUsedBy(true));
+        assertSame(primaryConnection, connectionUsedBy(false));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws Exception {
+        when(lagResult.getLong(1)).thenReturn(10_000L);
+        routingDataSource.refreshReplicaLag();
+        assertSame(primaryConnection, connectionUsedBy(true));
+
+        when(lagResult.getLong(1)).thenReturn(100L);
+        routingDataSource.refreshReplicaLag();
+        assertSame(replicaConnection, connectionUsedBy(true));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() throws Exception {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        routingDataSource.refreshReplicaLag();
+
+        assertSame(primaryConnection, connectionUsedBy(true));
+        assertEquals(-1L, routingDataSource.replicaLag().get("replica-0"));
+    }
+
+    @Test
+    void readsStayOnPrimaryAfterCustomerWrite() {
+        authenticateAs(1L);
+        connectionUsedBy(false);
+        assertSame(primaryConnection, connectionUsedBy(true));
+
+        // Other customers are unaffected
+        authenticateAs(2L);
+        assertSame(replicaConnection, connectionUsedBy(true));
+    }
+
+    @Test
+    void transactionReportsWhetherItReadsFromReplica() {
+        assertTrue(onReplicaAfterFirstStatement(true));
+        assertFalse(onReplicaAfterFirstStatement(false));
+        assertFalse(ReplicaRoutingDataSource.isCurrentTransactionOnReplica());
+
+        when(lagResult.getLong(1)).thenReturn(10_000L);
+        routingDataSource.refreshReplicaLag();
+        assertFalse(onReplicaAfterFirstStatement(true));
+    }
+
+    private boolean onReplicaAfterFirstStatement(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection();
+            return ReplicaRoutingDataSource.isCurrentTransactionOnReplica();
+        }));
+    }
+
+    private Connection connectionUsedBy(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+            ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection());
+    }
+
+    private static void authenticateAs(Long customerId) {
+        CustomUserDetails user = new CustomUserDetails(customerId, "user" + customerId + "@example.com", "",
+            "CUSTOMER", Customer.CustomerStatus.ACTIVE);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
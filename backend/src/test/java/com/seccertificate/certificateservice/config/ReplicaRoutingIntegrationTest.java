@@ -0,0 +1,246 @@
+package com.seccertificate.certificateservice.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.seccertificate.certificateservice.entity.Customer;
+import com.seccertificate.certificateservice.security.CustomUserDetails;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Routing against a real primary and a streaming hot standby cloned from it, both embedded
+ * PostgreSQL instances. Replication lag is produced by pausing WAL replay on the standby.
+ */
+public class ReplicaRoutingIntegrationTest {
+
+    private static final long MAX_LAG_MS = 500;
+    private static final Set<String> SKIPPED_FILES = Set.of("postmaster.pid", "postmaster.opts", "epg-lock");
+    private static final Set<String> EMPTIED_DIRECTORIES = Set.of("pg_wal", "pg_replslot", "pg_stat_tmp");
+
+    @TempDir
+    static Path replicaDirectory;
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    static void startDatabases() throws Exception {
+        primary = EmbeddedPostgres.start();
+        new JdbcTemplate(primary.getPostgresDatabase())
+            .execute("CREATE TABLE items (id serial PRIMARY KEY, customer_id bigint NOT NULL, name text)");
+        replica = startStandby(primary, replicaDirectory.resolve("data"));
+        awaitReplayed();
+    }
+
+    @AfterAll
+    static void stopDatabases() throws Exception {
+        if (replica != null) {
+            replica.close();
+        }
+        primary.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        routingDataSource = new ReplicaRoutingDataSource(primary.getPostgresDatabase(),
+            List.of(replica.getPostgresDatabase()), MAX_LAG_MS, new ReadYourWritesTracker(5000));
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.refreshReplicaLag();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void cleanup() {
+        replicaSql("SELECT pg_wal_replay_resume()");
+        awaitReplayed();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void customerReadsItsOwnWriteFromPrimaryWhileOthersReadTheReplica() {
+        awaitInRotation();
+        replicaSql("SELECT pg_wal_replay_pause()");
+
+        authenticateAs(1L);
+        writeTransaction.executeWithoutResult(status ->
+            jdbcTemplate.update("INSERT INTO items (customer_id, name) VALUES (1, 'diploma')"));
+
+        // The standby has not applied the insert, so only the primary can return it
+        assertFalse(readsFromReplica());
+        assertEquals(1, countItems(1L));
+
+        authenticateAs(2L);
+        assertTrue(readsFromReplica());
+        assertEquals(0, countItems(1L));
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotationUntilItCatchesUp() throws Exception {
+        replicaSql("SELECT pg_wal_replay_pause()");
+        new JdbcTemplate(primary.getPostgresDatabase())
+            .update("INSERT INTO items (customer_id, name) VALUES (3, 'transcript')");
+        String primaryLsn = new JdbcTemplate(primary.getPostgresDatabase())
+            .queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        await(() -> Boolean.TRUE.equals(new JdbcTemplate(replica.getPostgresDatabase()).queryForObject(
+            "SELECT pg_last_wal_receive_lsn() >= CAST(? AS pg_lsn)", Boolean.class, primaryLsn)));
+        Thread.sleep(MAX_LAG_MS * 2);
+
+        routingDataSource.refreshReplicaLag();
+        assertTrue(routingDataSource.replicaLag().get("replica-0") > MAX_LAG_MS);
+        assertFalse(readsFromReplica());
+        assertEquals(1, countItems(3L));
+
+        replicaSql("SELECT pg_wal_replay_resume()");
+        awaitInRotation();
+        assertEquals(1, countItems(3L));
+    }
+
+    /** Lag is measured as zero once the standby has replayed everything it received. */
+    private void awaitInRotation() {
+        awaitReplayed();
+        await(() -> {
+            routingDataSource.refreshReplicaLag();
+            return readsFromReplica();
+        });
+    }
+
+    private boolean readsFromReplica() {
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status ->
+            jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+    }
+
+    private int countItems(Long customerId) {
+        Integer count = readOnlyTransaction.execute(status ->
+            jdbcTemplate.queryForObject("SELECT count(*) FROM items WHERE customer_id = ?", Integer.class, customerId));
+        return count == null ? 0 : count;
+    }
+
+    private static void replicaSql(String sql) {
+        new JdbcTemplate(replica.getPostgresDatabase()).queryForList(sql);
+    }
+
+    private static void awaitReplayed() {
+        String primaryLsn = new JdbcTemplate(primary.getPostgresDatabase())
+            .queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        await(() -> Boolean.TRUE.equals(new JdbcTemplate(replica.getPostgresDatabase()).queryForObject(
+            "SELECT pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn)", Boolean.class, primaryLsn)));
+    }
+
+    /**
+     * Clones the primary with the low-level backup API and starts the copy as a hot standby
+     * streaming from it through a replication slot.
+     */
+    private static EmbeddedPostgres startStandby(EmbeddedPostgres primary, Path directory) throws Exception {
+        try (Connection connection = primary.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            boolean renamedBackupApi = connection.getMetaData().getDatabaseMajorVersion() >= 15;
+            statement.execute("SELECT pg_create_physical_replication_slot('replica', true)");
+            Path source = Paths.get(queryString(statement, "SHOW data_directory"));
+
+            statement.execute(renamedBackupApi
+                ? "SELECT pg_backup_start('replica', true)"
+                : "SELECT pg_start_backup('replica', true, false)");
+            copyDataDirectory(source, directory);
+            String backupLabel = queryString(statement, renamedBackupApi
+                ? "SELECT labelfile FROM pg_backup_stop(true)"
+                : "SELECT labelfile FROM pg_stop_backup(false, true)");
+            Files.writeString(directory.resolve("backup_label"), backupLabel);
+        }
+        Files.createFile(directory.resolve("standby.signal"));
+        Files.writeString(directory.resolve("postgresql.auto.conf"),
+            "\nprimary_conninfo = 'host=localhost port=" + primary.getPort() + " user=postgres'\n"
+                + "primary_slot_name = 'replica'\n",
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        return EmbeddedPostgres.builder()
+            .setDataDirectory(directory)
+            .setCleanDataDirectory(false)
+            .start();
+    }
+
+    private static void copyDataDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path relative = source.relativize(path);
+                Path destination = target.resolve(relative.toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else if (!SKIPPED_FILES.contains(relative.toString())
+                        && (relative.getNameCount() < 2 || !EMPTIED_DIRECTORIES.contains(relative.getName(0).toString()))) {
+                    try {
+                        Files.copy(path, destination);
+                    } catch (NoSuchFileException e) {
+                        // Temporary files come and go while the primary runs; the backup does not need them
+                    }
+                }
+            }
+        }
+        Files.createDirectories(target.resolve("pg_wal").resolve("archive_status"));
+    }
+
+    private static String queryString(Statement statement, String sql) throws Exception {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static void authenticateAs(Long customerId) {
+        CustomUserDetails user = new CustomUserDetails(customerId, "user" + customerId + "@example.com", "",
+            "CUSTOMER", Customer.CustomerStatus.ACTIVE);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10s");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.seccertificate.certificateservice.dto.CertificateDTO;
 import com.seccertificate.certificateservice.dto.GenerateCertificateRequest;
 import com.seccertificate.certificateservice.entity.Customer;
 import com.seccertificate.certificateservice.security.CustomUserDetails;
+import com.seccertificate.certificateservice.service.CertificateExportService;
 import com.seccertificate.certificateservice.service.CertificateService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,10 +14,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -28,11 +31,14 @@ class CertificateControllerTest {
     @Mock
     private CertificateService certificateService;
 
+    @Mock
+    private CertificateExportService certificateExportService;
+
     private CertificateController controller;
 
     @BeforeEach
     void setup() {
-        controller = new CertificateController(certificateService);
+        controller = new CertificateController(certificateService, certificateExportService);
     }
 
     private CustomUserDetails userDetails() {
@@ -82,5 +88,14 @@ class CertificateControllerTest {
         assertEquals("u1", response.getBody().getData().get(0).getUniqueId());
         assertEquals("u2", response.getBody().getData().get(1).getUniqueId());
     }
-}
 
+    @Test
+    void exportCertificates_shouldRejectMissingOrInvalidFilters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.exportCertificates(userDetails(), null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.exportCertificates(userDetails(), "../../etc", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> controller.exportCertificates(userDetails(), null, null,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)));
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -126,7 +127,7 @@ class CertificatePerformanceTest {
         
         // Act
         CompletableFuture<List<CertificateDTO>> future = 
-            certificateService.generateBatchCertificates(1L, batchRequest);
+            certificateService.generateBatchCertificates(1L, UUID.randomUUID().toString(), batchRequest);
         
         List<CertificateDTO> results = future.join();
         
@@ -170,7 +171,7 @@ class CertificatePerformanceTest {
                 .certificates(requests)
                 .build();
             
-            batchFutures.add(certificateService.generateBatchCertificates(1L, batchRequest));
+            batchFutures.add(certificateService.generateBatchCertificates(1L, UUID.randomUUID().toString(), batchRequest));
         }
         
         // Wait for all batches
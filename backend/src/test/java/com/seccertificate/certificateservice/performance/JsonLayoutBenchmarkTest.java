@@ -0,0 +1,125 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.service.CompiledTemplate;
+import com.seccertificate.certificateservice.service.ITextRenderEngine;
+import com.seccertificate.certificateservice.service.JsonLayoutTemplate;
+import com.seccertificate.certificateservice.service.PdfGenerationService;
+import com.seccertificate.certificateservice.service.QrCode;
+import com.seccertificate.certificateservice.service.RenderEngine;
+import com.seccertificate.certificateservice.service.RenderResources;
+import com.seccertificate.certificateservice.service.TemplateCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Same certificate drawn from a JSON layout and converted from HTML by iText.
+ * Run manually: mvn test -Dbenchmarks=true -Dtest=JsonLayoutBenchmarkTest
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JsonLayoutBenchmarkTest {
+
+    private static final String HTML_TEMPLATE = """
+        <div style="text-align:center; padding:40px; border:4px solid #1a3c6e;">
+          <h1 style="font-size:32px;">Certificate of Completion</h1>
+          <h2 style="color:#1a3c6e;">{{name}}</h2>
+          <p>has completed {{course}} on {{date}}</p>
+          <div>{{qr_image}}</div>
+        </div>
+        """;
+
+    private static final String JSON_TEMPLATE = """
+        {
+          "pageSize": "A4", "orientation": "landscape",
+          "pages": [{
+            "elements": [
+              {"type": "rect", "x": 20, "y": 20, "width": 802, "height": 555, "stroke": "#1a3c6e", "lineWidth": 4},
+              {"type": "text", "x": 0, "y": 80, "width": 842, "height": 50, "text": "Certificate of Completion",
+               "font": "Helvetica-Bold", "fontSize": 32, "align": "center"},
+              {"type": "text", "x": 0, "y": 200, "width": 842, "height": 40, "text": "{{name}}",
+               "fontSize": 26, "align": "center", "color": "#1a3c6e"},
+              {"type": "text", "x": 0, "y": 260, "width": 842, "height": 30,
+               "text": "has completed {{course}} on {{date}}", "align": "center"},
+              {"type": "qr", "x": 371, "y": 320, "size": 100}
+            ]
+          }]
+        }
+        """;
+
+    private static final Map<String, String> DATA = Map.of("name", "Alice Example", "course", "Security", "date", "2024-01-31");
+    private static final String QR_URL = "https://example.com/verify/00000000-0000-0000-0000-000000000000";
+
+    @Test
+    void jsonLayoutShouldBeMuchFasterThanHtmlConversion() throws Exception {
+        int warmup = Integer.getInteger("benchmark.warmup", 100);
+        int iterations = Integer.getInteger("benchmark.iterations", 500);
+
+        RenderResources resources = new RenderResources(false, "", DataSize.ofMegabytes(32), Duration.ofHours(1));
+        RenderEngine htmlEngine = new ITextRenderEngine(resources);
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(htmlEngine), resources);
+        TemplateCompiler compiler = new TemplateCompiler();
+        JsonLayoutTemplate layout = compiler.compile(
+            compiler.sanitize(JSON_TEMPLATE, Template.TemplateType.JSON), Template.TemplateType.JSON).getJsonLayout();
+        CompiledTemplate html = compiler.compile(
+            compiler.normalize(compiler.sanitize(HTML_TEMPLATE), Template.TemplateType.HTML), Template.TemplateType.HTML);
+
+        // Both paths encode their QR code per render
+        long[] json = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdfGenerationService.renderJsonLayout(layout, DATA, "cert-1", QR_URL, out);
+            return out.size();
+        });
+        long[] htmlLatencies = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            htmlEngine.render(html.render(DATA, "cert-1", qrHtml()), out);
+            return out.size();
+        });
+
+        report("JSON layout", json);
+        report("HTML (iText)", htmlLatencies);
+        System.out.printf("Speed-up at p50: %.1fx%n", htmlLatencies[iterations / 2] / (double) json[iterations / 2]);
+
+        assertThat(json[iterations / 2]).isLessThan(htmlLatencies[iterations / 2]);
+    }
+
+    private interface Render {
+        int run() throws Exception;
+    }
+
+    private static long[] measure(int warmup, int iterations, Render render) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            render.run();
+        }
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            assertThat(render.run()).isPositive();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%-14s %8.1f ops/s  p50=%.2fms p95=%.2fms p99=%.2fms%n", name,
+            latencies.length / (total / 1e9),
+            latencies[latencies.length / 2] / 1e6,
+            latencies[(int) (latencies.length * 0.95)] / 1e6,
+            latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private static String qrHtml() throws Exception {
+        // The HTML path gets the same vector QR code production uses with iText
+        return CompiledTemplate.qrSvg(QrCode.encode(QR_URL));
+    }
+}
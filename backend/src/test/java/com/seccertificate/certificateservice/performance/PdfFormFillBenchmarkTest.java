@@ -0,0 +1,129 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.service.CompiledTemplate;
+import com.seccertificate.certificateservice.service.ITextRenderEngine;
+import com.seccertificate.certificateservice.service.PdfFormTemplate;
+import com.seccertificate.certificateservice.service.PdfGenerationService;
+import com.seccertificate.certificateservice.service.QrCode;
+import com.seccertificate.certificateservice.service.RenderEngine;
+import com.seccertificate.certificateservice.service.RenderResources;
+import com.seccertificate.certificateservice.service.TemplateCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Same certificate produced by filling a PDF form template and by HTML conversion.
+ * Run manually: mvn test -Dbenchmarks=true -Dtest=PdfFormFillBenchmarkTest
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PdfFormFillBenchmarkTest {
+
+    private static final String HTML_TEMPLATE = """
+        <div style="text-align:center; padding:40px; border:8px double #1a3c6e;">
+          <h1 style="font-size:36px;">Certificate of Completion</h1>
+          <p>This certifies that</p>
+          <h2>{{name}}</h2>
+          <p>has completed <strong>{{course}}</strong> on {{date}}.</p>
+          <div>{{qr_image}}</div>
+        </div>
+        """;
+
+    private static final Map<String, String> DATA = Map.of("name", "Alice Example", "course", "Security", "date", "2024-01-31");
+    private static final String QR_URL = "https://example.com/verify/00000000-0000-0000-0000-000000000000";
+
+    @Test
+    void formFillShouldBeMuchFasterThanHtmlConversion() throws Exception {
+        int warmup = Integer.getInteger("benchmark.warmup", 100);
+        int iterations = Integer.getInteger("benchmark.iterations", 500);
+
+        RenderResources resources = new RenderResources(false, "", DataSize.ofMegabytes(32), Duration.ofHours(1));
+        RenderEngine htmlEngine = new ITextRenderEngine(resources);
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(htmlEngine), resources);
+        PdfFormTemplate form = PdfFormTemplate.parse(formPdfBase64());
+
+        TemplateCompiler compiler = new TemplateCompiler();
+        CompiledTemplate compiled = compiler.compile(
+            compiler.normalize(compiler.sanitize(HTML_TEMPLATE), Template.TemplateType.HTML), Template.TemplateType.HTML);
+        String qrHtml = qrHtml();
+
+        long[] fill = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdfGenerationService.fillPdfForm(form, DATA, "cert-1", QR_URL, out);
+            return out.size();
+        });
+        long[] html = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            htmlEngine.render(compiled.render(DATA, "cert-1", qrHtml), out);
+            return out.size();
+        });
+
+        report("PDF form fill", fill);
+        report("HTML (iText)", html);
+        System.out.printf("Speed-up at p50: %.1fx%n", html[iterations / 2] / (double) fill[iterations / 2]);
+
+        assertThat(fill[iterations / 2]).isLessThan(html[iterations / 2]);
+    }
+
+    private interface Render {
+        int run() throws Exception;
+    }
+
+    private static long[] measure(int warmup, int iterations, Render render) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            render.run();
+        }
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            assertThat(render.run()).isPositive();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%-14s %8.1f ops/s  p50=%.2fms p95=%.2fms p99=%.2fms%n", name,
+            latencies.length / (total / 1e9),
+            latencies[latencies.length / 2] / 1e6,
+            latencies[(int) (latencies.length * 0.95)] / 1e6,
+            latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private static String qrHtml() throws Exception {
+        // The HTML path gets the same vector QR code production uses with iText
+        return CompiledTemplate.qrSvg(QrCode.encode(QR_URL));
+    }
+
+    private static String formPdfBase64() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            PdfPage page = pdf.addNewPage(PageSize.A4.rotate());
+            PdfAcroForm form = PdfAcroForm.getAcroForm(pdf, true);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(200, 350, 440, 40), "name", ""), page);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(200, 300, 440, 30), "course", ""), page);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(200, 260, 440, 30), "date", ""), page);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(680, 40, 120, 120), "qr_image", ""), page);
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+}
@@ -0,0 +1,103 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.seccertificate.certificateservice.repository.CertificateRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark for the trigram recipient search against a synthetic dataset
+ * (10M certificates spread over 1000 customers by default).
+ * Run manually against PostgreSQL: mvn test -Dbenchmarks=true -Dtest=RecipientSearchBenchmarkTest
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RecipientSearchBenchmarkTest {
+
+    private static final String MARKER_EMAIL = "bench-search-%d@example.com";
+    private static final String[] TERMS = {
+        "alice", "smith", "jonh", "garcia", "user12", "example7", "kowalski", "maria", "chen", "okafor"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Test
+    void recipientSearchShouldStayInSingleDigitMilliseconds() {
+        long rows = Long.getLong("benchmark.rows", 10_000_000L);
+        int customers = Integer.getInteger("benchmark.customers", 1000);
+        List<Long> customerIds = seed(rows, customers);
+
+        // Warm up plans and buffers
+        for (int i = 0; i < 200; i++) {
+            search(customerIds.get(i % customerIds.size()), TERMS[i % TERMS.length]);
+        }
+
+        List<Long> latenciesMicros = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            long start = System.nanoTime();
+            search(customerIds.get((i * 7) % customerIds.size()), TERMS[i % TERMS.length]);
+            latenciesMicros.add((System.nanoTime() - start) / 1000);
+        }
+        Collections.sort(latenciesMicros);
+
+        long p50 = latenciesMicros.get(latenciesMicros.size() / 2);
+        long p95 = latenciesMicros.get((int) (latenciesMicros.size() * 0.95));
+        long p99 = latenciesMicros.get((int) (latenciesMicros.size() * 0.99));
+
+        System.out.printf("Recipient search over %d rows / %d customers: p50=%.2fms p95=%.2fms p99=%.2fms%n",
+            rows, customers, p50 / 1000.0, p95 / 1000.0, p99 / 1000.0);
+
+        assertThat(p95).isLessThan(10_000);
+    }
+
+    private void search(Long customerId, String term) {
+        certificateRepository.searchByRecipient(customerId, term, "%" + term + "%", 2.0, Long.MAX_VALUE, 21);
+    }
+
+    private List<Long> seed(long rows, int customers) {
+        List<Long> existing = jdbcTemplate.queryForList(
+            "SELECT id FROM customers WHERE email LIKE 'bench-search-%@example.com' ORDER BY id", Long.class);
+        if (existing.size() == customers) {
+            return existing;
+        }
+
+        List<Long> customerIds = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            Long customerId = jdbcTemplate.queryForObject(
+                "INSERT INTO customers (company_name, email, password, api_key, status, role, created_at) " +
+                "VALUES (?, ?, 'x', md5(random()::text), 'ACTIVE', 'CUSTOMER', now()) RETURNING id",
+                Long.class, "Bench " + i, String.format(MARKER_EMAIL, i));
+            customerIds.add(customerId);
+        }
+        Long templateId = jdbcTemplate.queryForObject(
+            "INSERT INTO templates (customer_id, name, template_content, type, status, created_at) " +
+            "VALUES (?, 'bench', '<p>{{name}}</p>', 0, 'ACTIVE', now()) RETURNING id",
+            Long.class, customerIds.get(0));
+
+        jdbcTemplate.update(
+            "INSERT INTO certificates (unique_id, customer_id, template_id, file_path, recipient_name, " +
+            "  recipient_email, digital_signature, status, created_at, download_count) " +
+            "SELECT md5(g::text), c.ids[1 + (g % ?)], ?, '/dev/null', " +
+            "  (ARRAY['Alice','John','Maria','Wei','Chidi','Anna','Piotr','Sofia','Omar','Lena'])[1 + g % 10] || ' ' || " +
+            "  (ARRAY['Smith','Garcia','Chen','Okafor','Kowalski','Novak','Haddad','Silva','Ivanova','Brown'])[1 + (g / 10) % 10] " +
+            "    || ' ' || g, " +
+            "  'user' || g || '@example' || (g % 100) || '.com', 'sig', 'GENERATED', now(), 0 " +
+            "FROM generate_series(1, ?) g, (SELECT array_agg(id ORDER BY id) AS ids FROM customers " +
+            "  WHERE email LIKE 'bench-search-%@example.com') c",
+            customers, templateId, rows);
+        jdbcTemplate.execute("ANALYZE certificates");
+        return customerIds;
+    }
+}
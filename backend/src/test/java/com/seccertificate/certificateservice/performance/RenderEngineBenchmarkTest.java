@@ -0,0 +1,137 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.repository.TemplateRepository;
+import com.seccertificate.certificateservice.service.CompiledTemplate;
+import com.seccertificate.certificateservice.service.QrCode;
+import com.seccertificate.certificateservice.service.RenderEngine;
+import com.seccertificate.certificateservice.service.TemplateCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares render engines on the HTML templates stored in the database (a built-in sample when
+ * there are none): throughput, latency percentiles, bytes allocated per render and PDF size.
+ * Run manually: mvn test -Dbenchmarks=true -Dtest=RenderEngineBenchmarkTest
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RenderEngineBenchmarkTest {
+
+    private static final String SAMPLE_TEMPLATE = """
+        <div style="text-align:center; padding:40px; border:8px double #1a3c6e;">
+          <h1 style="font-size:36px;">Certificate of Completion</h1>
+          <p>This certifies that</p>
+          <h2>{{name}}</h2>
+          <p>has completed <strong>{{course}}</strong> on {{date}}.</p>
+          <div>{{qr_image}}</div>
+        </div>
+        """;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private TemplateCompiler templateCompiler;
+
+    @Autowired
+    private List<RenderEngine> engines;
+
+    @Test
+    void compareRenderEngines() throws Exception {
+        int templateCount = Integer.getInteger("benchmark.templates", 10);
+        int warmup = Integer.getInteger("benchmark.warmup", 50);
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+        QrCode qr = QrCode.encode("https://example.com/verify/benchmark");
+
+        Map<String, String> sources = new HashMap<>();
+        templateRepository.findAll(PageRequest.of(0, templateCount, Sort.by("id"))).stream()
+            .filter(template -> template.getType() == Template.TemplateType.HTML)
+            .forEach(template -> sources.put("#" + template.getId() + " " + template.getName(), template.getTemplateContent()));
+        if (sources.isEmpty()) {
+            sources.put("sample", templateCompiler.sanitize(SAMPLE_TEMPLATE));
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%-40s %-14s %9s %9s %9s %9s %12s %12s %10s%n",
+            "template", "engine", "ops/s", "p50 ms", "p95 ms", "p99 ms", "alloc/op KB", "alloc MB/s", "size KB");
+
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            CompiledTemplate compiled = templateCompiler.compile(
+                templateCompiler.normalize(source.getValue(), Template.TemplateType.HTML), Template.TemplateType.HTML);
+            Map<String, String> data = sampleData(templateCompiler.placeholders(source.getValue()));
+
+            String fastest = null;
+            double fastestP50 = Double.MAX_VALUE;
+            for (RenderEngine engine : engines) {
+                // Each engine gets the QR markup production would give it
+                String html = compiled.render(data, "00000000-0000-0000-0000-000000000000", engine.supportsInlineSvg()
+                    ? CompiledTemplate.qrSvg(qr)
+                    : CompiledTemplate.qrImage(Base64.getEncoder().encodeToString(qr.png(200))));
+                for (int i = 0; i < warmup; i++) {
+                    render(engine, html);
+                }
+
+                long[] latencies = new long[iterations];
+                int size = 0;
+                long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    long t0 = System.nanoTime();
+                    size = render(engine, html);
+                    latencies[i] = System.nanoTime() - t0;
+                }
+                long elapsed = System.nanoTime() - start;
+                long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                Arrays.sort(latencies);
+
+                double p50 = latencies[iterations / 2] / 1e6;
+                System.out.printf("%-40.40s %-14s %9.1f %9.2f %9.2f %9.2f %12.1f %12.1f %10.1f%n",
+                    source.getKey(), engine.renderer(),
+                    iterations / (elapsed / 1e9),
+                    p50,
+                    latencies[(int) (iterations * 0.95)] / 1e6,
+                    latencies[(int) (iterations * 0.99)] / 1e6,
+                    allocated / (double) iterations / 1024,
+                    allocated / (elapsed / 1e9) / (1024 * 1024),
+                    size / 1024.0);
+
+                assertThat(size).isPositive();
+                if (p50 < fastestP50) {
+                    fastestP50 = p50;
+                    fastest = engine.renderer().name();
+                }
+            }
+            System.out.printf("%-40.40s fastest: %s%n", source.getKey(), fastest);
+        }
+    }
+
+    private static int render(RenderEngine engine, String html) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        engine.render(html, out);
+        return out.size();
+    }
+
+    private static Map<String, String> sampleData(List<String> placeholders) {
+        Map<String, String> data = new HashMap<>();
+        for (String placeholder : placeholders) {
+            data.put(placeholder, "Sample " + placeholder);
+        }
+        data.remove("qr_image");
+        return data;
+    }
+}
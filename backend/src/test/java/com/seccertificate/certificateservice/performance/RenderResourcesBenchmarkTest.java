@@ -0,0 +1,126 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.seccertificate.certificateservice.service.ITextRenderEngine;
+import com.seccertificate.certificateservice.service.RenderEngine;
+import com.seccertificate.certificateservice.service.RenderResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * html2pdf with fresh converter properties per render (fonts scanned and linked images read every
+ * time) against the shared {@link RenderResources}: first render and steady state.
+ * Run manually: mvn test -Dbenchmarks=true -Dtest=RenderResourcesBenchmarkTest
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RenderResourcesBenchmarkTest {
+
+    private static final String HTML_TEMPLATE = """
+        <html><head><style>
+          body { font-family: 'FreeSans', sans-serif; }
+          .frame { text-align:center; padding:40px; border:8px double #1a3c6e; }
+        </style></head><body>
+        <div class="frame">
+          <img src="%s" style="width:160px;"/>
+          <h1>Certificate of Completion</h1>
+          <h2>Alice Example</h2>
+          <p>has completed <strong>Security</strong> on 2024-01-31.</p>
+        </div>
+        </body></html>
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sharedResourcesShouldMakeRendersCheaper() throws Exception {
+        int warmup = Integer.getInteger("benchmark.warmup", 50);
+        int iterations = Integer.getInteger("benchmark.iterations", 300);
+        String html = HTML_TEMPLATE.formatted(logo().toUri());
+
+        long start = System.nanoTime();
+        render(html, null);
+        long firstBefore = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        RenderResources resources = new RenderResources(false, "", DataSize.ofMegabytes(32), Duration.ofHours(1));
+        long setup = System.nanoTime() - start;
+        RenderEngine engine = new ITextRenderEngine(resources);
+        start = System.nanoTime();
+        render(html, engine);
+        long firstAfter = System.nanoTime() - start;
+
+        long[] before = measure(warmup, iterations, () -> render(html, null));
+        long[] after = measure(warmup, iterations, () -> render(html, engine));
+
+        System.out.printf("First render: per-render properties %.1fms, shared %.1fms (+%.1fms one-time setup)%n",
+            firstBefore / 1e6, firstAfter / 1e6, setup / 1e6);
+        report("Per-render", before);
+        report("Shared", after);
+        System.out.printf("Speed-up at p50: %.1fx%n", before[iterations / 2] / (double) after[iterations / 2]);
+
+        assertThat(after[iterations / 2]).isLessThan(before[iterations / 2]);
+    }
+
+    private static int render(String html, RenderEngine engine) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (engine == null) {
+            HtmlConverter.convertToPdf(html, out, new ConverterProperties());
+        } else {
+            engine.render(html, out);
+        }
+        return out.size();
+    }
+
+    private interface Render {
+        int run() throws Exception;
+    }
+
+    private static long[] measure(int warmup, int iterations, Render render) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            render.run();
+        }
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            assertThat(render.run()).isPositive();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%-14s %8.1f ops/s  p50=%.2fms p95=%.2fms p99=%.2fms%n", name,
+            latencies.length / (total / 1e9),
+            latencies[latencies.length / 2] / 1e6,
+            latencies[(int) (latencies.length * 0.95)] / 1e6,
+            latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private Path logo() throws Exception {
+        BufferedImage image = new BufferedImage(600, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x1a3c6e));
+        graphics.fillRect(0, 0, 600, 200);
+        graphics.dispose();
+        Path logo = tempDir.resolve("logo.png");
+        ImageIO.write(image, "PNG", logo.toFile());
+        return logo;
+    }
+}
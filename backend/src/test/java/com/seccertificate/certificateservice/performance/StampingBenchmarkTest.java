@@ -0,0 +1,113 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.service.CompiledTemplate;
+import com.seccertificate.certificateservice.service.ITextRenderEngine;
+import com.seccertificate.certificateservice.service.PdfGenerationService;
+import com.seccertificate.certificateservice.service.QrCode;
+import com.seccertificate.certificateservice.service.RenderEngine;
+import com.seccertificate.certificateservice.service.RenderResources;
+import com.seccertificate.certificateservice.service.StampedTemplate;
+import com.seccertificate.certificateservice.service.TemplateCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Same HTML certificate stamped onto its static layer and rendered in full by iText.
+ * Run manually: mvn test -Dbenchmarks=true -Dtest=StampingBenchmarkTest
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class StampingBenchmarkTest {
+
+    private static final String HTML_TEMPLATE = """
+        <div style="text-align:center; padding:40px; border:8px double #1a3c6e; font-family:Helvetica;">
+          <h1 style="font-size:36px;">Certificate of Completion</h1>
+          <p>This certifies that</p>
+          <h2>{{name}}</h2>
+          <p>has successfully completed the course</p>
+          <h3>{{course}}</h3>
+          <p>Issued by Example Academy</p>
+          <div>{{qr_image}}</div>
+        </div>
+        """;
+
+    private static final Map<String, String> DATA = Map.of("name", "Alice Example", "course", "Security");
+    private static final String QR_URL = "https://example.com/verify/00000000-0000-0000-0000-000000000000";
+
+    @Test
+    void stampingShouldBeMuchFasterThanFullRender() throws Exception {
+        int warmup = Integer.getInteger("benchmark.warmup", 100);
+        int iterations = Integer.getInteger("benchmark.iterations", 500);
+
+        RenderResources resources = new RenderResources(false, "", DataSize.ofMegabytes(32), Duration.ofHours(1));
+        RenderEngine engine = new ITextRenderEngine(resources);
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(engine), resources);
+        TemplateCompiler compiler = new TemplateCompiler();
+        CompiledTemplate compiled = compiler.compile(
+            compiler.normalize(compiler.sanitize(HTML_TEMPLATE), Template.TemplateType.HTML), Template.TemplateType.HTML);
+
+        String qrHtml = qrHtml();
+
+        long buildStart = System.nanoTime();
+        StampedTemplate layer = StampedTemplate.build(compiled, engine, resources.fontSet()).orElseThrow();
+        System.out.printf("Static layer built once in %.1fms%n", (System.nanoTime() - buildStart) / 1e6);
+
+        long[] stamped = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(pdfGenerationService.stamp(layer, DATA, "cert-1", QR_URL, out)).isTrue();
+            return out.size();
+        });
+        long[] full = measure(warmup, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            engine.render(compiled.render(DATA, "cert-1", qrHtml), out);
+            return out.size();
+        });
+
+        report("Stamped", stamped);
+        report("Full render", full);
+        System.out.printf("Speed-up at p50: %.1fx%n", full[iterations / 2] / (double) stamped[iterations / 2]);
+
+        assertThat(stamped[iterations / 2]).isLessThan(full[iterations / 2]);
+    }
+
+    private static String qrHtml() throws Exception {
+        // The HTML path gets the same vector QR code production uses with iText
+        return CompiledTemplate.qrSvg(QrCode.encode(QR_URL));
+    }
+
+    private interface Render {
+        int run() throws Exception;
+    }
+
+    private static long[] measure(int warmup, int iterations, Render render) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            render.run();
+        }
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            assertThat(render.run()).isPositive();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%-14s %8.1f ops/s  p50=%.2fms p95=%.2fms p99=%.2fms%n", name,
+            latencies.length / (total / 1e9),
+            latencies[latencies.length / 2] / 1e6,
+            latencies[(int) (latencies.length * 0.95)] / 1e6,
+            latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+}
@@ -0,0 +1,81 @@
+package com.seccertificate.certificateservice.performance;
+
+import com.seccertificate.certificateservice.util.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserts random (v4) and time-ordered (v7) unique IDs into scratch tables indexed like
+ * {@code idx_cert_unique_id}, and compares insert throughput and final index size
+ * (10M rows each by default).
+ * Run manually against PostgreSQL: mvn test -Dbenchmarks=true -Dtest=UniqueIdInsertBenchmarkTest
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class UniqueIdInsertBenchmarkTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void timeOrderedIdsShouldInsertFasterIntoASmallerIndex() {
+        long rows = Long.getLong("benchmark.rows", 10_000_000L);
+        int batchSize = Integer.getInteger("benchmark.batch", 10_000);
+
+        Result v4 = run("bench_unique_id_v4", UUID::randomUUID, rows, batchSize);
+        Result v7 = run("bench_unique_id_v7", UuidV7::next, rows, batchSize);
+
+        System.out.printf("%-10s %12s %14s %10s%n", "ids", "rows/s", "index MB", "leaf fill");
+        for (Result result : new Result[] {v4, v7}) {
+            System.out.printf("%-10s %12.0f %14.1f %10s%n", result.name, result.rowsPerSecond,
+                result.indexBytes / 1024.0 / 1024.0, result.leafDensity);
+        }
+
+        assertThat(v7.indexBytes).isLessThan(v4.indexBytes);
+    }
+
+    private Result run(String table, Supplier<UUID> ids, long rows, int batchSize) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + table + " (unique_id varchar(100) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX " + table + "_idx ON " + table + " (unique_id)");
+
+        long start = System.nanoTime();
+        String[] batch = new String[batchSize];
+        for (long inserted = 0; inserted < rows; inserted += batchSize) {
+            int size = (int) Math.min(batchSize, rows - inserted);
+            String[] values = size == batchSize ? batch : new String[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ids.get().toString();
+            }
+            jdbcTemplate.update("INSERT INTO " + table + " (unique_id) SELECT unnest(?::varchar[])", (Object) values);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, table + "_idx");
+        String leafDensity = leafDensity(table + "_idx");
+        jdbcTemplate.execute("DROP TABLE " + table);
+        return new Result(table.substring(table.lastIndexOf('_') + 1), rows / seconds, indexBytes, leafDensity);
+    }
+
+    // Needs the pgstattuple extension; reported as n/a without it
+    private String leafDensity(String index) {
+        try {
+            Double density = jdbcTemplate.queryForObject(
+                "SELECT avg_leaf_density FROM pgstatindex(?)", Double.class, index);
+            return String.format("%.0f%%", density);
+        } catch (RuntimeException e) {
+            return "n/a";
+        }
+    }
+
+    private record Result(String name, double rowsPerSecond, long indexBytes, String leafDensity) {
+    }
+}
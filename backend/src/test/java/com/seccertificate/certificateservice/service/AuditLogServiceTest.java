@@ -0,0 +1,107 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.seccertificate.certificateservice.dto.AuditLogDTO;
+import com.seccertificate.certificateservice.dto.CursorPageResponse;
+import com.seccertificate.certificateservice.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+public class AuditLogServiceTest {
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuditLogService auditLogService;
+
+    private final AuditLogService.Filter filter =
+        new AuditLogService.Filter("EXPORT_REGISTER", null, null, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+
+    @BeforeEach
+    void setup() {
+        auditLogService = new AuditLogService(auditLogRepository, transactionManager);
+    }
+
+    @Test
+    void filter_defaultsToTheLastThirtyDays() {
+        AuditLogService.Filter defaults = new AuditLogService.Filter(" ", "", null, null, LocalDate.of(2026, 3, 31));
+
+        assertEquals(LocalDate.of(2026, 3, 2), defaults.from());
+        assertNull(defaults.action());
+        assertNull(defaults.entityType());
+        assertThrows(IllegalArgumentException.class,
+            () -> new AuditLogService.Filter(null, null, null, LocalDate.of(2026, 4, 1), LocalDate.of(2026, 3, 1)));
+    }
+
+    @Test
+    void getAuditLogs_continuesAfterTheCursor() {
+        LocalDateTime end = LocalDateTime.of(2026, 4, 1, 0, 0);
+        when(auditLogRepository.findPageByCustomerIdAndDateRange(eq(10L), any(), eq(end), eq("EXPORT_REGISTER"),
+                any(), any(), eq(end), eq(Long.MAX_VALUE), eq(Limit.of(3))))
+            .thenReturn(List.of(event(9L, 12), event(8L, 11), event(7L, 10)));
+
+        CursorPageResponse<AuditLogDTO> first = auditLogService.getAuditLogs(10L, filter, null, 2);
+
+        assertEquals(2, first.getContent().size());
+        assertFalse(first.isLast());
+
+        when(auditLogRepository.findPageByCustomerIdAndDateRange(eq(10L), any(), eq(end), eq("EXPORT_REGISTER"),
+                any(), any(), eq(LocalDateTime.of(2026, 3, 5, 11, 0)), eq(8L), eq(Limit.of(3))))
+            .thenReturn(List.of(event(7L, 10)));
+
+        CursorPageResponse<AuditLogDTO> second = auditLogService.getAuditLogs(10L, filter, first.getNextCursor(), 2);
+
+        assertEquals(List.of(7L), second.getContent().stream().map(AuditLogDTO::getId).toList());
+        assertTrue(second.isLast());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getAuditLogs_rejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> auditLogService.getAuditLogs(10L, filter, "bm90LWEtY3Vyc29y", 20));
+    }
+
+    @Test
+    void export_writesCsvOldestFirst() throws Exception {
+        when(auditLogRepository.streamByCustomerIdAndDateRange(eq(10L), any(), any(), eq("EXPORT_REGISTER"), any(), any()))
+            .thenReturn(Stream.of(event(7L, 10), event(8L, 11)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = auditLogService.export(10L, filter, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, written);
+        assertEquals("id,timestamp,action,entityType,entityId,details,ipAddress,userAgent", lines[0]);
+        assertEquals("7,2026-03-05T10:00,EXPORT_REGISTER,CERTIFICATE,,\"{\"\"count\"\":1}\",,", lines[1]);
+    }
+
+    private static AuditLogDTO event(Long id, int hour) {
+        return AuditLogDTO.builder()
+                .id(id)
+                .action("EXPORT_REGISTER")
+                .entityType("CERTIFICATE")
+                .details("{\"count\":1}")
+                .timestamp(LocalDateTime.of(2026, 3, 5, hour, 0))
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class AuditServiceTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final List<String> inserted = new ArrayList<>();
+    private Path spillPath;
+    private AuditService auditService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        spillPath = spillDir.resolve("audit-events.ndjson");
+        auditService = new AuditService(jdbcTemplate, objectMapper, 4, 500, spillPath.toString());
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                Collection<AuditService.AuditEvent> events = invocation.getArgument(1);
+                events.forEach(event -> inserted.add(event.action()));
+                return new int[0][];
+            });
+    }
+
+    @Test
+    void fullBufferSpillsAndFlushReplaysTheSpill() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            auditService.record(1L, "ACTION_" + i, "CERTIFICATE", (long) i, null);
+        }
+
+        assertEquals(4, auditService.pendingEvents());
+        assertEquals(2, Files.readAllLines(spillPath).size());
+
+        auditService.flush();
+
+        // Buffered events first, then the spill once the buffer has drained
+        assertEquals(List.of("ACTION_0", "ACTION_1", "ACTION_2", "ACTION_3", "ACTION_4", "ACTION_5"), inserted);
+        assertFalse(Files.exists(spillPath));
+        assertEquals(0, auditService.pendingEvents());
+    }
+
+    @Test
+    void failedInsertSpillsTheBatchForLaterReplay() {
+        doThrow(new DataAccessResourceFailureException("database down"))
+            .when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        auditService.record(1L, "GENERATE_CERTIFICATE", "CERTIFICATE", 10L, AuditService.details("recipientName", "Ada"));
+        auditService.record(1L, "DOWNLOAD_CERTIFICATE", "CERTIFICATE", 10L, null);
+
+        auditService.flush();
+        assertTrue(Files.exists(spillPath));
+        assertTrue(inserted.isEmpty());
+
+        // The spill survives a restart and is replayed on startup
+        reset(jdbcTemplate);
+        setup();
+        auditService.run(null);
+
+        assertEquals(List.of("GENERATE_CERTIFICATE", "DOWNLOAD_CERTIFICATE"), inserted);
+        assertFalse(Files.exists(spillPath));
+    }
+}
@@ -0,0 +1,97 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AuditSpillFileTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void concurrentReplaysWriteEachEventOnce() throws Exception {
+        AuditSpillFile spillFile = new AuditSpillFile(spillDir.resolve("audit.ndjson"), objectMapper);
+        spillFile.append(List.of(event("A"), event("B"), event("C")));
+
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return spillFile.replay(2, chunk -> {
+                    writing.countDown();
+                    await(release);
+                    chunk.forEach(event -> written.add(event.action()));
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Startup and the scheduled flush can both try to replay; the second one leaves it to the first
+        spillFile.append(List.of(event("D")));
+        assertEquals(0, spillFile.replay(2, chunk -> chunk.forEach(event -> written.add(event.action()))));
+
+        release.countDown();
+        assertEquals(3, first.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("A", "B", "C"), written);
+
+        // Spilled during the replay, so it went to a fresh file
+        assertTrue(spillFile.hasPending());
+        assertEquals(1, spillFile.replay(2, chunk -> chunk.forEach(event -> written.add(event.action()))));
+        assertEquals(List.of("A", "B", "C", "D"), written);
+        assertFalse(spillFile.hasPending());
+    }
+
+    @Test
+    void failedReplayKeepsTheFileAndSkipsTornLines() throws Exception {
+        Path path = spillDir.resolve("audit.ndjson");
+        AuditSpillFile spillFile = new AuditSpillFile(path, objectMapper);
+        spillFile.append(List.of(event("A")));
+        Files.writeString(path, "{\"customerId\":1,\"act", StandardOpenOption.APPEND);
+
+        assertThrows(IllegalStateException.class, () -> spillFile.replay(10, chunk -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertTrue(spillFile.hasPending());
+
+        List<String> written = new ArrayList<>();
+        assertEquals(1, spillFile.replay(10, chunk -> chunk.forEach(event -> written.add(event.action()))));
+        assertEquals(List.of("A"), written);
+        assertFalse(spillFile.hasPending());
+    }
+
+    private static AuditService.AuditEvent event(String action) {
+        return new AuditService.AuditEvent(1L, action, "CERTIFICATE", 1L, null, null, null, LocalDateTime.now());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
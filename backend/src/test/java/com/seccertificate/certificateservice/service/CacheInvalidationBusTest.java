@@ -0,0 +1,154 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.seccertificate.certificateservice.entity.Customer;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.security.ApiKeyCache;
+import com.seccertificate.certificateservice.security.CustomUserDetails;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Two buses standing in for two application nodes, connected through an embedded PostgreSQL.
+ */
+public class CacheInvalidationBusTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        nodeA = new Node();
+        nodeB = new Node();
+        nodeA.bus.start();
+        nodeB.bus.start();
+        awaitListening(2);
+    }
+
+    @AfterEach
+    void cleanup() {
+        nodeA.bus.stop();
+        nodeB.bus.stop();
+    }
+
+    @Test
+    void customerChangeEvictsApiKeysAndEntityOnOtherNode() {
+        nodeB.apiKeyCache.get("key-7", key -> user(7L));
+        nodeB.apiKeyCache.get("key-8", key -> user(8L));
+
+        nodeA.bus.publish(CacheInvalidationBus.Type.CUSTOMER, 7L);
+
+        await(() -> nodeB.apiKeyCache.get("key-7", key -> null) == null);
+        assertNotNull(nodeB.apiKeyCache.get("key-8", key -> null));
+        verify(nodeB.l2Cache, timeout(1000)).evict(Customer.class, 7L);
+    }
+
+    @Test
+    void revocationEvictsVerificationResultsOnEveryNode() {
+        VerificationResultCache.VerificationResult valid = new VerificationResultCache.VerificationResult(true, 1L, 2L);
+        nodeA.verificationCache.put("cert-1", "sig", valid, nodeA.verificationCache.readStamp());
+        nodeB.verificationCache.put("cert-1", "sig", valid, nodeB.verificationCache.readStamp());
+        nodeB.verificationCache.put("cert-2", "sig", valid, nodeB.verificationCache.readStamp());
+
+        nodeA.bus.publish(CacheInvalidationBus.Type.CERTIFICATE, "cert-1");
+
+        assertNull(nodeA.verificationCache.get("cert-1", "sig"));
+        await(() -> nodeB.verificationCache.get("cert-1", "sig") == null);
+        assertNotNull(nodeB.verificationCache.get("cert-2", "sig"));
+    }
+
+    @Test
+    void templateChangeEvictsSecondLevelCacheEntry() {
+        nodeA.bus.publish(CacheInvalidationBus.Type.TEMPLATE, 42L);
+        verify(nodeB.l2Cache, timeout(1000)).evict(Template.class, 42L);
+    }
+
+    @Test
+    void reconnectFlushesEverything() {
+        nodeB.verificationCache.put("cert-3", "sig", new VerificationResultCache.VerificationResult(true, 1L, 2L),
+            nodeB.verificationCache.readStamp());
+
+        // Anything published while B is disconnected is lost, so B must flush after reconnecting
+        new JdbcTemplate(postgres.getPostgresDatabase()).queryForList(
+            "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+            "cache-invalidation-" + nodeB.bus.nodeId());
+
+        await(() -> nodeB.verificationCache.get("cert-3", "sig") == null);
+        verify(nodeB.l2Cache, timeout(5000)).evict(Template.class);
+        verify(nodeB.l2Cache, timeout(5000)).evict(Customer.class);
+    }
+
+    private static CustomUserDetails user(Long id) {
+        return new CustomUserDetails(id, "user" + id + "@example.com", "", "CUSTOMER", Customer.CustomerStatus.ACTIVE);
+    }
+
+    private static void awaitListening(int listeners) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        await(() -> {
+            Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_stat_activity WHERE application_name LIKE 'cache-invalidation-%' " +
+                "AND query LIKE 'LISTEN%'", Integer.class);
+            return count != null && count >= listeners;
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5s");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Cache l2Cache = mock(Cache.class);
+        private final ApiKeyCache apiKeyCache = new ApiKeyCache(100, Duration.ofMinutes(5));
+        private final VerificationResultCache verificationCache = new VerificationResultCache(100, Duration.ofMinutes(5));
+        private final CacheInvalidationBus bus;
+
+        private Node() {
+            DataSourceProperties properties = new DataSourceProperties();
+            properties.setUrl(postgres.getJdbcUrl("postgres", "postgres"));
+            properties.setUsername("postgres");
+            properties.setPassword("postgres");
+
+            EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+            when(entityManagerFactory.getCache()).thenReturn(l2Cache);
+
+            bus = new CacheInvalidationBus(new JdbcTemplate(postgres.getPostgresDatabase()), properties,
+                entityManagerFactory, apiKeyCache, verificationCache, true);
+        }
+    }
+}
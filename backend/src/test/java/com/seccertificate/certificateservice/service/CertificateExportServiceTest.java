@@ -0,0 +1,101 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.entity.Certificate;
+import com.seccertificate.certificateservice.repository.CertificateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+public class CertificateExportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CertificateRepository certificateRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private UsageRollupService usageRollupService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CertificateExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        exportService = new CertificateExportService(jdbcTemplate, certificateRepository, objectMapper,
+            transactionManager, auditService, usageRollupService);
+    }
+
+    @Test
+    void exportRegister_writesOneJsonObjectPerLine() throws Exception {
+        when(certificateRepository.streamRegister(10L)).thenReturn(Stream.of(row("u-1", "Alice"), row("u-2", "Bob")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.exportRegister(10L, CertificateExportService.RegisterFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("u-1", first.get("uniqueId").asText());
+        assertEquals("Alice", first.get("recipientName").asText());
+        assertEquals("GENERATED", first.get("status").asText());
+        assertEquals("2026-01-02T03:04:05", first.get("createdAt").asText());
+        assertTrue(first.get("downloadedAt").isNull());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void exportRegister_writesCsvWithHeader() throws Exception {
+        when(certificateRepository.streamRegister(10L)).thenReturn(Stream.of(row("u-1", "Doe, \"Jane\"")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportRegister(10L, CertificateExportService.RegisterFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("uniqueId,templateId,templateName,recipientName,recipientEmail,status,createdAt,downloadedAt,downloadCount,batchId",
+            lines[0]);
+        assertEquals("u-1,20,Diploma,\"Doe, \"\"Jane\"\"\",a@example.com,GENERATED,2026-01-02T03:04:05,,0,", lines[1]);
+    }
+
+    @Test
+    void registerFormat_rejectsUnknownNames() {
+        assertEquals(CertificateExportService.RegisterFormat.CSV, CertificateExportService.RegisterFormat.of("csv"));
+        assertThrows(IllegalArgumentException.class, () -> CertificateExportService.RegisterFormat.of("xml"));
+    }
+
+    private static CertificateRepository.RegisterRow row(String uniqueId, String recipientName) {
+        CertificateRepository.RegisterRow row = mock(CertificateRepository.RegisterRow.class);
+        when(row.getUniqueId()).thenReturn(uniqueId);
+        when(row.getTemplateId()).thenReturn(20L);
+        when(row.getTemplateName()).thenReturn("Diploma");
+        when(row.getRecipientName()).thenReturn(recipientName);
+        when(row.getRecipientEmail()).thenReturn("a@example.com");
+        when(row.getStatus()).thenReturn(Certificate.CertificateStatus.GENERATED);
+        when(row.getCreatedAt()).thenReturn(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        when(row.getDownloadCount()).thenReturn(0);
+        return row;
+    }
+}
@@ -0,0 +1,126 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.repository.CertificateRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Exports from a real database into a ZIP and reads the archive back.
+ */
+public class CertificateExportZipTest {
+
+    private static final String BATCH_ID = UUID.randomUUID().toString();
+
+    private static EmbeddedPostgres postgres;
+
+    @TempDir
+    Path storage;
+
+    private JdbcTemplate jdbcTemplate;
+    private UsageRollupService usageRollupService;
+    private CertificateExportService exportService;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute("DROP TABLE IF EXISTS certificates");
+        jdbcTemplate.execute("CREATE TABLE certificates (id bigserial PRIMARY KEY, unique_id varchar(100), "
+            + "customer_id bigint, template_id bigint, batch_id varchar(36), file_path text, status varchar(20), "
+            + "download_count int, downloaded_at timestamp, created_at timestamp NOT NULL DEFAULT now() - interval '1 minute')");
+        usageRollupService = mock(UsageRollupService.class);
+        exportService = new CertificateExportService(jdbcTemplate, mock(CertificateRepository.class), new ObjectMapper(),
+            new DataSourceTransactionManager(postgres.getPostgresDatabase()), mock(AuditService.class), usageRollupService);
+    }
+
+    @Test
+    void writesStoredEntriesAndCountsOnlyExportedCertificates() throws Exception {
+        byte[] first = pdfBytes(3000);
+        byte[] second = pdfBytes(70_000); // larger than the copy buffer
+        insert("u-1", 1L, file("u-1.pdf", first));
+        insert("u-2", 1L, storage.resolve("missing.pdf").toString());
+        insert("u-3", 1L, file("u-3.pdf", second));
+        insert("u-4", 2L, file("u-4.pdf", first)); // another customer
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exported = exportService.export(1L, new CertificateExportService.Filter(BATCH_ID, null, null, null), out);
+
+        assertEquals(2, exported);
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                byte[] data = zip.readAllBytes();
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals(data.length, entry.getSize());
+                assertEquals(data.length, entry.getCompressedSize());
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                assertEquals(crc.getValue(), entry.getCrc());
+                entries.put(entry.getName(), data);
+            }
+        }
+        assertEquals(2, entries.size());
+        assertArrayEquals(first, entries.get("certificate_u-1.pdf"));
+        assertArrayEquals(second, entries.get("certificate_u-3.pdf"));
+
+        assertEquals(1, downloadCount("u-1"));
+        assertEquals(0, downloadCount("u-2"), "Files missing from storage are not counted");
+        assertEquals(1, downloadCount("u-3"));
+        assertEquals(0, downloadCount("u-4"));
+        assertEquals("DOWNLOADED", jdbcTemplate.queryForObject(
+            "SELECT status FROM certificates WHERE unique_id = 'u-1'", String.class));
+        verify(usageRollupService).recordDownloaded(1L, 20L, 2L);
+    }
+
+    private void insert(String uniqueId, Long customerId, String filePath) {
+        jdbcTemplate.update("INSERT INTO certificates (unique_id, customer_id, template_id, batch_id, file_path, "
+            + "status, download_count) VALUES (?, ?, 20, ?, ?, 'GENERATED', 0)", uniqueId, customerId, BATCH_ID, filePath);
+    }
+
+    private int downloadCount(String uniqueId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT download_count FROM certificates WHERE unique_id = ?", Integer.class, uniqueId);
+    }
+
+    private String file(String name, byte[] content) throws Exception {
+        return Files.write(storage.resolve(name), content).toString();
+    }
+
+    private static byte[] pdfBytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+}
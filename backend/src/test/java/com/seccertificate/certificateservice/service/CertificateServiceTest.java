@@ -5,6 +5,8 @@ import static org.mockito.Mockito.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.seccertificate.certificateservice.entity.Certificate;
+import com.seccertificate.certificateservice.entity.Customer;
+import com.seccertificate.certificateservice.entity.Template;
 import com.seccertificate.certificateservice.repository.CertificateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +33,12 @@ public class CertificateServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private UsageRollupService usageRollupService;
+
+    @Mock
+    private VerificationResultCache verificationResultCache;
+
     @InjectMocks
     private com.seccertificate.certificateservice.service.CertificateService certificateService;
 
@@ -43,6 +51,8 @@ public class CertificateServiceTest {
                 .uniqueId("u-1")
                 .certificateData('{'+"\"name\":\"Alice\""+'}')
                 .digitalSignature("sig1")
+                .customer(Customer.builder().id(10L).build())
+                .template(Template.builder().id(20L).build())
                 .build();
     }
 
@@ -57,6 +67,7 @@ public class CertificateServiceTest {
 
         boolean res = certificateService.verifyCertificate("u-1", "sig1");
         assertTrue(res);
+        verify(usageRollupService).recordVerified(10L, 20L);
     }
 
     @Test
@@ -0,0 +1,90 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class DownloadCounterServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final Map<Long, Long> applied = new ConcurrentHashMap<>();
+    private DownloadCounterService counterService;
+
+    @BeforeEach
+    void setup() {
+        counterService = new DownloadCounterService(jdbcTemplate, new TransactionTemplate(transactionManager));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                applied.merge((Long) row[2], (Long) row[0], Long::sum);
+            }
+            return new int[batch.size()];
+        });
+    }
+
+    @Test
+    void everyDownloadIsFlushedExactlyOnceUnderConcurrentRecording() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counterService.recordDownload((long) (i % 10), CREATED_AT);
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            counterService.flush();
+        }
+        counterService.flush();
+        executor.shutdown();
+
+        assertEquals(10, applied.size());
+        applied.values().forEach(count -> assertEquals(threads * perThread / 10L, count));
+    }
+
+    @Test
+    void failedFlushRollsBackAndIsRetriedWithLaterDownloads() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("database down"))
+            .thenAnswer(invocation -> {
+                List<Object[]> batch = invocation.getArgument(1);
+                batch.forEach(row -> applied.merge((Long) row[2], (Long) row[0], Long::sum));
+                return new int[batch.size()];
+            });
+        counterService.recordDownload(1L, CREATED_AT);
+        counterService.recordDownload(1L, CREATED_AT);
+
+        counterService.flush();
+        verify(transactionManager).rollback(any());
+        assertTrue(applied.isEmpty());
+
+        counterService.recordDownload(1L, CREATED_AT);
+        counterService.flush();
+
+        assertEquals(Map.of(1L, 3L), applied);
+        verify(transactionManager).commit(any());
+    }
+}
@@ -0,0 +1,187 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.seccertificate.certificateservice.config.GenerationProperties;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.exception.TooManyRequestsException;
+import com.seccertificate.certificateservice.service.GenerationScheduler.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GenerationSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private GenerationScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void customersTakeTurnsWeightedByCost() throws Exception {
+        scheduler = singleWorker();
+        block(Lane.BULK);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        futures.add(record(1L, Lane.BULK, 100, "A1"));
+        futures.add(record(1L, Lane.BULK, 100, "A2"));
+        futures.add(record(2L, Lane.BULK, 1, "B1"));
+        futures.add(record(2L, Lane.BULK, 1, "B2"));
+        futures.add(record(3L, Lane.BULK, 100, "C1"));
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("A1", "B1", "C1", "B2", "A2"), order);
+    }
+
+    @Test
+    void interactiveGoesFirstButBulkIsNotStarved() throws Exception {
+        scheduler = singleWorker();
+        block(Lane.BULK);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        futures.add(record(1L, Lane.BULK, 10, "batch"));
+        futures.add(record(2L, Lane.INTERACTIVE, 1, "I1"));
+        futures.add(record(2L, Lane.INTERACTIVE, 1, "I2"));
+        futures.add(record(2L, Lane.INTERACTIVE, 1, "I3"));
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("I1", "I2", "batch", "I3"), order);
+    }
+
+    @Test
+    void queueLimitRefusesOnlyThatCustomer() throws Exception {
+        GenerationProperties properties = properties();
+        properties.setMaxQueuedPerCustomer(2);
+        scheduler = new GenerationScheduler(properties, meterRegistry);
+        block(Lane.BULK);
+        record(1L, Lane.BULK, 1, "A1");
+        record(1L, Lane.BULK, 1, "A2");
+
+        assertThrows(TooManyRequestsException.class, () -> record(1L, Lane.INTERACTIVE, 1, "A3"));
+        assertEquals(2, scheduler.queuedCost(Lane.BULK));
+        assertDoesNotThrow(() -> record(2L, Lane.BULK, 1, "B1"));
+    }
+
+    @Test
+    void admissionRefusesWorkThatCannotStartInTime() throws Exception {
+        GenerationProperties properties = properties();
+        properties.getAdmission().setMinThroughput(1);
+        properties.getAdmission().setMaxQueueSeconds(10);
+        scheduler = new GenerationScheduler(properties, meterRegistry);
+        block(Lane.BULK);
+
+        // An empty queue admits a batch of any size
+        record(1L, Lane.BULK, 8, "A");
+        TooManyRequestsException full = assertThrows(TooManyRequestsException.class, () -> record(2L, Lane.BULK, 3, "B"));
+        assertEquals(1, full.getRetryAfterSeconds());
+        record(2L, Lane.BULK, 2, "B");
+
+        // Interactive work only waits for the interactive lane, but counts towards the customer's share
+        record(2L, Lane.INTERACTIVE, 1, "I1");
+        record(2L, Lane.INTERACTIVE, 1, "I2");
+        record(2L, Lane.INTERACTIVE, 1, "I3");
+        TooManyRequestsException share = assertThrows(TooManyRequestsException.class,
+            () -> record(2L, Lane.INTERACTIVE, 1, "I4"));
+        assertEquals(3, share.getRetryAfterSeconds());
+        assertEquals(14, scheduler.estimatedSeconds(Lane.BULK, 1));
+    }
+
+    @Test
+    void failuresCompleteTheFutureAndRecordQueueWait() throws Exception {
+        scheduler = singleWorker();
+        CompletableFuture<Object> failed = scheduler.submit(7L, Lane.INTERACTIVE, 1, () -> {
+            throw new IllegalStateException("render failed");
+        });
+
+        Exception e = assertThrows(Exception.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, meterRegistry.get("certificate.generation.queue.wait")
+            .tag("customer", "7").tag("lane", "interactive").timer().count());
+    }
+
+    @Test
+    void acceptedBatchWaitsOutSaturatedRenderLimiter(@TempDir Path storage) throws Exception {
+        scheduler = singleWorker();
+        RenderLimiter limiter = new RenderLimiter(1, 1, 1, 1.5, 10, new SimpleMeterRegistry());
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(), null, limiter);
+        ReflectionTestUtils.setField(pdfGenerationService, "storagePath", storage.toString());
+        CompiledTemplate template = new CompiledTemplate(Template.TemplateType.JSON,
+            TemplateCompiler.segments("Awarded to {{name}}", Template.TemplateType.JSON));
+
+        CompletableFuture<List<String>> batch;
+        try (RenderLimiter.Permit busy = limiter.acquire()) {
+            batch = scheduler.submit(1L, Lane.BULK, 3, () -> {
+                List<String> files = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    files.add(pdfGenerationService.generateCertificatePdf(template, null, false,
+                        Map.of("name", "Alice"), "cert-" + i, null));
+                }
+                return files;
+            });
+
+            // Well past the acquire timeout: the batch keeps waiting, synchronous renders are refused
+            Thread.sleep(200);
+            assertFalse(batch.isDone());
+            assertThrows(TooManyRequestsException.class, () -> pdfGenerationService.generateCertificatePdf(
+                template, null, false, Map.of("name", "Bob"), "cert-sync", null));
+        }
+
+        List<String> files = batch.get(10, TimeUnit.SECONDS);
+        assertEquals(3, files.size());
+        for (String file : files) {
+            assertTrue(Files.size(Path.of(file)) > 0);
+        }
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private GenerationScheduler singleWorker() {
+        return new GenerationScheduler(properties(), meterRegistry);
+    }
+
+    private static GenerationProperties properties() {
+        GenerationProperties properties = new GenerationProperties();
+        properties.setWorkers(1);
+        properties.setReservedInteractive(0);
+        properties.setInteractiveBurst(2);
+        // Admission out of the way unless a test lowers it
+        properties.getAdmission().setMinThroughput(1000);
+        return properties;
+    }
+
+    /** Occupies the only worker until {@link #release} opens. */
+    private void block(Lane lane) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(99L, lane, 1, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+    }
+
+    private CompletableFuture<String> record(Long customerId, Lane lane, int cost, String name) {
+        return scheduler.submit(customerId, lane, cost, () -> {
+            order.add(name);
+            return name;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.seccertificate.certificateservice.entity.Template;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+public class JsonLayoutTemplateTest {
+
+    static final String LAYOUT = """
+        {
+          "pageSize": "A4", "orientation": "landscape", "font": "Helvetica",
+          "pages": [{
+            "background": "#fffdf5",
+            "elements": [
+              {"type": "rect", "x": 20, "y": 20, "width": 802, "height": 555, "stroke": "#1a3c6e", "lineWidth": 4},
+              {"type": "text", "x": 0, "y": 80, "width": 842, "height": 50, "text": "Certificate of Completion",
+               "font": "Helvetica-Bold", "fontSize": 32, "align": "center"},
+              {"type": "text", "x": 0, "y": 200, "width": 842, "height": 40, "text": "{{name}}",
+               "fontSize": 26, "align": "center", "color": "#1a3c6e"},
+              {"type": "text", "x": 0, "y": 260, "width": 842, "height": 30,
+               "text": "has completed {{course}} on {{date}}", "align": "center"},
+              {"type": "qr", "x": 700, "y": 440, "size": 100}
+            ]
+          }]
+        }
+        """;
+
+    @Test
+    void parse_compilesPagesAndElements() {
+        JsonLayoutTemplate layout = JsonLayoutTemplate.parse(LAYOUT);
+
+        assertEquals(842f, layout.pageSize().getWidth(), 0.5f);
+        assertEquals(1, layout.pages().size());
+        assertEquals(5, layout.pages().get(0).elements().size());
+        assertTrue(layout.hasQrElement());
+    }
+
+    @Test
+    void parse_rejectsInvalidLayouts() {
+        assertThrows(IllegalArgumentException.class, () -> JsonLayoutTemplate.parse("not json"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLayoutTemplate.parse("{\"pages\": []}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLayoutTemplate.parse(
+            "{\"pages\": [{\"elements\": [{\"type\": \"text\", \"x\": 0, \"y\": 0, \"width\": 10, \"text\": \"a\"}]}]}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLayoutTemplate.parse(
+            "{\"font\": \"Comic Sans\", \"pages\": [{\"elements\": []}]}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLayoutTemplate.parse(
+            "{\"pages\": [{\"elements\": [{\"type\": \"image\", \"x\": 0, \"y\": 0, \"width\": 10, \"height\": 10,"
+                + " \"src\": \"http://example.com/logo.png\"}]}]}"));
+    }
+
+    @Test
+    void compile_keepsLegacyJsonContentAsText() {
+        CompiledTemplate compiled = new TemplateCompiler().compile("Hello {{name}}", Template.TemplateType.JSON);
+
+        assertNull(compiled.getJsonLayout());
+        assertEquals("Hello Bob", compiled.render(Map.of("name", "Bob"), "cert-1", null));
+    }
+
+    @Test
+    void render_drawsTextAndStampsId() throws Exception {
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfGenerationService.renderJsonLayout(JsonLayoutTemplate.parse(LAYOUT),
+            Map.of("name", "Alice Example", "course", "Security", "date", "2024-01-31"),
+            "cert-1", "https://example.com/verify/cert-1", out);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            String text = PdfTextExtractor.getTextFromPage(pdf.getFirstPage());
+            assertTrue(text.contains("Alice Example"));
+            assertTrue(text.contains("has completed Security on 2024-01-31"));
+            assertTrue(text.contains("Certificate ID: cert-1"));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MergedPdfTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void finish_writesAllPagesWithSharedImageOnce() throws Exception {
+        byte[] logo = png();
+        Path target = dir.resolve("batch.pdf");
+
+        try (MergedPdf merged = new MergedPdf(target)) {
+            for (int i = 0; i < 3; i++) {
+                merged.append(certificate("cert-" + i + ".pdf", logo));
+            }
+            assertFalse(Files.exists(target), "Only finished documents appear under their final name");
+            merged.finish();
+        }
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(target.toString()))) {
+            assertEquals(3, pdf.getNumberOfPages());
+            int images = 0;
+            for (int i = 1; i < pdf.getNumberOfPdfObjects(); i++) {
+                PdfObject object = pdf.getPdfObject(i);
+                if (object instanceof PdfStream stream && PdfName.Image.equals(stream.getAsName(PdfName.Subtype))) {
+                    images++;
+                }
+            }
+            assertEquals(1, images, "Identical images should be stored once");
+        }
+        assertFalse(Files.exists(dir.resolve("batch.pdf.part")));
+    }
+
+    @Test
+    void close_withoutFinishLeavesNoFile() throws Exception {
+        Path target = dir.resolve("batch.pdf");
+
+        try (MergedPdf merged = new MergedPdf(target)) {
+            merged.append(certificate("cert.pdf", png()));
+        }
+
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(dir.resolve("batch.pdf.part")));
+    }
+
+    @Test
+    void finishAfterCommit_publishesOnlyOnCommit() throws Exception {
+        Path committed = dir.resolve("committed.pdf");
+        Path rolledBack = dir.resolve("rolled-back.pdf");
+
+        assertEquals(committed, completeInTransaction(committed, TransactionSynchronization.STATUS_COMMITTED));
+        assertNull(completeInTransaction(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(committed.toString()))) {
+            assertEquals(1, pdf.getNumberOfPages());
+        }
+        assertFalse(Files.exists(rolledBack));
+        assertFalse(Files.exists(dir.resolve("rolled-back.pdf.part")));
+    }
+
+    /** Finishes in a simulated transaction and returns the target if it existed after completion. */
+    private Path completeInTransaction(Path target, int status) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            try (MergedPdf merged = new MergedPdf(target)) {
+                merged.append(certificate(target.getFileName() + ".cert.pdf", png()));
+                merged.finishAfterCommit();
+            }
+            assertFalse(Files.exists(target), "Nothing is published before the transaction completes");
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(status);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        return Files.exists(target) ? target : null;
+    }
+
+    private Path certificate(String name, byte[] logo) throws Exception {
+        Path file = dir.resolve(name);
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(file.toString()))) {
+            new PdfCanvas(pdf.addNewPage())
+                .addImageFittedIntoRectangle(ImageDataFactory.create(logo), new Rectangle(36, 700, 100, 50), false);
+        }
+        return file;
+    }
+
+    private static byte[] png() throws Exception {
+        BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 3, 0x1a3c6e);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,169 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PartitionMaintenanceServiceTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private JdbcTemplate jdbcTemplate;
+    private PartitionMaintenanceService service;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        service = new PartitionMaintenanceService(jdbcTemplate,
+            new TransactionTemplate(new DataSourceTransactionManager(postgres.getPostgresDatabase())), taskScheduler);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "monthsAhead", 3);
+        ReflectionTestUtils.setField(service, "auditRetentionMonths", 13);
+        ReflectionTestUtils.setField(service, "dropExpired", true);
+        ReflectionTestUtils.setField(service, "copyBatchSize", 500);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS certificates_partitioned, certificates CASCADE");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS certificates_mirror() CASCADE");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS certificate_ids_sync() CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS certificate_ids");
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS certificates_part_id_seq");
+    }
+
+    @Test
+    void convertsOnlineWithoutLosingConcurrentWrites() throws Exception {
+        jdbcTemplate.execute("CREATE TABLE certificates (id bigserial PRIMARY KEY, unique_id varchar(100) NOT NULL "
+            + "UNIQUE, status varchar(20), created_at timestamp NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_cert_created ON certificates (created_at)");
+        jdbcTemplate.update("INSERT INTO certificates (unique_id, status, created_at) "
+            + "SELECT 'id-' || n, 'GENERATED', now() - (n % 90) * interval '1 day' FROM generate_series(1, 20000) n");
+
+        // Updates and inserts keep running through the copy and the swap
+        Map<Long, String> expected = new ConcurrentHashMap<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            JdbcTemplate writes = new JdbcTemplate(postgres.getPostgresDatabase());
+            int n = 0;
+            while (!stop.get()) {
+                try {
+                    long id = ThreadLocalRandom.current().nextLong(1, 20001);
+                    String status = "S" + (n++);
+                    if (writes.update("UPDATE certificates SET status = ? WHERE id = ?", status, id) == 1) {
+                        expected.put(id, status);
+                    }
+                    Long inserted = writes.queryForObject("INSERT INTO certificates (unique_id, status, created_at) "
+                        + "VALUES (?, 'NEW', now()) RETURNING id", Long.class, "new-" + n);
+                    expected.put(inserted, "NEW");
+                } catch (RuntimeException e) {
+                    // A write caught by the swap fails like any write during a lock timeout
+                }
+            }
+        });
+        writer.start();
+
+        service.startConversion();
+        ArgumentCaptor<Runnable> conversion = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(conversion.capture(), any(Instant.class));
+        conversion.getValue().run();
+        Thread.sleep(200);
+        stop.set(true);
+        writer.join();
+
+        assertEquals("p", jdbcTemplate.queryForObject(
+            "SELECT relkind::text FROM pg_class WHERE relname = 'certificates'", String.class));
+        assertFalse(exists("certificates_legacy"));
+        assertFalse(exists("certificates_partitioned"));
+        assertTrue(exists("idx_cert_created"));
+        assertTrue(exists("certificates_p" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMM"))));
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM certificates", Integer.class);
+        Integer inserted = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM certificates WHERE unique_id LIKE 'new-%'", Integer.class);
+        assertEquals(20000 + inserted, rows);
+        List<Map<String, Object>> actual = jdbcTemplate.queryForList("SELECT id, status FROM certificates");
+        for (Map<String, Object> row : actual) {
+            String status = expected.get(((Number) row.get("id")).longValue());
+            if (status != null) {
+                assertEquals(status, row.get("status"), "row " + row.get("id"));
+            }
+        }
+
+        // Every copied and mirrored row is registered, so unique_id stays unique across partitions
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT count(*) FROM certificate_ids", Integer.class));
+        assertEquals("complete", jdbcTemplate.queryForObject(
+            "SELECT obj_description('certificate_ids'::regclass, 'pg_class')", String.class));
+
+        // New rows continue the id sequence
+        Long max = jdbcTemplate.queryForObject("SELECT max(id) FROM certificates", Long.class);
+        Long next = jdbcTemplate.queryForObject("INSERT INTO certificates (unique_id, status, created_at) "
+            + "VALUES ('after', 'NEW', '2026-01-01') RETURNING id", Long.class);
+        assertTrue(next > max);
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+            "INSERT INTO certificates (unique_id, status, created_at) VALUES ('after', 'NEW', now())"));
+    }
+
+    @Test
+    void addsIdRegistryToAlreadyPartitionedTable() {
+        jdbcTemplate.execute("CREATE TABLE certificates (id bigint NOT NULL, unique_id varchar(100) NOT NULL, "
+            + "status varchar(20), created_at timestamp NOT NULL, PRIMARY KEY (id, created_at)) "
+            + "PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("CREATE TABLE certificates_default PARTITION OF certificates DEFAULT");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO certificates SELECT n, 'id-' || n, 'GENERATED', ? "
+            + "FROM generate_series(1, 1200) n", now);
+
+        service.run(null);
+
+        assertEquals(1200, jdbcTemplate.queryForObject("SELECT count(*) FROM certificate_ids", Integer.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+            "INSERT INTO certificates VALUES (2000, 'id-1', 'GENERATED', ?)",
+            Timestamp.valueOf(LocalDateTime.now().minusYears(1))));
+
+        // Deleting a certificate releases its ID
+        jdbcTemplate.update("DELETE FROM certificates WHERE id = 1");
+        jdbcTemplate.update("INSERT INTO certificates VALUES (2001, 'id-1', 'GENERATED', ?)", now);
+        assertEquals(1200, jdbcTemplate.queryForObject("SELECT count(*) FROM certificate_ids", Integer.class));
+        verifyNoInteractions(taskScheduler);
+    }
+
+    private boolean exists(String relation) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM pg_class WHERE relname = ?", relation).isEmpty();
+    }
+}
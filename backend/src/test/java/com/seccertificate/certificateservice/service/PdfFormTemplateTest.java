@@ -0,0 +1,76 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+public class PdfFormTemplateTest {
+
+    @Test
+    void parse_findsFieldsAndQrArea() {
+        PdfFormTemplate form = PdfFormTemplate.parse(formPdfBase64());
+
+        assertEquals(List.of("name", "course"), form.fieldNames());
+        assertTrue(form.hasQrField());
+        assertEquals(1, form.qrPage());
+        assertEquals(650f, form.qrArea().getX(), 0.01f);
+    }
+
+    @Test
+    void parse_rejectsPdfWithoutFields() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            pdf.addNewPage();
+        }
+        String content = Base64.getEncoder().encodeToString(out.toByteArray());
+
+        assertThrows(IllegalArgumentException.class, () -> PdfFormTemplate.parse(content));
+        assertThrows(IllegalArgumentException.class, () -> PdfFormTemplate.parse("not a pdf"));
+    }
+
+    @Test
+    void fill_flattensValuesAndStampsId() throws Exception {
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfGenerationService.fillPdfForm(PdfFormTemplate.parse(formPdfBase64()),
+            Map.of("name", "Alice", "course", "Security"), "cert-1", "https://example.com/verify/cert-1", out);
+
+        try (PdfDocument filled = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            PdfAcroForm acroForm = PdfAcroForm.getAcroForm(filled, false);
+            assertTrue(acroForm == null || acroForm.getFormFields().isEmpty(), "Fields should be flattened");
+
+            String text = PdfTextExtractor.getTextFromPage(filled.getFirstPage());
+            assertTrue(text.contains("Alice"));
+            assertTrue(text.contains("Security"));
+            assertTrue(text.contains("Certificate ID: cert-1"));
+        }
+    }
+
+    static String formPdfBase64() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            PdfPage page = pdf.addNewPage(PageSize.A4.rotate());
+            PdfAcroForm form = PdfAcroForm.getAcroForm(pdf, true);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(100, 300, 400, 30), "name", ""), page);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(100, 250, 400, 30), "course", ""), page);
+            form.addField(PdfFormField.createText(pdf, new Rectangle(650, 50, 120, 120), "qr_image", ""), page);
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+}
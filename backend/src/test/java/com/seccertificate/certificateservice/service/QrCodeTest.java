@@ -0,0 +1,63 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class QrCodeTest {
+
+    private static final String URL = "https://example.com/verify/cert-1?customer=1&signature=abc";
+
+    @Test
+    void encode_keepsQuietZoneAndPngDecodes() throws Exception {
+        QrCode qr = QrCode.encode(URL);
+
+        assertEquals(0, (qr.size() - 8 - 21) % 4, "Version grid plus a 4-module quiet zone on each side");
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(
+            new BufferedImageLuminanceSource(ImageIO.read(new ByteArrayInputStream(qr.png(200))))));
+        assertEquals(URL, new QRCodeReader().decode(bitmap).getText());
+    }
+
+    @Test
+    void draw_writesVectorsOnly() throws Exception {
+        QrCode qr = QrCode.encode(URL);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            PdfPage page = pdf.addNewPage();
+            qr.draw(new PdfCanvas(page), new Rectangle(36, 700, 100, 100));
+        }
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            PdfPage page = pdf.getFirstPage();
+            assertTrue(page.getResources().getResourceNames(PdfName.XObject).isEmpty());
+            String content = new String(page.getContentBytes(), StandardCharsets.ISO_8859_1);
+            assertTrue(content.contains(" re"));
+        }
+    }
+
+    @Test
+    void svg_coversTheModuleGrid() throws Exception {
+        QrCode qr = QrCode.encode(URL);
+        String svg = CompiledTemplate.qrSvg(qr);
+
+        assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100px\" height=\"100px\""));
+        assertTrue(svg.contains("viewBox=\"0 0 " + qr.size() + " " + qr.size() + "\""));
+        assertTrue(svg.contains("<path fill=\"#000000\" d=\"M"));
+    }
+}
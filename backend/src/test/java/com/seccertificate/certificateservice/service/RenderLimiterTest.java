@@ -0,0 +1,63 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.seccertificate.certificateservice.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class RenderLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void limitSettlesNearTheCoreCountWhenRenderingIsCpuBound() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RenderLimiter limiter = new RenderLimiter(32, 1, 64, 1.5, 1000, meterRegistry);
+
+        // Four cores: past four concurrent renders, each one takes proportionally longer
+        int peak = 0;
+        for (int i = 0; i < 40_000; i++) {
+            saturate(limiter);
+            int concurrency = limiter.limit();
+            limiter.sample((long) (100 * MILLIS * Math.max(1.0, concurrency / 4.0)));
+            if (i > 20_000) {
+                peak = Math.max(peak, limiter.limit());
+            }
+        }
+
+        assertTrue(peak >= 4 && peak <= 8, "limit peaked at " + peak);
+        assertEquals(limiter.limit(), meterRegistry.get("render.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyStaysFlat() {
+        RenderLimiter limiter = new RenderLimiter(2, 1, 64, 1.5, 1000, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 2_000; i++) {
+            saturate(limiter);
+            limiter.sample(50 * MILLIS);
+        }
+
+        assertTrue(limiter.limit() > 16, "limit only reached " + limiter.limit());
+    }
+
+    @Test
+    void acquireTimesOutWithRetryAfter() {
+        RenderLimiter limiter = new RenderLimiter(1, 1, 1, 1.5, 10, new SimpleMeterRegistry());
+
+        try (RenderLimiter.Permit permit = limiter.acquire()) {
+            TooManyRequestsException e = assertThrows(TooManyRequestsException.class, limiter::acquire);
+            assertEquals(1, e.getRetryAfterSeconds());
+        }
+        assertEquals(0, limiter.inFlight());
+        limiter.acquire().close();
+    }
+
+    /** Keeps every slot busy, so growth is not held back as idle capacity; samples are fed directly. */
+    private static void saturate(RenderLimiter limiter) {
+        while (limiter.inFlight() < limiter.limit()) {
+            limiter.acquire();
+        }
+    }
+}
@@ -33,4 +33,25 @@ public class SignatureServiceTest {
         boolean ok = signatureService.verify(uniqueId, data, sig);
         assertTrue(ok, "Signature should verify with same data and key");
     }
+
+    @Test
+    void verificationToken_roundTripsAndRejectsOtherSignatures() {
+        String uniqueId = "0b9c2a7e-5d41-4f6a-9e3b-2f1c8d7a6b50";
+        String sig = signatureService.sign(uniqueId, Map.of("name", "Alice"));
+
+        String token = signatureService.verificationToken(uniqueId, sig);
+        assertTrue(token.matches("[A-Z2-7]{40}"), "Token should stay in the QR alphanumeric set");
+
+        VerificationToken parsed = VerificationToken.parse(token.toLowerCase()).orElseThrow();
+        assertEquals(uniqueId, parsed.uniqueId());
+        assertTrue(signatureService.verifyToken(parsed, sig));
+        assertFalse(signatureService.verifyToken(parsed, signatureService.sign(uniqueId, Map.of("name", "Mallory"))));
+    }
+
+    @Test
+    void parse_rejectsMalformedTokens() {
+        assertTrue(VerificationToken.parse("abc-123").isEmpty());
+        assertTrue(VerificationToken.parse("1".repeat(40)).isEmpty());
+        assertTrue(VerificationToken.parse("A".repeat(40)).isEmpty(), "Unknown format byte");
+    }
 }
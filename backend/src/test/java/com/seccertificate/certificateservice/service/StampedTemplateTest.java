@@ -0,0 +1,82 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.seccertificate.certificateservice.entity.Template;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class StampedTemplateTest {
+
+    static final String HTML = """
+        <div style="text-align:center; padding:40px; border:4px solid #1a3c6e; font-family:Helvetica;">
+          <h1>Certificate of Completion</h1>
+          <h2>{{name}}</h2>
+          <p>Issued by Example Academy</p>
+          <div>{{qr_image}}</div>
+        </div>
+        """;
+
+    private static final RenderResources RESOURCES =
+        new RenderResources(false, "", DataSize.ofMegabytes(32), Duration.ofHours(1));
+
+    private final TemplateCompiler compiler = new TemplateCompiler();
+    private final RenderEngine engine = new ITextRenderEngine(RESOURCES);
+
+    @Test
+    void build_measuresCenteredField() {
+        StampedTemplate layer = StampedTemplate.build(compile(HTML), engine, RESOURCES.fontSet()).orElseThrow();
+
+        assertTrue(layer.fields().stream().anyMatch(field -> field.anchor() == StampedTemplate.Anchor.CENTER));
+        assertEquals(1, layer.qrAreas().size());
+    }
+
+    @Test
+    void build_refusesPlaceholdersOutsideText() {
+        Optional<StampedTemplate> layer = StampedTemplate.build(
+            compile("<p style=\"color:{{color}}\">Hello {{name}}</p>"), engine, RESOURCES.fontSet());
+
+        assertTrue(layer.isEmpty());
+    }
+
+    @Test
+    void stamp_drawsValuesOntoStaticLayer() throws Exception {
+        StampedTemplate layer = StampedTemplate.build(compile(HTML), engine, RESOURCES.fontSet()).orElseThrow();
+        PdfGenerationService pdfGenerationService = new PdfGenerationService(List.of(engine), RESOURCES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(pdfGenerationService.stamp(layer, Map.of("name", "Alice Example"), "cert-1",
+            "https://example.com/verify/cert-1", out));
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            String text = PdfTextExtractor.getTextFromPage(pdf.getFirstPage());
+            assertTrue(text.contains("Certificate of Completion"));
+            assertTrue(text.contains("Alice Example"));
+            assertTrue(text.contains("Certificate ID: cert-1"));
+            assertFalse(text.contains("Qx"));
+        }
+    }
+
+    @Test
+    void fieldTexts_turnsDownValuesThatWouldLayOutDifferently() {
+        StampedTemplate layer = StampedTemplate.build(compile(HTML), engine, RESOURCES.fontSet()).orElseThrow();
+
+        assertNotNull(layer.fieldTexts(Map.of("name", "Alice"), "cert-1"));
+        assertNull(layer.fieldTexts(Map.of("name", "<b>Alice</b>"), "cert-1"));
+        assertNull(layer.fieldTexts(Map.of("name", "A".repeat(200)), "cert-1"));
+    }
+
+    private CompiledTemplate compile(String html) {
+        return compiler.compile(compiler.normalize(compiler.sanitize(html), Template.TemplateType.HTML), Template.TemplateType.HTML);
+    }
+}
@@ -0,0 +1,88 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.entity.Template;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TemplateCompilerTest {
+
+    private final TemplateCompiler compiler = new TemplateCompiler();
+
+    @Test
+    void render_substitutesPlaceholdersAndAddsWatermark() {
+        CompiledTemplate template = compileHtml("<p>Awarded to {{name}} for {{course}}</p>");
+
+        String html = template.render(Map.of("name", "Alice"), "cert-1", null);
+
+        assertTrue(html.contains("Awarded to Alice for {{course}}"), "Missing values keep their placeholder");
+        assertTrue(html.contains("Certificate ID: cert-1</div></body>"));
+        assertFalse(html.contains("@watermark"));
+    }
+
+    @Test
+    void render_placesQrInlineOrFixed() {
+        CompiledTemplate inline = compileHtml("<div>{{qr_image}}</div>");
+        CompiledTemplate fixed = compileHtml("<div>No slot</div>");
+
+        String qr = CompiledTemplate.qrImage("QRDATA");
+
+        assertTrue(inline.render(Map.of(), "cert-1", qr)
+            .contains("<div><img src=\"data:image/png;base64,QRDATA\" style=\"width:100px;height:100px;\"/></div>"));
+        assertTrue(fixed.render(Map.of(), "cert-1", qr).contains("position: fixed; left: 10px; top: 10px"));
+        assertFalse(fixed.render(Map.of(), "cert-1", null).contains("<img"));
+    }
+
+    @Test
+    void compile_normalizesToXhtmlAndStripsScripts() {
+        String sanitized = compiler.sanitize("<p>Hi {{name}}<br><script>alert(1)</script></p>");
+        String normalized = compiler.normalize(sanitized, Template.TemplateType.HTML);
+
+        assertTrue(normalized.startsWith("<html><head><meta charset=\"UTF-8\" />"));
+        assertTrue(normalized.contains("<br />"));
+        assertFalse(normalized.contains("script"));
+        assertEquals(List.of("name"), compiler.placeholders(normalized));
+    }
+
+    @Test
+    void segments_roundTripThroughJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CompiledTemplate template = compileHtml("<p>{{ name }}</p>{{qr_image}}");
+
+        List<CompiledTemplate.Segment> segments = objectMapper.readValue(
+            objectMapper.writeValueAsString(template.getSegments()), new TypeReference<>() {});
+        CompiledTemplate restored = new CompiledTemplate(Template.TemplateType.HTML, segments);
+
+        Map<String, String> data = Map.of(" name ", "Bob");
+        assertEquals(template.render(data, "cert-2", "QR"), restored.render(data, "cert-2", "QR"));
+        assertTrue(restored.render(data, "cert-2", "QR").contains("<p>Bob</p>"));
+    }
+
+    @Test
+    void nonHtmlTemplates_onlySubstitutePlaceholders() {
+        CompiledTemplate template = compiler.compile(
+            compiler.normalize("Awarded to {{name}} {{qr_image}}", Template.TemplateType.JSON),
+            Template.TemplateType.JSON);
+
+        assertEquals("Awarded to Alice {{qr_image}}", template.render(Map.of("name", "Alice"), "cert-3", "QR"));
+    }
+
+    @Test
+    void legacyPlainTextPdfTemplate_compilesAsText() {
+        CompiledTemplate template = compiler.compile("Awarded to {{name}}", Template.TemplateType.PDF_TEMPLATE);
+
+        assertNull(template.getPdfForm());
+        assertEquals(List.of("name"), compiler.placeholders(template, "Awarded to {{name}}"));
+        assertEquals("Awarded to Alice", template.render(Map.of("name", "Alice"), "cert-4", null));
+    }
+
+    private CompiledTemplate compileHtml(String content) {
+        return compiler.compile(compiler.normalize(compiler.sanitize(content), Template.TemplateType.HTML),
+            Template.TemplateType.HTML);
+    }
+}
@@ -0,0 +1,79 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seccertificate.certificateservice.entity.Template;
+import com.seccertificate.certificateservice.entity.TemplateVersion;
+import com.seccertificate.certificateservice.repository.TemplateRepository;
+import com.seccertificate.certificateservice.repository.TemplateVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class TemplateVersionServiceTest {
+
+    private final TemplateVersionRepository templateVersionRepository = mock(TemplateVersionRepository.class);
+    private final TemplateRepository templateRepository = mock(TemplateRepository.class);
+    private final Map<Long, TemplateVersion> savedVersions = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        when(templateVersionRepository.save(any(TemplateVersion.class))).thenAnswer(invocation -> {
+            TemplateVersion version = invocation.getArgument(0);
+            version.setId(savedVersions.size() + 1L);
+            savedVersions.put(version.getId(), version);
+            return version;
+        });
+        when(templateVersionRepository.findById(any()))
+            .thenAnswer(invocation -> Optional.ofNullable(savedVersions.get(invocation.<Long>getArgument(0))));
+    }
+
+    @Test
+    void startupVersionsLegacyPlainTextPdfTemplate() {
+        Template legacy = Template.builder()
+            .id(1L)
+            .type(Template.TemplateType.PDF_TEMPLATE)
+            .templateContent("Awarded to {{name}}")
+            .build();
+        when(templateRepository.findTop100ByCurrentVersionIsNullOrderById()).thenReturn(List.of(legacy), List.of());
+
+        newService().run(null);
+
+        TemplateVersion version = legacy.getCurrentVersion();
+        assertNotNull(version);
+        assertEquals("[\"name\"]", version.getPlaceholders());
+
+        // Cold cache, as after a restart or on another node
+        CompiledTemplate compiled = newService().compiled(version);
+        assertNull(compiled.getPdfForm());
+        assertEquals("Awarded to Alice", compiled.render(Map.of("name", "Alice"), "cert-1", null));
+    }
+
+    @Test
+    void jsonLayoutIsRecompiledOnColdCache() {
+        Template template = Template.builder()
+            .id(2L)
+            .type(Template.TemplateType.JSON)
+            .templateContent(JsonLayoutTemplateTest.LAYOUT)
+            .build();
+        TemplateVersion version = newService().publishVersion(template);
+
+        CompiledTemplate compiled = newService().compiled(version);
+        assertNotNull(compiled.getJsonLayout());
+        assertEquals(Template.TemplateType.JSON, compiled.getType());
+    }
+
+    private TemplateVersionService newService() {
+        return new TemplateVersionService(templateVersionRepository, templateRepository, new TemplateCompiler(),
+            new ObjectMapper(), mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), 100);
+    }
+}
@@ -0,0 +1,42 @@
+package com.seccertificate.certificateservice.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class VerificationResultCacheTest {
+
+    private final VerificationResultCache cache = new VerificationResultCache(100, Duration.ofMinutes(5));
+    private final VerificationResultCache.VerificationResult valid =
+        new VerificationResultCache.VerificationResult(true, 1L, 2L);
+
+    @Test
+    void cachesResultReadWithoutInterveningEviction() {
+        long stamp = cache.readStamp();
+        cache.put("cert-1", "sig", valid, stamp);
+        assertEquals(valid, cache.get("cert-1", "sig"));
+    }
+
+    @Test
+    void dropsResultReadBeforeRevocationEvictedIt() {
+        // The verification read the certificate, then the revocation committed and evicted
+        long stamp = cache.readStamp();
+        cache.evict("cert-1");
+        cache.put("cert-1", "sig", valid, stamp);
+        assertNull(cache.get("cert-1", "sig"));
+
+        // Reads that start after the eviction see the revoked certificate and are cached again
+        cache.put("cert-1", "sig", new VerificationResultCache.VerificationResult(false, 1L, 2L), cache.readStamp());
+        assertFalse(cache.get("cert-1", "sig").valid());
+    }
+
+    @Test
+    void dropsResultReadBeforeFlush() {
+        long stamp = cache.readStamp();
+        cache.clear();
+        cache.put("cert-2", "sig", valid, stamp);
+        assertNull(cache.get("cert-2", "sig"));
+    }
+}
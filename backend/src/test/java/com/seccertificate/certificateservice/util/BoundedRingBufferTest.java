@@ -0,0 +1,83 @@
+package com.seccertificate.certificateservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedRingBufferTest {
+
+    @Test
+    void offer_shouldRejectWhenFull() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(99));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+    }
+
+    @Test
+    void poll_shouldPreserveFifoOrder() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(8);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 8; i++) {
+                buffer.offer(round * 8 + i);
+            }
+            List<Integer> drained = new ArrayList<>();
+            buffer.drainTo(drained, 100);
+            assertEquals(8, drained.size());
+            for (int i = 0; i < 8; i++) {
+                assertEquals(round * 8 + i, drained.get(i));
+            }
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void concurrentProducers_shouldNotLoseOrDuplicateElements() throws Exception {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            pool.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        rejected.incrementAndGet();
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        while (seen.size() < producers * perProducer) {
+            Integer value = buffer.poll();
+            if (value != null) {
+                assertTrue(seen.add(value), "duplicate element " + value);
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(buffer.isEmpty());
+    }
+}
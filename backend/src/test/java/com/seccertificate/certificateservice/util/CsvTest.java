@@ -0,0 +1,26 @@
+package com.seccertificate.certificateservice.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+public class CsvTest {
+
+    @Test
+    void writeRow_quotesSeparatorsAndQuotes() throws Exception {
+        StringWriter out = new StringWriter();
+        Csv.writeRow(out, "a", 1, null, "Doe, \"Jane\"", "two\nlines");
+
+        assertEquals("a,1,,\"Doe, \"\"Jane\"\"\",\"two\nlines\"\r\n", out.toString());
+    }
+
+    @Test
+    void field_neutralisesFormulas() {
+        assertEquals("'=1+1", Csv.field("=1+1"));
+        assertEquals("'@SUM(A1)", Csv.field("@SUM(A1)"));
+        assertEquals("-5", Csv.field(-5));
+        assertEquals("", Csv.field(null));
+    }
+}
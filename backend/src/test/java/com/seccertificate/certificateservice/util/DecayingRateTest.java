@@ -0,0 +1,23 @@
+package com.seccertificate.certificateservice.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class DecayingRateTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void steadyRateConvergesAndIdleRateDecays() {
+        DecayingRate rate = new DecayingRate(10_000);
+        long now = 0;
+        for (int i = 0; i < 600; i++) {
+            now += SECOND / 10;
+            rate.record(2, now);
+        }
+
+        assertEquals(20, rate.perSecond(now), 0.5);
+        assertEquals(20 / Math.E, rate.perSecond(now + 10 * SECOND), 0.5);
+    }
+}
@@ -0,0 +1,83 @@
+package com.seccertificate.certificateservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCountersTest {
+
+    @Test
+    void drain_shouldReturnCountsAndStartOver() {
+        StripedCounters<String, LongAdder> counters = new StripedCounters<>(LongAdder::new);
+        counters.update("a", adder -> adder.add(2));
+        counters.update("a", LongAdder::increment);
+        counters.update("b", LongAdder::increment);
+
+        Map<String, LongAdder> drained = counters.drain();
+
+        assertEquals(3, drained.get("a").sum());
+        assertEquals(1, drained.get("b").sum());
+        assertTrue(counters.drain().isEmpty());
+    }
+
+    @Test
+    void drain_shouldSeeEveryUpdateExactlyOnceUnderContention() throws Exception {
+        StripedCounters<Integer, LongAdder> counters = new StripedCounters<>(LongAdder::new);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counters.update(i % 4, LongAdder::increment);
+                }
+                done.countDown();
+            });
+        }
+
+        Map<Integer, Long> totals = new HashMap<>();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            counters.drain().forEach((key, adder) -> totals.merge(key, adder.sum(), Long::sum));
+        }
+        counters.drain().forEach((key, adder) -> totals.merge(key, adder.sum(), Long::sum));
+        executor.shutdown();
+
+        assertEquals(Map.of(0, 100_000L, 1, 100_000L, 2, 100_000L, 3, 100_000L), totals);
+    }
+
+    @Test
+    void drain_shouldWaitForUpdateInFlight() throws Exception {
+        StripedCounters<String, LongAdder> counters = new StripedCounters<>(LongAdder::new);
+        CountDownLatch updating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.execute(() -> counters.update("a", adder -> {
+            updating.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            adder.increment();
+        }));
+        assertTrue(updating.await(5, TimeUnit.SECONDS));
+
+        Future<Map<String, LongAdder>> drained = executor.submit(counters::drain);
+        Thread.sleep(100);
+        assertFalse(drained.isDone());
+
+        release.countDown();
+        assertEquals(1, drained.get(5, TimeUnit.SECONDS).get("a").sum());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,63 @@
+package com.seccertificate.certificateservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void next_setsVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(UuidV7.timestamp(uuid) >= before && UuidV7.timestamp(uuid) <= after);
+    }
+
+    @Test
+    void generator_isStrictlyIncreasingWithinAndAcrossMilliseconds() {
+        UuidV7.Generator generator = new UuidV7.Generator(42);
+        String previous = generator.next(1_000).toString();
+        for (int i = 0; i < 100_000; i++) {
+            // Same millisecond, then a clock step back, then time moving on
+            long now = i < 50_000 ? 1_000 : i < 60_000 ? 999 : 1_000 + i;
+            String current = generator.next(now).toString();
+            assertTrue(current.compareTo(previous) > 0, "IDs must sort in generation order as strings");
+            previous = current;
+        }
+    }
+
+    @Test
+    void next_isUniqueAcrossThreads() throws Exception {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(UuidV7.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8 * 50_000, ids.size());
+    }
+}
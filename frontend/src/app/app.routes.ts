@@ -25,6 +25,11 @@ export const routes: Routes = [
     path: 'verify/:uniqueId',
     loadComponent: () => import('./features/verify/verify.component').then(m => m.VerifyComponent)
   },
+  {
+    // Compact QR code URLs: /V/<token>
+    path: 'V/:token',
+    loadComponent: () => import('./features/verify/verify.component').then(m => m.VerifyComponent)
+  },
   {
     path: 'certificates',
     loadChildren: () => import('./features/certificates/certificate.routes').then(m => m.CERTIFICATE_ROUTES),
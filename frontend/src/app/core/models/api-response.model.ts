@@ -14,6 +14,13 @@ export interface PageResponse<T> {
   last: boolean;
 }
 
+export interface CursorPageResponse<T> {
+  content: T[];
+  pageSize: number;
+  nextCursor?: string;
+  last: boolean;
+}
+
 export interface ErrorResponse {
   timestamp: Date;
   status: number;
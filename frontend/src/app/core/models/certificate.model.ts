@@ -15,6 +15,7 @@ export interface Certificate {
   createdAt: Date;
   downloadedAt?: Date;
   downloadCount: number;
+  batchId?: string;
 }
 
 export interface GenerateCertificateRequest {
@@ -23,3 +24,27 @@ export interface GenerateCertificateRequest {
   recipientName?: string;
   recipientEmail?: string;
 }
+
+export interface DailyUsage {
+  date: string;
+  generated: number;
+  downloaded: number;
+  verified: number;
+}
+
+export interface TemplateUsage {
+  templateId: number;
+  generated: number;
+  downloaded: number;
+  verified: number;
+}
+
+export interface UsageStats {
+  from: string;
+  to: string;
+  totalGenerated: number;
+  totalDownloaded: number;
+  totalVerified: number;
+  daily: DailyUsage[];
+  byTemplate: TemplateUsage[];
+}
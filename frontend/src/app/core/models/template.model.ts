@@ -6,6 +6,8 @@ export interface Template {
   templateContent?: string;
   content?: string;
   type: 'HTML' | 'JSON' | 'PDF_TEMPLATE';
+  renderer?: 'ITEXT' | 'OPENHTMLTOPDF' | null;
+  stamped?: boolean;
   placeholders: string[];
   status: string;
   category?: string;
@@ -21,6 +23,8 @@ export interface CreateTemplateRequest {
   templateContent?: string;
   content?: string;
   type: string;
+  renderer?: string;
+  stamped?: boolean;
   placeholders?: string[];
   category?: string;
 }
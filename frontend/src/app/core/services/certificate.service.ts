@@ -1,11 +1,13 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
 import { 
   Certificate, 
   GenerateCertificateRequest, 
-  ApiResponse 
+  ApiResponse,
+  CursorPageResponse,
+  UsageStats
 } from '../models';
 
 @Injectable({
@@ -28,10 +30,33 @@ export class CertificateService {
     return this.http.get<ApiResponse<Certificate[]>>(this.apiUrl);
   }
 
+  searchCertificates(query: string, cursor?: string, size = 20): Observable<ApiResponse<CursorPageResponse<Certificate>>> {
+    let params = new HttpParams().set('q', query).set('size', size);
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return this.http.get<ApiResponse<CursorPageResponse<Certificate>>>(`${this.apiUrl}/search`, { params });
+  }
+
+  getUsageStats(from?: string, to?: string): Observable<ApiResponse<UsageStats>> {
+    let params = new HttpParams();
+    if (from) {
+      params = params.set('from', from);
+    }
+    if (to) {
+      params = params.set('to', to);
+    }
+    return this.http.get<ApiResponse<UsageStats>>(`${this.apiUrl}/stats`, { params });
+  }
+
   getCertificateByUniqueId(uniqueId: string): Observable<ApiResponse<Certificate>> {
     return this.http.get<ApiResponse<Certificate>>(`${this.apiUrl}/${uniqueId}`);
   }
 
+  revokeCertificate(uniqueId: string): Observable<ApiResponse<Certificate>> {
+    return this.http.post<ApiResponse<Certificate>>(`${this.apiUrl}/${uniqueId}/revoke`, {});
+  }
+
   downloadCertificate(uniqueId: string): Observable<Blob> {
     return this.http.get(`${this.apiUrl}/${uniqueId}/download`, {
       responseType: 'blob'
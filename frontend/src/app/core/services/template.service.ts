@@ -153,6 +153,19 @@ export class TemplateService {
     );
   }
 
+  /**
+   * Create a PDF_TEMPLATE from a PDF with form fields (a field named qr_image receives the QR code)
+   */
+  uploadPdfTemplate(file: File, name: string, description?: string): Observable<ApiResponse<Template>> {
+    const formData = new FormData();
+    formData.append('file', file);
+    formData.append('name', name);
+    if (description) {
+      formData.append('description', description);
+    }
+    return this.http.post<ApiResponse<Template>>(`${this.apiUrl}/pdf`, formData);
+  }
+
   /**
    * Simulate template with placeholder values
    */
@@ -167,6 +180,19 @@ export class TemplateService {
     return this.http.post(`${this.apiUrl}/simulate/pdf`, request, { responseType: 'blob' });
   }
 
+  /**
+   * Render the first page of the simulated certificate as an image (cached server-side)
+   */
+  previewTemplateImage(
+    request: { templateId: number; placeholderValues: { [key: string]: string } },
+    dpi = 96
+  ): Observable<Blob> {
+    return this.http.post(`${this.apiUrl}/simulate/preview`, request, {
+      params: { dpi, format: 'png' },
+      responseType: 'blob'
+    });
+  }
+
   /**
    * Get extracted placeholders from a template
    */
@@ -66,16 +66,21 @@ export class DashboardComponent implements OnInit {
       }
     });
 
+    this.certificateService.getUsageStats().subscribe({
+      next: (response: any) => {
+        const usage = response.data;
+        const weekAgo = new Date();
+        weekAgo.setDate(weekAgo.getDate() - 7);
+        this.stats.totalCertificates = usage.totalGenerated;
+        this.stats.recentCertificates = usage.daily
+          .filter((day: any) => new Date(day.date) > weekAgo)
+          .reduce((sum: number, day: any) => sum + day.generated, 0);
+      }
+    });
+
     this.certificateService.getCertificates().subscribe({
       next: (response: any) => {
         this.certificates = response.data;
-        this.stats.totalCertificates = this.certificates.length;
-        this.stats.recentCertificates = this.certificates.filter(cert => {
-          const createdDate = new Date(cert.createdAt);
-          const weekAgo = new Date();
-          weekAgo.setDate(weekAgo.getDate() - 7);
-          return createdDate > weekAgo;
-        }).length;
         this.loading = false;
       }
     });
@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule, ReactiveFormsModule, FormBuilder, FormGroup } from '@angular/forms';
 import { Router } from '@angular/router';
@@ -9,7 +9,7 @@ import { MatButtonModule } from '@angular/material/button';
 import { MatIconModule } from '@angular/material/icon';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { MatProgressSpinnerModule } from '@angular/material/progress-spinner';
-import { DomSanitizer, SafeHtml } from '@angular/platform-browser';
+import { DomSanitizer, SafeHtml, SafeUrl } from '@angular/platform-browser';
 import { TemplateService } from '../../../core/services/template.service';
 
 @Component({
@@ -30,12 +30,14 @@ import { TemplateService } from '../../../core/services/template.service';
   templateUrl: './template-simulation.component.html',
   styleUrls: ['./template-simulation.component.scss']
 })
-export class TemplateSimulationComponent implements OnInit {
+export class TemplateSimulationComponent implements OnInit, OnDestroy {
   placeholderForm: FormGroup;
   templateContent = '';
   placeholders: string[] = [];
   templateId: number | null = null;
   previewHtml: SafeHtml = '';
+  previewImageUrl: SafeUrl | null = null;
+  private previewObjectUrl: string | null = null;
   isLoading = false;
   showPreview = false;
 
@@ -96,12 +98,13 @@ export class TemplateSimulationComponent implements OnInit {
         placeholderValues: this.placeholderForm.value
       };
 
-      this.templateService.simulateTemplate(request).subscribe({
-        next: (response) => {
-          if (response.success && response.data) {
-            this.previewHtml = this.sanitizer.bypassSecurityTrustHtml(response.data.previewHtml);
-            this.showPreview = true;
-          }
+      // Rendered page image: exactly what the PDF will look like, and cached for repeat previews
+      this.templateService.previewTemplateImage(request).subscribe({
+        next: (blob) => {
+          this.releasePreviewImage();
+          this.previewObjectUrl = window.URL.createObjectURL(blob);
+          this.previewImageUrl = this.sanitizer.bypassSecurityTrustUrl(this.previewObjectUrl);
+          this.showPreview = true;
           this.isLoading = false;
         },
         error: (error) => {
@@ -117,6 +120,7 @@ export class TemplateSimulationComponent implements OnInit {
         previewContent = previewContent.replace(new RegExp(placeholder, 'g'), value as string);
       });
       
+      this.releasePreviewImage();
       this.previewHtml = this.sanitizer.bypassSecurityTrustHtml(previewContent);
       this.showPreview = true;
       this.isLoading = false;
@@ -158,4 +162,16 @@ export class TemplateSimulationComponent implements OnInit {
   goBack(): void {
     this.router.navigate(['/templates']);
   }
+
+  ngOnDestroy(): void {
+    this.releasePreviewImage();
+  }
+
+  private releasePreviewImage(): void {
+    if (this.previewObjectUrl) {
+      window.URL.revokeObjectURL(this.previewObjectUrl);
+      this.previewObjectUrl = null;
+    }
+    this.previewImageUrl = null;
+  }
 }
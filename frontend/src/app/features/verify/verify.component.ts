@@ -32,17 +32,21 @@ export class VerifyComponent implements OnInit {
   ) {}
 
   ngOnInit(): void {
-    this.uniqueId = this.route.snapshot.paramMap.get('uniqueId');
+    const token = this.route.snapshot.paramMap.get('token');
+    this.uniqueId = token ? uniqueIdFromToken(token) : this.route.snapshot.paramMap.get('uniqueId');
     this.customerId = this.route.snapshot.queryParamMap.get('customer');
     this.signature = this.route.snapshot.queryParamMap.get('signature');
 
-    if (!this.uniqueId || !this.signature) {
+    if (!this.uniqueId || (!token && !this.signature)) {
       this.error = 'QR code is missing required data; cannot verify.';
       this.loading = false;
       return;
     }
 
-    const url = `${environment.apiUrl}/public/verify/${this.uniqueId}?signature=${encodeURIComponent(this.signature)}`;
+    // Compact tokens carry their own MAC; older QR codes pass the full signature
+    const url = token
+      ? `${environment.apiUrl}/public/verify/${encodeURIComponent(token)}`
+      : `${environment.apiUrl}/public/verify/${this.uniqueId}?signature=${encodeURIComponent(this.signature!)}`;
     this.http.get<any>(url).subscribe({
       next: (res) => {
         this.valid = !!res.data;
@@ -70,3 +74,32 @@ export class VerifyComponent implements OnInit {
     this.router.navigate(['/certificates', 'detail', this.uniqueId]);
   }
 }
+
+const BASE32 = 'ABCDEFGHIJKLMNOPQRSTUVWXYZ234567';
+
+/** Certificate UUID inside a compact token (format byte, 16 UUID bytes, MAC), or null if malformed. */
+function uniqueIdFromToken(token: string): string | null {
+  if (token.length !== 40) {
+    return null;
+  }
+  const bytes: number[] = [];
+  let buffer = 0;
+  let bits = 0;
+  for (const c of token.toUpperCase()) {
+    const value = BASE32.indexOf(c);
+    if (value < 0) {
+      return null;
+    }
+    buffer = ((buffer << 5) | value) & 0xfff;
+    bits += 5;
+    if (bits >= 8) {
+      bits -= 8;
+      bytes.push((buffer >> bits) & 0xff);
+    }
+  }
+  if (bytes[0] !== 1) {
+    return null;
+  }
+  const hex = bytes.slice(1, 17).map(b => b.toString(16).padStart(2, '0')).join('');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}